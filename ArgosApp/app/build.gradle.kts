@@ -1,7 +1,12 @@
 plugins {
     alias(libs.plugins.android.application)
+    alias(libs.plugins.baselineprofile)
 }
 
+// `./gradlew :app:connectedMicrobenchmarkAndroidTest -Pargos.microbenchmark` runs the instrumented
+// tests, including src/androidTestMicrobenchmark, against the non-debuggable microbenchmark build type
+val microbenchmark = providers.gradleProperty("argos.microbenchmark").isPresent
+
 android {
     namespace = "com.example.argosapp"
     compileSdk = 35
@@ -13,17 +18,34 @@ android {
         versionCode = 1
         versionName = "1.0"
 
-        testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        testInstrumentationRunner = if (microbenchmark) {
+            "androidx.benchmark.junit4.AndroidBenchmarkRunner"
+        } else {
+            "androidx.test.runner.AndroidJUnitRunner"
+        }
+    }
+    if (microbenchmark) {
+        testBuildType = "microbenchmark"
     }
 
     buildTypes {
         release {
-            isMinifyEnabled = false
+            isMinifyEnabled = true
+            isShrinkResources = true
             proguardFiles(
                 getDefaultProguardFile("proguard-android-optimize.txt"),
                 "proguard-rules.pro"
             )
         }
+        // Release code without R8, so benchmarks can reach package-private hot paths. It must not be
+        // debuggable: debuggable code skips JIT optimizations and the benchmark library rejects it
+        create("microbenchmark") {
+            initWith(getByName("release"))
+            isMinifyEnabled = false
+            isShrinkResources = false
+            signingConfig = signingConfigs.getByName("debug")
+            matchingFallbacks += "release"
+        }
     }
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
@@ -32,6 +54,20 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    sourceSets {
+        // Hooks the benchmark module drives (history seeding, shell profiling); only in the variants
+        // the baseline profile plugin adds for it, never in release
+        for (variant in listOf("benchmarkRelease", "nonMinifiedRelease")) {
+            maybeCreate(variant).apply {
+                java.srcDir("src/benchmark/java")
+                manifest.srcFile("src/benchmark/AndroidManifest.xml")
+            }
+        }
+    }
+    androidResources {
+        // The Lite model is extracted from assets as-is; skip compressing it in the APK
+        noCompress += "ptl"
+    }
 }
 
 dependencies {
@@ -43,9 +79,14 @@ dependencies {
     implementation("androidx.recyclerview:recyclerview:1.3.2")
     implementation("androidx.navigation:navigation-fragment:2.7.7")
     implementation("androidx.navigation:navigation-ui:2.7.7")
+    // --- Baseline Profile (由 :benchmark 產生，隨 release 一起安裝) ---
+    implementation(libs.profileinstaller)
+    "baselineProfile"(project(":benchmark"))
+
     testImplementation(libs.junit)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation(libs.benchmark.junit4)
 
     // --- ViewModel 和 LiveData (狀態管理) ---
     implementation("androidx.lifecycle:lifecycle-viewmodel:2.7.0")
@@ -57,8 +98,26 @@ dependencies {
 
     // --- 圖片載入 (Glide) - 方便將照片顯示在畫面上 ---
     implementation("com.github.bumptech.glide:glide:4.16.0")
+    annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
+
+    // --- CameraX (即時預覽偵測) ---
+    implementation("androidx.camera:camera-core:1.3.4")
+    implementation("androidx.camera:camera-camera2:1.3.4")
+    implementation("androidx.camera:camera-lifecycle:1.3.4")
+    implementation("androidx.camera:camera-view:1.3.4")
+
+    // --- PyTorch Lite (本機 YOLO 推論) ---
+    implementation("org.pytorch:pytorch_android_lite:1.13.1")
+    implementation("org.pytorch:pytorch_android_torchvision_lite:1.13.1")
 
     // --- (*** 1. 關鍵新增 ***) ---
     // 這是 Android 12+ 官方的啟動畫面 API
     implementation("androidx.core:core-splashscreen:1.0.1")
-}
\ No newline at end of file
+}
+
+baselineProfile {
+    // Generated on a device with `./gradlew :app:generateBaselineProfile` and committed under
+    // src/release/generated/baselineProfiles, so ordinary release builds don't need a device
+    automaticGenerationDuringBuild = false
+    saveInSrc = true
+}
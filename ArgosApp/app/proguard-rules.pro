@@ -18,4 +18,32 @@
 
 # If you keep the line number information, uncomment this to
 # hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
+#-renamesourcefileattribute SourceFile
+
+# --- Argos ---
+
+# Keep crash stack traces readable
+-keepattributes SourceFile,LineNumberTable
+-renamesourcefileattribute SourceFile
+
+# Retrofit 2.9 ships rules for its attributes and service interfaces, but not the ones R8 full mode
+# (the AGP 8 default) needs for Call/Response and for body types named only in generic signatures.
+-keep,allowobfuscation,allowshrinking interface retrofit2.Call
+-keep,allowobfuscation,allowshrinking class retrofit2.Response
+-if interface * { @retrofit2.http.* public *** *(...); }
+-keep,allowoptimization,allowshrinking,allowobfuscation class <3>
+
+# No rules for the JSON models: WireFormat and RemoteDetector register a TypeAdapter for each of
+# them, so no model fields are read reflectively. A new model without an adapter would fall back to
+# reflective Gson and break once its fields are renamed; give it an adapter rather than a keep rule.
+# Generic types such as List<YoloDetection> still reach Gson as a Type: build them with
+# TypeToken.getParameterized, since full mode drops the signature of `new TypeToken<...>() {}`.
+
+# PyTorch Lite binds its Java classes from native code through fbjni
+-keep class org.pytorch.** { *; }
+-keep class com.facebook.jni.** { *; }
+-keep @com.facebook.jni.annotations.DoNotStrip class *
+-keepclassmembers class * {
+    @com.facebook.jni.annotations.DoNotStrip *;
+}
+-dontwarn com.facebook.jni.**
@@ -0,0 +1,70 @@
+package com.example.argosapp;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import com.example.argosapp.data.YoloDetection;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Text MainViewModel builds for every scan: the findings summary shown and stored in history, and
+ * the user key and display name derived from the login identifier on every sign-in.
+ */
+@RunWith(Parameterized.class)
+public class ScanTextBenchmark {
+
+    private static final String[] LABELS = {"normal", "squash", "breach"};
+
+    @Parameterized.Parameters(name = "detections={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{{1}, {10}, {100}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final List<YoloDetection> detections;
+
+    public ScanTextBenchmark(int detectionCount) {
+        detections = new ArrayList<>(detectionCount);
+        for (int i = 0; i < detectionCount; i++) {
+            float left = (i % 10) / 10f;
+            detections.add(new YoloDetection(i % LABELS.length, LABELS[i % LABELS.length], 0.5f + (i % 50) / 100f,
+                    Arrays.asList(left, 0.1f, left + 0.1f, 0.4f)));
+        }
+    }
+
+    @Test
+    public void convertDetectionsToString() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            MainViewModel.convertDetectionsToString(detections);
+        }
+    }
+
+    // Identifier helpers don't depend on the detection count; they run once per parameter anyway
+    @Test
+    public void sanitizeIdentifier() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            MainViewModel.sanitizeIdentifier("  Chan.Tai-Man@Cathay-Cargo.example  ");
+        }
+    }
+
+    @Test
+    public void deriveDisplayName() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            MainViewModel.deriveDisplayName("  chan.tai-man_ops@cathay-cargo.example  ", "Inspector");
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.argosapp.data;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import com.google.gson.Gson;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JSON the scan flow writes and reads per analysis: the detections request in both encodings, and
+ * the detection list round-tripped the way it is handed between the pipeline and the backend.
+ */
+@RunWith(Parameterized.class)
+public class WireFormatBenchmark {
+
+    private static final String[] LABELS = {"normal", "squash", "breach"};
+    private static final String REPORT_JSON = "{\"uld_id\":\"AKE12345DL\",\"status\":\"yellow\","
+            + "\"damage_category\":\"Squash\",\"last_seen\":\"2026-10-17T08:00:00Z\",\"location\":\"HK\","
+            + "\"maintenance_suggestion\":\"Inspect the base rail before the next flight\",\"id\":42}";
+
+    @Parameterized.Parameters(name = "detections={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{{1}, {10}, {100}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final Gson gson = WireFormat.gson();
+    private final YOLOAnalysisRequest request;
+    private final String detectionsJson;
+
+    public WireFormatBenchmark(int detectionCount) {
+        List<YoloDetection> detections = new ArrayList<>(detectionCount);
+        for (int i = 0; i < detectionCount; i++) {
+            float left = (i % 10) / 10f;
+            detections.add(new YoloDetection(i % LABELS.length, LABELS[i % LABELS.length], 0.5f + (i % 50) / 100f,
+                    Arrays.asList(left, 0.1f, left + 0.1f, 0.4f)));
+        }
+        request = YOLOAnalysisRequest.fromDetections("AKE12345DL", detections);
+        detectionsJson = gson.toJson(detections.toArray(new YoloDetection[0]));
+    }
+
+    @Test
+    public void writeRequestJson() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            gson.toJson(request);
+        }
+    }
+
+    @Test
+    public void writeRequestCbor() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            request.toCborBody();
+        }
+    }
+
+    @Test
+    public void readDetections() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            gson.fromJson(detectionsJson, YoloDetection[].class);
+        }
+    }
+
+    // Independent of the detection count; the backend's report is the same size for every scan
+    @Test
+    public void readReport() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            gson.fromJson(REPORT_JSON, ULDReport.class);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.argosapp.history;
+
+import android.content.Context;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.argosapp.model.ScanHistoryItem;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * History persistence against stores of different sizes: appending a scan, loading the first page
+ * and seeking a page from the middle of the history. Each test seeds its own database file, which
+ * is deleted afterwards, so the app's real history is never read or written.
+ */
+@RunWith(Parameterized.class)
+public class HistoryStoreBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final String[] SEVERITIES = {"green", "yellow", "red"};
+
+    @Parameterized.Parameters(name = "history={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{{100}, {1000}, {5000}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final int historyLength;
+    private final String userKey;
+    private Context context;
+    private String databaseName;
+    private HistoryStore store;
+
+    public HistoryStoreBenchmark(int historyLength) {
+        this.historyLength = historyLength;
+        this.userKey = "bench_micro_" + historyLength;
+    }
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        databaseName = "bench_history_" + historyLength + ".db";
+        // A run killed before tearDown leaves its file behind; start from empty regardless
+        context.deleteDatabase(databaseName);
+        store = new HistoryStore(context, databaseName);
+        store.insertAll(userKey, createItems(historyLength, System.currentTimeMillis()));
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+        context.deleteDatabase(databaseName);
+    }
+
+    @Test
+    public void loadRecent() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            store.loadRecent(userKey, PAGE_SIZE);
+        }
+    }
+
+    @Test
+    public void loadPageFromMiddle() {
+        List<ScanHistoryItem> head = store.loadRecent(userKey, historyLength / 2);
+        ScanHistoryItem anchor = head.get(head.size() - 1);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            store.loadPage(userKey, anchor.getTimestamp(), anchor.getId(), PAGE_SIZE);
+        }
+    }
+
+    // Appends to a separate key so the sized history above stays at its length
+    @Test
+    public void insert() {
+        String insertKey = userKey + "_insert";
+        ScanHistoryItem item = createItems(1, System.currentTimeMillis()).get(0);
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            store.insert(insertKey, item);
+        }
+    }
+
+    private static List<ScanHistoryItem> createItems(int count, long now) {
+        List<ScanHistoryItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String severity = SEVERITIES[i % SEVERITIES.length];
+            items.add(new ScanHistoryItem(
+                    String.format(Locale.US, "AKE%05dMB", i),
+                    severity,
+                    severity.toUpperCase(Locale.US),
+                    "Found 2 potential issues: squash (confidence: 0.91); breach (confidence: 0.47); ",
+                    "Squash",
+                    "Inspect the base rail before the next flight",
+                    "",
+                    now - (count - i) * 60_000L));
+        }
+        return items;
+    }
+}
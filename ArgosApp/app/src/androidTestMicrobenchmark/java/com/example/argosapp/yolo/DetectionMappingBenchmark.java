@@ -0,0 +1,105 @@
+package com.example.argosapp.yolo;
+
+import android.graphics.Bitmap;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import com.example.argosapp.data.DetectionBatch;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Everything between a detector's raw output and the List the scan pipeline stores: parsing the
+ * remote service's response, mapping its boxes back to the source image, post-processing and the
+ * conversion to YoloDetection objects.
+ */
+@RunWith(Parameterized.class)
+public class DetectionMappingBenchmark {
+
+    private static final String[] LABELS = {"normal", "squash", "breach"};
+
+    @Parameterized.Parameters(name = "detections={0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{{10}, {100}, {1000}});
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final String responseJson;
+    private final RemoteDetector.RemoteDetectionResponse response;
+    private final DetectionBatch rawBatch;
+    private final DetectorInput input;
+
+    public DetectionMappingBenchmark(int detectionCount) throws IOException {
+        StringBuilder json = new StringBuilder("{\"detections\":[");
+        for (int i = 0; i < detectionCount; i++) {
+            float left = (i % 20) / 20f;
+            float top = (i / 20 % 20) / 20f;
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(String.format(Locale.US,
+                    "{\"box_norm\":[%.4f,%.4f,%.4f,%.4f],\"confidence\":%.3f,\"class_id\":%d,\"label\":\"%s\"}",
+                    left, top, left + 0.08f, top + 0.08f, 0.2f + (i % 80) / 100f, i % LABELS.length,
+                    LABELS[i % LABELS.length]));
+        }
+        responseJson = json.append("],\"filename\":\"capture.jpg\"}").toString();
+        response = new RemoteDetector.ResponseAdapter().fromJson(responseJson);
+        // A 4:3 capture letterboxed into the square model input
+        Bitmap modelBitmap = Bitmap.createBitmap(YoloProcessor.INPUT_SIZE, YoloProcessor.INPUT_SIZE,
+                Bitmap.Config.ARGB_8888);
+        float scale = YoloProcessor.INPUT_SIZE / 4032f;
+        input = new DetectorInput(modelBitmap, 4032, 3024, scale, 0,
+                Math.round((YoloProcessor.INPUT_SIZE - 3024 * scale) / 2f), null, null, 0);
+        rawBatch = RemoteDetector.mapDetections(response, input, RemoteDetector.BoxFrame.LETTERBOXED);
+    }
+
+    @After
+    public void tearDown() {
+        input.recycle();
+    }
+
+    @Test
+    public void parseRemoteResponse() throws IOException {
+        RemoteDetector.ResponseAdapter adapter = new RemoteDetector.ResponseAdapter();
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            adapter.fromJson(responseJson);
+        }
+    }
+
+    @Test
+    public void mapDetections() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            RemoteDetector.mapDetections(response, input, RemoteDetector.BoxFrame.LETTERBOXED);
+        }
+    }
+
+    @Test
+    public void postProcess() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            PostProcessor.DEFAULT.process(rawBatch);
+        }
+    }
+
+    @Test
+    public void toDetections() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            rawBatch.toDetections();
+        }
+    }
+}
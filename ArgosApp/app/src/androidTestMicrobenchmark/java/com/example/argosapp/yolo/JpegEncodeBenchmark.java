@@ -0,0 +1,73 @@
+package com.example.argosapp.yolo;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+
+import androidx.benchmark.BenchmarkState;
+import androidx.benchmark.junit4.BenchmarkRule;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * JPEG encoding at the quality RemoteDetector uploads with, from the letterboxed model input up to a
+ * full-resolution capture. The output stream is reused so only the encoder's own cost is measured.
+ */
+@RunWith(Parameterized.class)
+public class JpegEncodeBenchmark {
+
+    private static final int UPLOAD_QUALITY = 90;
+
+    @Parameterized.Parameters(name = "{0}x{1}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{
+                {YoloProcessor.INPUT_SIZE, YoloProcessor.INPUT_SIZE},
+                {1280, 960},
+                {4032, 3024}
+        });
+    }
+
+    @Rule
+    public BenchmarkRule benchmarkRule = new BenchmarkRule();
+
+    private final Bitmap bitmap;
+    private final ByteArrayOutputStream output;
+
+    public JpegEncodeBenchmark(int width, int height) {
+        bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        // A flat bitmap compresses unrealistically well; give the encoder some edges to work on
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint();
+        canvas.drawColor(Color.DKGRAY);
+        for (int i = 0; i < 64; i++) {
+            paint.setColor(Color.rgb(i * 4, 255 - i * 4, (i * 37) % 256));
+            float x = (i % 8) * width / 8f;
+            float y = (i / 8) * height / 8f;
+            canvas.drawCircle(x + width / 16f, y + height / 16f, Math.min(width, height) / 20f, paint);
+        }
+        output = new ByteArrayOutputStream(width * height / 4);
+    }
+
+    @After
+    public void tearDown() {
+        bitmap.recycle();
+    }
+
+    @Test
+    public void compressJpeg() {
+        BenchmarkState state = benchmarkRule.getState();
+        while (state.keepRunning()) {
+            output.reset();
+            bitmap.compress(Bitmap.CompressFormat.JPEG, UPLOAD_QUALITY, output);
+        }
+    }
+}
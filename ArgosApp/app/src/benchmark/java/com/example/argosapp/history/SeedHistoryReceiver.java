@@ -0,0 +1,67 @@
+package com.example.argosapp.history;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+import androidx.annotation.NonNull;
+
+import com.example.argosapp.model.ScanHistoryItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Benchmark-only: fills a user's history so scrolling can be measured against a realistic store.
+ * Tops the history up to the requested count, so repeated runs don't keep growing it.
+ *
+ * adb shell am broadcast -n com.example.argosapp/.history.SeedHistoryReceiver --es user bench_user --ei count 5000
+ */
+public final class SeedHistoryReceiver extends BroadcastReceiver {
+
+    private static final String EXTRA_USER = "user";
+    private static final String EXTRA_COUNT = "count";
+    private static final String[] SEVERITIES = {"green", "yellow", "red"};
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String userKey = intent.getStringExtra(EXTRA_USER);
+        int count = intent.getIntExtra(EXTRA_COUNT, 0);
+        if (userKey == null || count <= 0) {
+            return;
+        }
+        Context appContext = context.getApplicationContext();
+        PendingResult result = goAsync();
+        new Thread(() -> {
+            try {
+                HistoryStore store = new HistoryStore(appContext);
+                int missing = count - (int) store.count(userKey);
+                if (missing > 0) {
+                    store.insertAll(userKey, createItems(missing, System.currentTimeMillis()));
+                }
+                result.setResultCode(missing > 0 ? missing : 0);
+            } finally {
+                result.finish();
+            }
+        }, "history-seed").start();
+    }
+
+    @NonNull
+    private static List<ScanHistoryItem> createItems(int count, long now) {
+        List<ScanHistoryItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String severity = SEVERITIES[i % SEVERITIES.length];
+            items.add(new ScanHistoryItem(
+                    String.format(Locale.US, "AKE%05dBM", i),
+                    severity,
+                    severity.toUpperCase(Locale.US),
+                    "Seeded scan " + i,
+                    "Seeded damage",
+                    "No action",
+                    "",
+                    now - (count - i) * 60_000L));
+        }
+        return items;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.argosapp;
 
 import com.example.argosapp.data.ULDReport;
+import com.example.argosapp.model.ScanResultUiModel;
 
 // Abstract class with static subclasses to mimic Kotlin sealed classes
 public abstract class AppStatus {
@@ -13,6 +14,12 @@ public abstract class AppStatus {
         public Processing(String message) { this.message = message; }
     }
 
+    // The verdict has been streamed back; the maintenance suggestion is still empty until Success
+    public static final class Partial extends AppStatus {
+        public final ScanResultUiModel result;
+        public Partial(ScanResultUiModel result) { this.result = result; }
+    }
+
     public static final class Success extends AppStatus {
         public final ULDReport response;
 
@@ -21,6 +28,12 @@ public abstract class AppStatus {
         }
     }
 
+    // The scan could not be analyzed right now and was saved for a background retry
+    public static final class Queued extends AppStatus {
+        public final String message;
+        public Queued(String message) { this.message = message; }
+    }
+
     public static final class Error extends AppStatus {
         public final String message;
         public Error(String message) { this.message = message; }
@@ -0,0 +1,24 @@
+package com.example.argosapp;
+
+import android.app.Application;
+
+import com.example.argosapp.data.ApiClient;
+import com.example.argosapp.data.NetworkModule;
+import com.example.argosapp.data.WireFormat;
+import com.example.argosapp.yolo.RemoteDetector;
+
+public class ArgosApplication extends Application {
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        // Building the client touches the TLS provider, so keep it off the main thread. Gson and the
+        // dashboard's Retrofit service are created here too, so neither the first screen nor the
+        // first scan pays for them.
+        new Thread(() -> {
+            NetworkModule.prewarm(ApiClient.BASE_URL, RemoteDetector.BASE_URL);
+            WireFormat.gson();
+            ApiClient.getApiService();
+        }, "startup-init").start();
+    }
+}
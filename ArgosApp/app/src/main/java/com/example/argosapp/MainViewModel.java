@@ -1,47 +1,122 @@
 package com.example.argosapp;
 
 import android.app.Application;
-import android.content.Context;
-import android.content.SharedPreferences;
-import android.graphics.Bitmap;
 import android.net.Uri;
+import android.util.Log;
 
+import androidx.annotation.MainThread;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.argosapp.R;
+import com.example.argosapp.data.AnalysisCache;
 import com.example.argosapp.data.ApiClient;
-import com.example.argosapp.data.ApiService;
+import com.example.argosapp.data.AnalyzeClient;
+import com.example.argosapp.data.NetworkModule;
 import com.example.argosapp.data.ULDReport;
+import com.example.argosapp.data.WireFormat;
 import com.example.argosapp.data.YOLOAnalysisRequest;
 import com.example.argosapp.data.YoloDetection;
+import com.example.argosapp.history.HistoryPager;
+import com.example.argosapp.history.HistoryStore;
 import com.example.argosapp.model.DamageDetail;
 import com.example.argosapp.model.ScanHistoryItem;
 import com.example.argosapp.model.ScanResultUiModel;
+import com.example.argosapp.outbox.OutboxDrainer;
+import com.example.argosapp.outbox.OutboxEntry;
+import com.example.argosapp.outbox.OutboxStore;
+import com.example.argosapp.scan.BatchSession;
+import com.example.argosapp.scan.CaptureDecoder;
+import com.example.argosapp.scan.CaptureStore;
+import com.example.argosapp.scan.DetectionCache;
+import com.example.argosapp.scan.LiveFrameAnalyzer;
+import com.example.argosapp.scan.PerceptualHash;
+import com.example.argosapp.scan.ScanContext;
+import com.example.argosapp.scan.ScanMetrics;
+import com.example.argosapp.scan.ScanPipeline;
+import com.example.argosapp.scan.ScanTrace;
+import com.example.argosapp.scan.ThumbnailStore;
+import com.example.argosapp.yolo.DetectorInput;
+import com.example.argosapp.yolo.DetectorWarmer;
+import com.example.argosapp.yolo.RemoteDetector;
 import com.example.argosapp.yolo.YoloProcessor;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import retrofit2.Call;
+import retrofit2.Callback;
 import retrofit2.Response;
 
 public class MainViewModel extends AndroidViewModel {
 
+    private static final String TAG = "MainViewModel";
+
+    private static final int PIPELINE_QUEUE_CAPACITY = 4;
+    private static final int BATCH_SIZE = 8;
+    private static final int HISTORY_PAGE_SIZE = 50;
+    // Past this the scan is handed to the outbox so the inspector can move on to the next ULD
+    private static final long INTERACTIVE_ANALYZE_TIMEOUT_SECONDS = 15;
+    private static final String SEVERITY_PENDING = "pending";
+    // Retakes of the same ULD face within this window, and this many dHash bits apart, reuse the result
+    private static final int DETECTION_CACHE_SIZE = 32;
+    private static final long DETECTION_CACHE_WINDOW_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final int DETECTION_CACHE_MAX_DISTANCE = 6;
+    // Analyses of identical findings are reused while fresh, and served stale while revalidating
+    private static final int ANALYSIS_CACHE_SIZE = 128;
+    private static final long ANALYSIS_CACHE_FRESH_MS = TimeUnit.MINUTES.toMillis(30);
+    private static final long ANALYSIS_CACHE_MAX_AGE_MS = TimeUnit.HOURS.toMillis(24);
+    // Live preview runs the detector at most this often, and only when the scene moved this many bits
+    private static final long LIVE_MIN_INTERVAL_MS = 200;
+    private static final int LIVE_CHANGE_THRESHOLD = 3;
+    // Latency percentiles cover this many of the most recent scans
+    private static final int SCAN_TRACE_WINDOW = 200;
+    private static final String TRACE_EXPORT_DIR = "diagnostics";
+    // The hosted detector is pinged this often during a shift, which ends after the idle timeout
+    private static final long DETECTOR_KEEP_ALIVE_MS = TimeUnit.MINUTES.toMillis(4);
+    private static final long DETECTOR_WARM_WINDOW_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long SHIFT_IDLE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(30);
+    // Stored files younger than this may belong to a scan that has not reached history yet
+    private static final long STORED_FILE_GRACE_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final DetectorWarmer detectorWarmer;
     private final YoloProcessor yoloProcessor;
-    private final ApiService apiService;
-    private final ExecutorService executorService;
+    private final CaptureDecoder captureDecoder;
+    private final ThumbnailStore thumbnailStore;
+    private final CaptureStore captureStore;
+    @Nullable
+    private LiveFrameAnalyzer liveAnalyzer;
+    private final AnalysisCache analysisCache =
+            new AnalysisCache(ANALYSIS_CACHE_SIZE, ANALYSIS_CACHE_FRESH_MS, ANALYSIS_CACHE_MAX_AGE_MS);
+    private final ExecutorService revalidateExecutor =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "analysis-revalidate"));
+    private final DetectionCache detectionCache =
+            new DetectionCache(DETECTION_CACHE_SIZE, DETECTION_CACHE_WINDOW_MS, DETECTION_CACHE_MAX_DISTANCE);
+    private final AnalyzeClient analyzeClient;
+    private final ScanPipeline scanPipeline;
+    private final AtomicLong scanSequence = new AtomicLong();
+    private final ScanMetrics scanMetrics = new ScanMetrics(SCAN_TRACE_WINDOW);
+    private final HistoryStore historyStore;
+    private final HistoryPager historyPager;
+    private final OutboxStore outboxStore;
+    private final OutboxDrainer outboxDrainer;
+    // Serializes history reads and writes so a user switch never races an append
+    private final ExecutorService historyExecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "scan-history"));
 
     private final MutableLiveData<AppStatus> _status = new MutableLiveData<>(new AppStatus.Idle());
     public final LiveData<AppStatus> status = _status;
@@ -49,98 +124,199 @@ public class MainViewModel extends AndroidViewModel {
     private final MutableLiveData<ScanResultUiModel> _latestResult = new MutableLiveData<>();
     public final LiveData<ScanResultUiModel> latestResult = _latestResult;
 
-    private final MutableLiveData<List<ScanHistoryItem>> _history = new MutableLiveData<>(new ArrayList<>());
-    public final LiveData<List<ScanHistoryItem>> history = _history;
+    private final MutableLiveData<ScanPipeline.Snapshot> _pipelineMetrics = new MutableLiveData<>();
+    public final LiveData<ScanPipeline.Snapshot> pipelineMetrics = _pipelineMetrics;
+
+    private final MutableLiveData<ScanMetrics.Snapshot> _scanLatency = new MutableLiveData<>();
+    public final LiveData<ScanMetrics.Snapshot> scanLatency = _scanLatency;
+
+    private final MutableLiveData<String> _traceExportResult = new MutableLiveData<>();
+    public final LiveData<String> traceExportResult = _traceExportResult;
+
+    private final MutableLiveData<LiveFrameAnalyzer.Result> _liveDetections = new MutableLiveData<>();
+    public final LiveData<LiveFrameAnalyzer.Result> liveDetections = _liveDetections;
+
+    private final MutableLiveData<AnalysisCache.Stats> _analysisCacheStats = new MutableLiveData<>();
+    public final LiveData<AnalysisCache.Stats> analysisCacheStats = _analysisCacheStats;
+
+    private final MutableLiveData<Boolean> _batchMode = new MutableLiveData<>(false);
+    public final LiveData<Boolean> batchMode = _batchMode;
 
     private final MutableLiveData<String> userDisplayName;
     private final MutableLiveData<Uri> lastCapturedImage = new MutableLiveData<>();
-    private final SharedPreferences historyPrefs;
 
-    private static final String PREF_HISTORY = "argos_history";
-    private static final String KEY_HISTORY_PREFIX = "history_";
     private static final String DEFAULT_USER_KEY = "guest";
 
+    private volatile String currentUserKey = DEFAULT_USER_KEY;
     @Nullable
-    private Uri pendingImageUri;
-    private String latestYoloFindings = "";
-    private String pendingUldId = "ULD-PHOTO";
-    private String currentUserKey = DEFAULT_USER_KEY;
+    private volatile BatchSession batchSession;
 
     public MainViewModel(@NonNull Application application) {
         super(application);
-        yoloProcessor = new YoloProcessor();
-        apiService = ApiClient.getApiService();
-        executorService = Executors.newSingleThreadExecutor();
+        // The client is only built on the warmer's first ping
+        detectorWarmer = new DetectorWarmer(NetworkModule::detectorClient, RemoteDetector.BASE_URL,
+                this::mayUseRemoteDetector, DETECTOR_KEEP_ALIVE_MS, DETECTOR_WARM_WINDOW_MS, SHIFT_IDLE_TIMEOUT_MS);
+        yoloProcessor = new YoloProcessor(application, detectorWarmer);
+        captureDecoder = new CaptureDecoder(application.getContentResolver(), YoloProcessor.INPUT_SIZE);
+        thumbnailStore = new ThumbnailStore(application.getFilesDir());
+        captureStore = new CaptureStore(application.getFilesDir());
+        // Retrofit is built on the first request, not while the first screen is being created
+        analyzeClient = new AnalyzeClient(ApiClient::getApiService);
+        scanPipeline = createScanPipeline();
         String defaultName = application.getString(R.string.scan_default_user_name);
         userDisplayName = new MutableLiveData<>(defaultName);
-        historyPrefs = application.getSharedPreferences(PREF_HISTORY, Context.MODE_PRIVATE);
-        loadHistoryForCurrentUser();
+        historyStore = new HistoryStore(application);
+        historyPager = new HistoryPager(historyStore, historyExecutor, HISTORY_PAGE_SIZE);
+        historyExecutor.execute(historyStore::migrateLegacyPreferences);
+        historyPager.reset(currentUserKey);
+        outboxStore = new OutboxStore(application);
+        outboxDrainer = new OutboxDrainer(application, outboxStore,
+                this::sendQueuedAnalysis, new OutboxDrainer.Listener() {
+            @Override
+            public void onDelivered(@NonNull OutboxEntry entry, @NonNull ULDReport report) {
+                reconcileHistory(entry, report);
+            }
+
+            @Override
+            public void onRejected(@NonNull OutboxEntry entry, @NonNull String error) {
+                markHistoryRejected(entry, error);
+            }
+        });
+        outboxDrainer.start();
+        historyExecutor.execute(this::pruneStoredFiles);
     }
 
-    public void setPendingImageUri(@Nullable Uri uri) {
-        this.pendingImageUri = uri;
+    public void setLastCapturedImage(@Nullable Uri uri) {
         lastCapturedImage.postValue(uri);
     }
 
-    public void processImageAndUpload(Bitmap bitmap) {
-        executorService.execute(() -> {
-            try {
-                _status.postValue(new AppStatus.Processing("Detecting damage with local AI (YOLO)..."));
-                List<YoloDetection> detections = yoloProcessor.processImage(bitmap);
-
-                DetectionSummary detectionSummary = buildDetectionSummary(detections);
-
-                if (!detectionSummary.hasDetection) {
-                    _status.postValue(new AppStatus.Processing(
-                            getApplication().getString(R.string.scan_status_no_detection)
-                    ));
-                    detections = Collections.singletonList(
-                            new com.example.argosapp.data.YoloDetection("normal", 1.0f, Collections.emptyList())
-                    );
-                } else {
-                    _status.postValue(new AppStatus.Processing(
-                            getApplication().getString(
-                                    R.string.scan_status_uploading_with_detection,
-                                    detectionSummary.label,
-                                    detectionSummary.confidencePercent
-                            )
-                    ));
+    public void processCapturedImage(@NonNull Uri imageUri) {
+        processCapturedImage(imageUri, false);
+    }
+
+    // forceRescan skips the near-duplicate cache, e.g. when the inspector knows the last result was wrong
+    public void processCapturedImage(@NonNull Uri imageUri, boolean forceRescan) {
+        lastCapturedImage.postValue(imageUri);
+        detectorWarmer.markActivity();
+        long scanId = scanSequence.incrementAndGet();
+        ScanContext context = ScanContext.forCapture(
+                scanId, "ULD-PHOTO-" + System.currentTimeMillis(), imageUri, batchSession != null, forceRescan);
+        if (!scanPipeline.submit(ScanPipeline.Stage.DECODE, context)) {
+            _status.postValue(new AppStatus.Error(getApplication().getString(R.string.scan_error_pipeline_busy)));
+            return;
+        }
+        _status.postValue(new AppStatus.Processing("Detecting damage with local AI (YOLO)..."));
+    }
+
+    // Created on first use, so scans that never open live preview don't pay for its thread
+    @MainThread
+    @NonNull
+    public LiveFrameAnalyzer getLiveAnalyzer() {
+        if (liveAnalyzer == null) {
+            liveAnalyzer = new LiveFrameAnalyzer(yoloProcessor, captureStore, LIVE_MIN_INTERVAL_MS,
+                    LIVE_CHANGE_THRESHOLD, new LiveFrameAnalyzer.Listener() {
+                @Override
+                public void onFrameAnalyzed(@NonNull LiveFrameAnalyzer.Result result) {
+                    _liveDetections.postValue(result);
                 }
 
-                String yoloFindings = convertDetectionsToString(detections);
-                latestYoloFindings = yoloFindings;
-                pendingUldId = "ULD-PHOTO-" + System.currentTimeMillis();
+                @Override
+                public void onFrameCommitted(@NonNull DetectorInput input,
+                                             @Nullable List<YoloDetection> detections,
+                                             @Nullable Uri imageUri,
+                                             boolean forceRescan) {
+                    submitLiveCapture(input, detections, imageUri, forceRescan);
+                }
+            });
+        }
+        return liveAnalyzer;
+    }
 
-                YOLOAnalysisRequest request = new YOLOAnalysisRequest(
-                        pendingUldId,
-                        yoloFindings
-                );
+    /**
+     * Wakes the hosted detector ahead of a likely scan, e.g. when the scan screen shows or the camera
+     * opens, and starts or extends the shift that keeps it awake. Does nothing while scans are
+     * answered on-device.
+     */
+    public void warmUpDetector() {
+        detectorWarmer.warmUp();
+    }
 
-                callApi(request);
+    @NonNull
+    public DetectorWarmer getDetectorWarmer() {
+        return detectorWarmer;
+    }
 
-            } catch (Exception e) {
-                _status.postValue(new AppStatus.Error("Processing failed: " + e.getMessage()));
-            }
-        });
+    private boolean mayUseRemoteDetector() {
+        return yoloProcessor.mayUseRemote();
     }
 
-    public void simulateAndUpload(String uldId, String findings) {
-        executorService.execute(() -> {
-            try {
-                pendingUldId = uldId;
-                latestYoloFindings = findings;
-                pendingImageUri = null;
-                lastCapturedImage.postValue(null);
+    // Live boxes need the on-device model; without it live mode is a viewfinder that commits stills
+    public boolean isLiveDetectionAvailable() {
+        return yoloProcessor.isLocalAvailable();
+    }
 
-                YOLOAnalysisRequest request = new YOLOAnalysisRequest(pendingUldId, findings);
+    // Commits the frame currently in front of the camera as the scan's still
+    @MainThread
+    public void commitLiveFrame(boolean forceRescan) {
+        getLiveAnalyzer().requestCommit(forceRescan);
+        _status.postValue(new AppStatus.Processing("Detecting damage with local AI (YOLO)..."));
+    }
+
+    private void submitLiveCapture(@NonNull DetectorInput input,
+                                   @Nullable List<YoloDetection> detections,
+                                   @Nullable Uri imageUri,
+                                   boolean forceRescan) {
+        lastCapturedImage.postValue(imageUri);
+        detectorWarmer.markActivity();
+        ScanContext context = ScanContext.forCapture(scanSequence.incrementAndGet(),
+                "ULD-PHOTO-" + System.currentTimeMillis(), imageUri, batchSession != null, forceRescan)
+                .withDetectorInput(input);
+        if (detections != null) {
+            context = context.withLiveDetections(detections);
+        }
+        if (!scanPipeline.submit(ScanPipeline.Stage.DECODE, context)) {
+            input.recycle();
+            _status.postValue(new AppStatus.Error(getApplication().getString(R.string.scan_error_pipeline_busy)));
+        }
+    }
 
-                _status.postValue(new AppStatus.Processing("Simulating upload: '" + findings + "' ..."));
-                callApi(request);
+    public void startBatchSession() {
+        if (batchSession != null) {
+            return;
+        }
+        batchSession = new BatchSession(ApiClient.getApiService(), WireFormat.gson(), BATCH_SIZE, new BatchSession.Listener() {
+            @Override
+            public void onReport(@NonNull ScanContext context) {
+                scanPipeline.submitBlocking(ScanPipeline.Stage.PERSIST, context);
+            }
 
-            } catch (Exception e) {
-                _status.postValue(new AppStatus.Error("Simulation failed: " + e.getMessage()));
+            @Override
+            public void onFailed(@NonNull ScanContext context, @NonNull String error) {
+                queueForRetry(context);
             }
         });
+        _batchMode.postValue(true);
+    }
+
+    // Sends any partially filled batch; results keep streaming into history after the session ends
+    public void endBatchSession() {
+        BatchSession session = batchSession;
+        if (session == null) {
+            return;
+        }
+        batchSession = null;
+        session.close();
+        _batchMode.postValue(false);
+    }
+
+    public void simulateAndUpload(String uldId, String findings) {
+        lastCapturedImage.postValue(null);
+        ScanContext context = ScanContext.forFindings(scanSequence.incrementAndGet(), uldId, findings);
+        if (!scanPipeline.submit(ScanPipeline.Stage.ANALYZE, context)) {
+            _status.postValue(new AppStatus.Error(getApplication().getString(R.string.scan_error_pipeline_busy)));
+            return;
+        }
+        _status.postValue(new AppStatus.Processing("Simulating upload: '" + findings + "' ..."));
     }
 
     public void resetStatus() {
@@ -152,11 +328,12 @@ public class MainViewModel extends AndroidViewModel {
     }
 
     public void updateDisplayName(@Nullable String identifier) {
-        userDisplayName.postValue(deriveDisplayName(identifier));
+        userDisplayName.postValue(deriveDisplayName(identifier,
+                getApplication().getString(R.string.scan_default_user_name)));
         String newKey = sanitizeIdentifier(identifier);
         if (!newKey.equals(currentUserKey)) {
             currentUserKey = newKey;
-            loadHistoryForCurrentUser();
+            historyPager.reset(newKey);
         }
     }
 
@@ -164,19 +341,388 @@ public class MainViewModel extends AndroidViewModel {
         return lastCapturedImage;
     }
 
-    private void callApi(YOLOAnalysisRequest request) throws IOException {
-        Response<ULDReport> response = apiService.analyzeDetections(request).execute();
+    @NonNull
+    public HistoryPager getHistoryPager() {
+        return historyPager;
+    }
+
+    private ScanPipeline createScanPipeline() {
+        Map<ScanPipeline.Stage, ScanPipeline.StageHandler> handlers = new EnumMap<>(ScanPipeline.Stage.class);
+        handlers.put(ScanPipeline.Stage.DECODE, this::decodeStage);
+        handlers.put(ScanPipeline.Stage.DETECT, this::detectStage);
+        handlers.put(ScanPipeline.Stage.ANALYZE, this::analyzeStage);
+        handlers.put(ScanPipeline.Stage.PERSIST, this::persistStage);
+        return new ScanPipeline(handlers, PIPELINE_QUEUE_CAPACITY, new ScanPipeline.Listener() {
+            @Override
+            public void onStageFailed(@NonNull ScanContext context, @NonNull ScanPipeline.Stage stage, @NonNull Exception error) {
+                context.getTrace().setOutcome(ScanTrace.Outcome.FAILED);
+                String prefix = stage == ScanPipeline.Stage.ANALYZE ? "Upload failed: " : "Processing failed: ";
+                _status.postValue(new AppStatus.Error(prefix + error.getMessage()));
+            }
+
+            @Override
+            public void onMetricsChanged(@NonNull ScanPipeline.Snapshot snapshot) {
+                _pipelineMetrics.postValue(snapshot);
+            }
+
+            @Override
+            public void onScanEnded(@NonNull ScanContext context, @NonNull ScanPipeline.Stage stage, boolean completed) {
+                // Completed scans are recorded once their history row is written
+                if (!completed) {
+                    recordTrace(context.getTrace(), ScanTrace.Outcome.DROPPED);
+                }
+            }
+        });
+    }
+
+    private void recordTrace(@NonNull ScanTrace trace, @NonNull ScanTrace.Outcome outcome) {
+        if (scanMetrics.record(trace, outcome)) {
+            _scanLatency.postValue(scanMetrics.snapshot());
+        }
+    }
+
+    // Writes the recent scan traces as JSON Lines to the app's external files dir, readable over adb
+    public void exportScanTraces() {
+        new Thread(() -> {
+            File dir = getApplication().getExternalFilesDir(TRACE_EXPORT_DIR);
+            if (dir == null) {
+                dir = new File(getApplication().getFilesDir(), TRACE_EXPORT_DIR);
+            }
+            File file = new File(dir, "scan_traces_" + System.currentTimeMillis() + ".jsonl");
+            try {
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    throw new IOException("Cannot create " + dir);
+                }
+                int count = scanMetrics.exportTo(file);
+                _traceExportResult.postValue(getApplication().getString(
+                        R.string.diagnostics_export_done, count, file.getAbsolutePath()));
+            } catch (IOException e) {
+                Log.w(TAG, "Exporting scan traces failed", e);
+                _traceExportResult.postValue(getApplication().getString(
+                        R.string.diagnostics_export_failed, e.getMessage()));
+            }
+        }, "scan-trace-export").start();
+    }
+
+    @Nullable
+    private ScanContext decodeStage(@NonNull ScanContext context) throws IOException {
+        // Live captures arrive with the frame already letterboxed in memory
+        DetectorInput input = context.getDetectorInput();
+        if (input == null) {
+            Uri imageUri = context.getImageUri();
+            if (imageUri == null) {
+                return context;
+            }
+            input = captureDecoder.decode(imageUri);
+            if (input == null) {
+                _status.postValue(new AppStatus.Error(getApplication().getString(R.string.scan_error_read_photo)));
+                return null;
+            }
+        }
+        long hash = PerceptualHash.compute(input);
+        ScanContext decoded = context.withThumbnail(thumbnailStore.write(context.getScanId(), input))
+                .withPerceptualHash(hash);
+        if (!context.isForceRescan()) {
+            DetectionCache.Entry cached = detectionCache.find(hash, System.currentTimeMillis());
+            if (cached != null) {
+                input.recycle();
+                _status.postValue(new AppStatus.Processing(getApplication().getString(R.string.scan_status_cached)));
+                ScanContext reused = decoded.withCachedResult(cached);
+                recordCachedReport(reused.getReport());
+                return reused;
+            }
+        }
+        return decoded.withDetectorInput(input);
+    }
+
+    @NonNull
+    private ScanContext detectStage(@NonNull ScanContext context) {
+        if (context.isFromCache()) {
+            return context;
+        }
+        DetectorInput input = context.getDetectorInput();
+        List<YoloDetection> detections = context.hasLiveDetections()
+                ? context.getDetections()
+                : yoloProcessor.processImage(input, context.getTrace());
+        if (input != null) {
+            input.recycle();
+        }
+
+        DetectionSummary detectionSummary = buildDetectionSummary(detections);
+
+        if (!detectionSummary.hasDetection) {
+            _status.postValue(new AppStatus.Processing(
+                    getApplication().getString(R.string.scan_status_no_detection)
+            ));
+            detections = Collections.singletonList(
+                    new YoloDetection(YoloProcessor.CLASS_NORMAL, "normal", 1.0f, Collections.emptyList())
+            );
+        } else {
+            _status.postValue(new AppStatus.Processing(
+                    getApplication().getString(
+                            R.string.scan_status_uploading_with_detection,
+                            detectionSummary.label,
+                            detectionSummary.confidencePercent
+                    )
+            ));
+        }
+
+        return context.withDetections(detections, convertDetectionsToString(detections));
+    }
+
+    @Nullable
+    private ScanContext analyzeStage(@NonNull ScanContext context) throws IOException {
+        if (context.isFromCache()) {
+            return context;
+        }
+        if (!context.isForceRescan()) {
+            ScanContext cached = answerFromAnalysisCache(context);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        if (context.isBatched()) {
+            BatchSession session = batchSession;
+            if (session != null) {
+                session.add(context);
+                context.getTrace().setOutcome(ScanTrace.Outcome.BATCHED);
+                _status.postValue(new AppStatus.Processing(getApplication().getString(
+                        R.string.scan_status_batch_queued, session.getSubmittedCount())));
+                return null;
+            }
+            // The session ended while this scan was being detected; analyze it on its own
+        }
+        Response<ULDReport> response;
+        long callStart = System.nanoTime();
+        try {
+            response = analyzeClient.executeStreaming(toAnalysisRequest(context), INTERACTIVE_ANALYZE_TIMEOUT_SECONDS,
+                    partial -> _status.postValue(new AppStatus.Partial(buildPartialResult(context, partial))));
+        } catch (IOException e) {
+            Log.w(TAG, "Analyze failed for " + context.getUldId() + ", queueing for retry", e);
+            queueForRetry(context);
+            return null;
+        }
+        context.getTrace().addExchange(response.raw(), callStart, System.nanoTime());
 
         if (response.isSuccessful() && response.body() != null) {
-            ULDReport report = response.body();
-            handleSuccessfulReport(report);
-            _status.postValue(new AppStatus.Success(report));
+            return context.withReport(response.body());
+        }
+        if (isRetryable(response.code())) {
+            queueForRetry(context);
+            return null;
+        }
+        context.getTrace().setOutcome(ScanTrace.Outcome.FAILED);
+        _status.postValue(new AppStatus.Error("API Error: " + response.code() + " " + response.message()));
+        return null;
+    }
+
+    @Nullable
+    private ScanContext answerFromAnalysisCache(@NonNull ScanContext context) {
+        String signature = AnalysisCache.signatureOf(context.getDetections(), context.getYoloFindings());
+        AnalysisCache.Hit hit = analysisCache.lookup(signature, System.currentTimeMillis());
+        _analysisCacheStats.postValue(analysisCache.stats());
+        if (hit == null) {
+            return null;
+        }
+        ULDReport report = hit.getReport().withUldId(context.getUldId());
+        if (hit.isStale() && analysisCache.beginRevalidation(signature)) {
+            // The refreshing analyze call also records this ULD on the dashboard
+            revalidate(signature, context, report);
         } else {
-            _status.postValue(new AppStatus.Error("API Error: " + response.code() + " " + response.message()));
+            recordCachedReport(report);
         }
+        return context.withCachedReport(report);
     }
 
-    private void handleSuccessfulReport(ULDReport report) {
+    private void revalidate(@NonNull String signature, @NonNull ScanContext context, @NonNull ULDReport served) {
+        revalidateExecutor.execute(() -> {
+            try {
+                Response<ULDReport> response = analyzeClient.execute(toAnalysisRequest(context), 0);
+                if (response.isSuccessful() && response.body() != null) {
+                    analysisCache.put(signature, response.body(), System.currentTimeMillis());
+                    return;
+                }
+                Log.w(TAG, "Revalidation of " + signature + " failed: HTTP " + response.code());
+            } catch (IOException e) {
+                Log.w(TAG, "Revalidation of " + signature + " failed", e);
+            } finally {
+                analysisCache.endRevalidation(signature);
+            }
+            recordCachedReport(served);
+        });
+    }
+
+    // Structured detections when the scan has them; simulated findings only exist as text
+    @NonNull
+    private static YOLOAnalysisRequest toAnalysisRequest(@NonNull ScanContext context) {
+        if (context.getDetections().isEmpty()) {
+            return new YOLOAnalysisRequest(context.getUldId(), context.getYoloFindings());
+        }
+        return YOLOAnalysisRequest.fromDetections(context.getUldId(), context.getDetections());
+    }
+
+    // Cache hits never reach /api/ai/analyze, so the dashboard is told about the ULD separately
+    private void recordCachedReport(@Nullable ULDReport report) {
+        if (report == null) {
+            return;
+        }
+        ApiClient.getApiService().recordReport(report).enqueue(new Callback<ULDReport>() {
+            @Override
+            public void onResponse(@NonNull Call<ULDReport> call, @NonNull Response<ULDReport> response) {
+                if (!response.isSuccessful()) {
+                    Log.w(TAG, "Recording cached report failed: HTTP " + response.code());
+                }
+            }
+
+            @Override
+            public void onFailure(@NonNull Call<ULDReport> call, @NonNull Throwable t) {
+                Log.w(TAG, "Recording cached report failed", t);
+            }
+        });
+    }
+
+    // Runs on the outbox thread; no interactive deadline since nobody is waiting on it. Replays the
+    // same request the interactive attempt sent, so the backend's rules see the structured detections.
+    @NonNull
+    private ULDReport sendQueuedAnalysis(@NonNull OutboxEntry entry) throws IOException {
+        YOLOAnalysisRequest request = entry.getDetections().isEmpty()
+                ? new YOLOAnalysisRequest(entry.getUldId(), entry.getYoloFindings())
+                : YOLOAnalysisRequest.fromDetections(entry.getUldId(), entry.getDetections());
+        Response<ULDReport> response = analyzeClient.execute(request, 0);
+        if (response.isSuccessful() && response.body() != null) {
+            return response.body();
+        }
+        String error = "API Error: " + response.code() + " " + response.message();
+        if (isRetryable(response.code())) {
+            throw new IOException(error);
+        }
+        throw new OutboxDrainer.RejectedException(error);
+    }
+
+    private static boolean isRetryable(int code) {
+        return code == 408 || code == 429 || code >= 500;
+    }
+
+    /**
+     * Records the scan as a pending history entry and hands its request to the outbox. The entry is
+     * filled in by {@link #reconcileHistory} once a background attempt succeeds.
+     */
+    private void queueForRetry(@NonNull ScanContext context) {
+        context.getTrace().setOutcome(ScanTrace.Outcome.QUEUED);
+        String userKey = currentUserKey;
+        ScanHistoryItem pending = new ScanHistoryItem(
+                ScanHistoryItem.NO_ID,
+                context.getUldId(),
+                SEVERITY_PENDING,
+                getApplication().getString(R.string.history_pending_label),
+                context.getYoloFindings(),
+                getApplication().getString(R.string.history_pending_title),
+                getApplication().getString(R.string.history_pending_suggestion),
+                context.getImageUri() != null ? context.getImageUri().toString() : "",
+                context.getThumbnailUri() != null ? context.getThumbnailUri().toString() : "",
+                System.currentTimeMillis()
+        );
+        historyExecutor.execute(() -> {
+            ScanHistoryItem stored = pending.withId(historyStore.insert(userKey, pending));
+            historyPager.prepend(userKey, stored);
+            outboxDrainer.enqueue(userKey, stored.getId(), context.getUldId(), context.getYoloFindings(),
+                    context.getDetections(), stored.getImageUri());
+        });
+        _status.postValue(new AppStatus.Queued(
+                getApplication().getString(R.string.scan_status_queued, context.getUldId())));
+    }
+
+    // Runs once per process on the history thread, after the legacy migration has added its rows
+    private void pruneStoredFiles() {
+        Set<String> referenced = historyStore.loadFileUris();
+        referenced.addAll(outboxStore.loadImageUris());
+        long olderThan = System.currentTimeMillis() - STORED_FILE_GRACE_MS;
+        int captures = captureStore.deleteUnreferenced(referenced, olderThan);
+        int thumbnails = thumbnailStore.deleteUnreferenced(referenced, olderThan);
+        if (captures > 0 || thumbnails > 0) {
+            Log.i(TAG, "Pruned " + captures + " captures and " + thumbnails + " thumbnails nothing references");
+        }
+    }
+
+    private void reconcileHistory(@NonNull OutboxEntry entry, @NonNull ULDReport report) {
+        Uri imageUri = entry.getImageUri().isEmpty() ? null : Uri.parse(entry.getImageUri());
+        ScanResultUiModel result = buildResult(
+                report.getUld_id() != null ? report.getUld_id() : entry.getUldId(),
+                entry.getYoloFindings(), imageUri, report, entry.getDetections());
+        historyExecutor.execute(() -> {
+            ScanHistoryItem previous = historyStore.loadById(entry.getHistoryId());
+            if (previous == null) {
+                return;
+            }
+            // Keep the capture time so the entry stays where the inspector expects it in the list
+            ScanHistoryItem updated = toHistoryItem(result, previous.getThumbnailUri(), previous.getTimestamp())
+                    .withId(previous.getId());
+            historyStore.update(entry.getUserKey(), previous.getId(), updated);
+            historyPager.replace(entry.getUserKey(), updated);
+        });
+    }
+
+    private void markHistoryRejected(@NonNull OutboxEntry entry, @NonNull String error) {
+        historyExecutor.execute(() -> {
+            ScanHistoryItem previous = historyStore.loadById(entry.getHistoryId());
+            if (previous == null) {
+                return;
+            }
+            ScanHistoryItem updated = new ScanHistoryItem(
+                    previous.getId(),
+                    previous.getUldId(),
+                    "unknown",
+                    getApplication().getString(R.string.history_rejected_label),
+                    error,
+                    previous.getDamageTitle(),
+                    getApplication().getString(R.string.history_rejected_suggestion),
+                    previous.getImageUri(),
+                    previous.getThumbnailUri(),
+                    previous.getTimestamp()
+            );
+            historyStore.update(entry.getUserKey(), previous.getId(), updated);
+            historyPager.replace(entry.getUserKey(), updated);
+        });
+    }
+
+    @Nullable
+    private ScanContext persistStage(@NonNull ScanContext context) {
+        ULDReport report = context.getReport();
+        if (report == null) {
+            return null;
+        }
+        if (!context.isFromCache() && !context.isReportFromCache()) {
+            analysisCache.put(AnalysisCache.signatureOf(context.getDetections(), context.getYoloFindings()),
+                    report, System.currentTimeMillis());
+        }
+        if (context.hasPerceptualHash() && !context.isFromCache()) {
+            detectionCache.put(context.getPerceptualHash(), context.getDetections(), context.getYoloFindings(),
+                    report, System.currentTimeMillis());
+        }
+        handleSuccessfulReport(context, report);
+        if (context.isBatched()) {
+            // Stay on the scan screen during a batch; results land in history as they complete
+            _status.postValue(new AppStatus.Processing(getApplication().getString(
+                    R.string.scan_status_batch_result, resolveUldId(context, report))));
+        } else {
+            _status.postValue(new AppStatus.Success(report));
+        }
+        return context;
+    }
+
+    private void handleSuccessfulReport(@NonNull ScanContext context, @NonNull ULDReport report) {
+        ScanResultUiModel result = buildResult(resolveUldId(context, report), context.getYoloFindings(),
+                context.getImageUri(), report, context.getDetections());
+        _latestResult.postValue(result);
+        appendHistory(result, context.getThumbnailUri(), context.getTrace());
+    }
+
+    @NonNull
+    private ScanResultUiModel buildResult(@NonNull String resolvedUldId,
+                                          @NonNull String yoloFindings,
+                                          @Nullable Uri imageUri,
+                                          @NonNull ULDReport report,
+                                          @NonNull List<YoloDetection> detections) {
         String normalizedStatus = normalizeStatus(report.getStatus());
         SeverityMeta meta = mapSeverity(normalizedStatus);
 
@@ -186,7 +732,6 @@ public class MainViewModel extends AndroidViewModel {
         String suggestion = report.getMaintenance_suggestion() != null
                 ? report.getMaintenance_suggestion()
                 : meta.defaultSuggestion;
-        String resolvedUldId = report.getUld_id() != null ? report.getUld_id() : pendingUldId;
 
         List<DamageDetail> details = new ArrayList<>();
         details.add(new DamageDetail(
@@ -195,34 +740,99 @@ public class MainViewModel extends AndroidViewModel {
                 meta.label,
                 suggestion
         ));
+        // One entry per box, so every detection on the overlay is also listed with its confidence
+        for (YoloDetection detection : detections) {
+            if (detection.getBox() == null || detection.getBox().size() != 4) {
+                continue;
+            }
+            details.add(new DamageDetail(
+                    detection.getClassName() != null ? detection.getClassName() : "",
+                    severityKeyForClass(detection.getClassId()),
+                    getApplication().getString(R.string.scan_result_detection_confidence,
+                            Math.round(detection.getConfidence() * 100f)),
+                    ""
+            ));
+        }
 
-        ScanResultUiModel result = new ScanResultUiModel(
+        return new ScanResultUiModel(
                 resolvedUldId,
                 normalizedStatus,
                 meta.label,
                 meta.description,
                 primaryDamage,
                 suggestion,
-                latestYoloFindings,
-                pendingImageUri,
+                yoloFindings,
+                imageUri,
                 System.currentTimeMillis(),
-                Collections.unmodifiableList(details)
+                Collections.unmodifiableList(details),
+                detections
         );
+    }
 
-        _latestResult.postValue(result);
-        appendHistory(result);
+    @NonNull
+    private static String severityKeyForClass(int classId) {
+        switch (classId) {
+            case YoloProcessor.CLASS_NORMAL:
+                return "green";
+            case YoloProcessor.CLASS_SQUASH:
+                return "yellow";
+            case YoloProcessor.CLASS_BREACH:
+                return "red";
+            default:
+                return "unknown";
+        }
+    }
 
-        // reset the pending image reference once we've consumed it
-        pendingImageUri = null;
+    // What the scan screen can show once the verdict has streamed in; the suggestion follows with the report
+    @NonNull
+    private ScanResultUiModel buildPartialResult(@NonNull ScanContext context, @NonNull ULDReport partial) {
+        String normalizedStatus = normalizeStatus(partial.getStatus());
+        SeverityMeta meta = mapSeverity(normalizedStatus);
+        String primaryDamage = partial.getDamage_category() != null
+                ? partial.getDamage_category()
+                : meta.defaultDamageLabel;
+        return new ScanResultUiModel(
+                resolveUldId(context, partial),
+                normalizedStatus,
+                meta.label,
+                meta.description,
+                primaryDamage,
+                "",
+                context.getYoloFindings(),
+                context.getImageUri(),
+                System.currentTimeMillis(),
+                Collections.emptyList(),
+                context.getDetections()
+        );
     }
 
-    private void appendHistory(ScanResultUiModel result) {
-        List<ScanHistoryItem> current = _history.getValue();
-        if (current == null) {
-            current = new ArrayList<>();
-        }
-        List<ScanHistoryItem> updated = new ArrayList<>(current.size() + 1);
-        updated.add(new ScanHistoryItem(
+    private String resolveUldId(@NonNull ScanContext context, @NonNull ULDReport report) {
+        return report.getUld_id() != null ? report.getUld_id() : context.getUldId();
+    }
+
+    private void appendHistory(ScanResultUiModel result, @Nullable Uri thumbnailUri, @NonNull ScanTrace trace) {
+        String userKey = currentUserKey;
+        ScanHistoryItem item = toHistoryItem(result, thumbnailUri != null ? thumbnailUri.toString() : "",
+                result.getTimestamp());
+        historyExecutor.execute(() -> {
+            trace.begin(ScanTrace.Stage.HISTORY_WRITE);
+            long id;
+            try {
+                id = historyStore.insert(userKey, item);
+            } finally {
+                trace.end(ScanTrace.Stage.HISTORY_WRITE);
+            }
+            historyPager.prepend(userKey, item.withId(id));
+            recordTrace(trace, ScanTrace.Outcome.COMPLETED);
+        });
+    }
+
+    @NonNull
+    private static ScanHistoryItem toHistoryItem(@NonNull ScanResultUiModel result,
+                                                 @NonNull String thumbnailUri,
+                                                 long timestamp) {
+        return new ScanHistoryItem(
+                ScanHistoryItem.NO_ID,
                 result.getUldId(),
                 result.getSeverityKey(),
                 result.getSeverityLabel(),
@@ -230,11 +840,9 @@ public class MainViewModel extends AndroidViewModel {
                 result.getPrimaryDamageTitle(),
                 result.getPrimarySuggestion(),
                 result.getImageUri() != null ? result.getImageUri().toString() : "",
-                result.getTimestamp()
-        ));
-        updated.addAll(current);
-        _history.postValue(Collections.unmodifiableList(updated));
-        persistHistory(updated);
+                thumbnailUri,
+                timestamp
+        );
     }
 
     private String normalizeStatus(@Nullable String status) {
@@ -257,22 +865,30 @@ public class MainViewModel extends AndroidViewModel {
         }
     }
 
-    private String convertDetectionsToString(List<YoloDetection> detections) {
+    // Display and history text only; the backend receives the structured detections. Static and
+    // package-private, like the identifier helpers below, so the microbenchmarks can call it
+    @VisibleForTesting
+    static String convertDetectionsToString(List<YoloDetection> detections) {
         if (detections == null || detections.isEmpty()) {
             return "no damage";
         }
-        StringBuilder sb = new StringBuilder();
+        StringBuilder sb = new StringBuilder(32 + detections.size() * 32);
         sb.append("Found ").append(detections.size()).append(" potential issues: ");
         for (YoloDetection detection : detections) {
+            int hundredths = Math.round(detection.getConfidence() * 100f);
             sb.append(detection.getClassName())
                     .append(" (confidence: ")
-                    .append(String.format(Locale.US, "%.2f", detection.getConfidence()))
+                    .append(hundredths / 100)
+                    .append('.')
+                    .append(hundredths % 100 < 10 ? "0" : "")
+                    .append(hundredths % 100)
                     .append("); ");
         }
         return sb.toString();
     }
 
-    private String sanitizeIdentifier(@Nullable String identifier) {
+    @VisibleForTesting
+    static String sanitizeIdentifier(@Nullable String identifier) {
         if (identifier == null) {
             return DEFAULT_USER_KEY;
         }
@@ -284,61 +900,8 @@ public class MainViewModel extends AndroidViewModel {
         return sanitized.isEmpty() ? DEFAULT_USER_KEY : sanitized;
     }
 
-    private String buildHistoryKey() {
-        return KEY_HISTORY_PREFIX + currentUserKey;
-    }
-
-    private void loadHistoryForCurrentUser() {
-        String raw = historyPrefs.getString(buildHistoryKey(), null);
-        if (raw == null || raw.isEmpty()) {
-            _history.postValue(Collections.unmodifiableList(new ArrayList<>()));
-            return;
-        }
-
-        try {
-            JSONArray array = new JSONArray(raw);
-            List<ScanHistoryItem> loaded = new ArrayList<>(array.length());
-            for (int i = 0; i < array.length(); i++) {
-                JSONObject obj = array.getJSONObject(i);
-                loaded.add(new ScanHistoryItem(
-                        obj.optString("uldId", ""),
-                        obj.optString("severityKey", "unknown"),
-                        obj.optString("severityLabel", ""),
-                        obj.optString("summary", ""),
-                        obj.optString("damageTitle", ""),
-                        obj.optString("suggestion", ""),
-                        obj.optString("imageUri", ""),
-                        obj.optLong("timestamp", 0L)
-                ));
-            }
-            _history.postValue(Collections.unmodifiableList(loaded));
-        } catch (JSONException e) {
-            _history.postValue(Collections.unmodifiableList(new ArrayList<>()));
-        }
-    }
-
-    private void persistHistory(List<ScanHistoryItem> historyList) {
-        JSONArray array = new JSONArray();
-        for (ScanHistoryItem item : historyList) {
-            JSONObject obj = new JSONObject();
-            try {
-                obj.put("uldId", item.getUldId());
-                obj.put("severityKey", item.getSeverityKey());
-                obj.put("severityLabel", item.getSeverityLabel());
-                obj.put("summary", item.getSummary());
-                obj.put("damageTitle", item.getDamageTitle());
-                obj.put("suggestion", item.getSuggestion());
-                obj.put("imageUri", item.getImageUri());
-                obj.put("timestamp", item.getTimestamp());
-                array.put(obj);
-            } catch (JSONException ignored) {
-            }
-        }
-        historyPrefs.edit().putString(buildHistoryKey(), array.toString()).apply();
-    }
-
-    private String deriveDisplayName(@Nullable String identifier) {
-        String fallback = getApplication().getString(R.string.scan_default_user_name);
+    @VisibleForTesting
+    static String deriveDisplayName(@Nullable String identifier, @NonNull String fallback) {
         if (identifier == null) {
             return fallback;
         }
@@ -375,14 +938,30 @@ public class MainViewModel extends AndroidViewModel {
     @Override
     protected void onCleared() {
         super.onCleared();
-        executorService.shutdown();
+        endBatchSession();
+        scanPipeline.shutdown();
+        outboxDrainer.shutdown();
+        revalidateExecutor.shutdown();
+        if (liveAnalyzer != null) {
+            liveAnalyzer.shutdown();
+        }
+        // Lets queued history inserts finish
+        historyExecutor.shutdown();
+        detectorWarmer.shutdown();
+        yoloProcessor.close();
     }
 
     private DetectionSummary buildDetectionSummary(@Nullable List<YoloDetection> detections) {
         if (detections == null || detections.isEmpty()) {
             return new DetectionSummary(false, "", 0);
         }
+        // Headline is the highest-scored detection; PostProcessor sorts, but this does not rely on it
         YoloDetection detection = detections.get(0);
+        for (int i = 1, size = detections.size(); i < size; i++) {
+            if (detections.get(i).getConfidence() > detection.getConfidence()) {
+                detection = detections.get(i);
+            }
+        }
         int confidencePercent = Math.round(Math.max(0f, Math.min(1f, detection.getConfidence())) * 100f);
         return new DetectionSummary(true, formatDetectionLabel(detection.getClassName()), confidencePercent);
     }
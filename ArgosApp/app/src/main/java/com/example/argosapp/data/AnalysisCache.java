@@ -0,0 +1,154 @@
+package com.example.argosapp.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Client-side cache of `/api/ai/analyze` outcomes keyed by a canonical detection signature, i.e. the
+ * sorted detected classes with their confidences bucketed. Entries are fresh for {@code freshMillis},
+ * may then be served stale (and revalidated in the background) until {@code maxAgeMillis}, and the
+ * least recently used entry is evicted beyond {@code maxEntries}.
+ */
+public final class AnalysisCache {
+
+    // Confidence bucket width; detections that differ less than this map to the same signature
+    static final float CONFIDENCE_BUCKET = 0.2f;
+
+    public static final class Hit {
+        private final ULDReport report;
+        private final boolean stale;
+
+        Hit(@NonNull ULDReport report, boolean stale) {
+            this.report = report;
+            this.stale = stale;
+        }
+
+        @NonNull
+        public ULDReport getReport() {
+            return report;
+        }
+
+        public boolean isStale() {
+            return stale;
+        }
+    }
+
+    public static final class Stats {
+        public final long hits;
+        public final long staleHits;
+        public final long misses;
+        public final int size;
+
+        Stats(long hits, long staleHits, long misses, int size) {
+            this.hits = hits;
+            this.staleHits = staleHits;
+            this.misses = misses;
+            this.size = size;
+        }
+
+        // Share of lookups answered without waiting for the backend, stale hits included
+        public float getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0f : (float) hits / lookups;
+        }
+    }
+
+    private static final class Entry {
+        final ULDReport report;
+        final long storedAt;
+
+        Entry(ULDReport report, long storedAt) {
+            this.report = report;
+            this.storedAt = storedAt;
+        }
+    }
+
+    private final int maxEntries;
+    private final long freshMillis;
+    private final long maxAgeMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    private final Set<String> revalidating = new HashSet<>();
+    private long hits;
+    private long staleHits;
+    private long misses;
+
+    public AnalysisCache(int maxEntries, long freshMillis, long maxAgeMillis) {
+        this.maxEntries = maxEntries;
+        this.freshMillis = freshMillis;
+        this.maxAgeMillis = maxAgeMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > AnalysisCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Canonical key for a scan's findings. Detections are reduced to "class@bucket" and sorted, so
+     * detection order and small confidence jitter do not matter; scans without structured detections
+     * (e.g. simulated findings) fall back to their normalized text.
+     */
+    @NonNull
+    public static String signatureOf(@NonNull List<YoloDetection> detections, @NonNull String yoloFindings) {
+        if (detections.isEmpty()) {
+            return "text:" + yoloFindings.trim().toLowerCase(Locale.US).replaceAll("\\s+", " ");
+        }
+        List<String> parts = new ArrayList<>(detections.size());
+        for (YoloDetection detection : detections) {
+            String label = detection.getClassName() != null
+                    ? detection.getClassName().trim().toLowerCase(Locale.US)
+                    : "";
+            int bucket = (int) Math.floor(Math.min(detection.getConfidence(), 0.999f) / CONFIDENCE_BUCKET);
+            parts.add(label + "@" + bucket);
+        }
+        Collections.sort(parts);
+        return "det:" + String.join(",", parts);
+    }
+
+    @Nullable
+    public synchronized Hit lookup(@NonNull String signature, long now) {
+        Entry entry = entries.get(signature);
+        if (entry == null || now - entry.storedAt > maxAgeMillis) {
+            if (entry != null) {
+                entries.remove(signature);
+            }
+            misses++;
+            return null;
+        }
+        hits++;
+        boolean stale = now - entry.storedAt > freshMillis;
+        if (stale) {
+            staleHits++;
+        }
+        return new Hit(entry.report, stale);
+    }
+
+    public synchronized void put(@NonNull String signature, @NonNull ULDReport report, long now) {
+        entries.put(signature, new Entry(report, now));
+        revalidating.remove(signature);
+    }
+
+    // Returns true if the caller should refresh this signature; false while a refresh is already running
+    public synchronized boolean beginRevalidation(@NonNull String signature) {
+        return revalidating.add(signature);
+    }
+
+    public synchronized void endRevalidation(@NonNull String signature) {
+        revalidating.remove(signature);
+    }
+
+    @NonNull
+    public synchronized Stats stats() {
+        return new Stats(hits, staleHits, misses, entries.size());
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.argosapp.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Call;
+import retrofit2.Response;
+
+/**
+ * Sends analyze requests in the most compact form the backend accepts. Requests with structured
+ * detections go out as CBOR until the server answers 415 Unsupported Media Type once; after that
+ * this client sticks to JSON for the rest of the process. Likewise, streamed analysis falls back to
+ * the plain endpoint for good once the backend turns out not to have the streaming one.
+ *
+ * Every response keeps the raw OkHttp response, with the request's {@code X-Request-ID} and the
+ * backend's {@link ServerTiming}, so callers can correlate it with the server side.
+ */
+public final class AnalyzeClient {
+
+    private static final String TAG = "AnalyzeClient";
+    private static final int HTTP_NOT_FOUND = 404;
+    private static final int HTTP_METHOD_NOT_ALLOWED = 405;
+    private static final int HTTP_UNSUPPORTED_MEDIA_TYPE = 415;
+    private static final int HTTP_INTERNAL_ERROR = 500;
+    private static final MediaType MEDIA_TYPE_TEXT = MediaType.parse("text/plain; charset=utf-8");
+
+    // Receives the verdict (status and damage category) before the complete report is available
+    public interface PartialListener {
+        void onPartial(@NonNull ULDReport partial);
+    }
+
+    // Resolved on each call so building Retrofit waits until the first request, off the main thread
+    private final Supplier<ApiService> apiService;
+    private volatile boolean compactEncodingSupported = true;
+    private volatile boolean streamingSupported = true;
+
+    public AnalyzeClient(@NonNull Supplier<ApiService> apiService) {
+        this.apiService = apiService;
+    }
+
+    // timeoutSeconds bounds the whole call; 0 leaves only the client's own timeouts in place
+    @NonNull
+    public Response<ULDReport> execute(@NonNull YOLOAnalysisRequest request, long timeoutSeconds) throws IOException {
+        ApiService service = apiService.get();
+        return send(request, timeoutSeconds, service::analyzeDetectionsEncoded, service::analyzeDetections);
+    }
+
+    /**
+     * Like {@link #execute} but reads the streamed endpoint, handing the verdict to {@code listener}
+     * as soon as the backend has it. Errors reported inside the stream come back as an unsuccessful
+     * response with the status the backend put on the error line. The Server-Timing sent with the
+     * headers predates the analysis, so it is replaced by the one on the stream's last line.
+     */
+    @NonNull
+    public Response<ULDReport> executeStreaming(@NonNull YOLOAnalysisRequest request,
+                                                long timeoutSeconds,
+                                                @NonNull PartialListener listener) throws IOException {
+        if (!streamingSupported) {
+            return execute(request, timeoutSeconds);
+        }
+        ApiService service = apiService.get();
+        Response<ResponseBody> response = send(request, timeoutSeconds,
+                service::analyzeDetectionsStreamEncoded, service::analyzeDetectionsStream);
+        if (response.code() == HTTP_NOT_FOUND || response.code() == HTTP_METHOD_NOT_ALLOWED) {
+            Log.i(TAG, "Backend has no streaming analyze endpoint, falling back");
+            streamingSupported = false;
+            return execute(request, timeoutSeconds);
+        }
+        if (!response.isSuccessful() || response.body() == null) {
+            return Response.error(response.errorBody() != null
+                    ? response.errorBody()
+                    : ResponseBody.create(MEDIA_TYPE_TEXT, ""), response.raw());
+        }
+        try (ResponseBody body = response.body()) {
+            BufferedSource source = body.source();
+            String line;
+            while ((line = source.readUtf8Line()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                AnalyzeStreamEvent event = WireFormat.gson().fromJson(line, AnalyzeStreamEvent.class);
+                if (event == null || event.getType() == null) {
+                    continue;
+                }
+                switch (event.getType()) {
+                    case AnalyzeStreamEvent.TYPE_PARTIAL:
+                        if (event.getReport() != null) {
+                            listener.onPartial(event.getReport());
+                        }
+                        break;
+                    case AnalyzeStreamEvent.TYPE_REPORT:
+                        if (event.getReport() != null) {
+                            return Response.success(event.getReport(),
+                                    withServerTiming(response.raw().newBuilder(), event).build());
+                        }
+                        break;
+                    case AnalyzeStreamEvent.TYPE_ERROR:
+                        int status = event.getStatus() >= 400 ? event.getStatus() : HTTP_INTERNAL_ERROR;
+                        String error = event.getError() != null ? event.getError() : "";
+                        okhttp3.Response raw = withServerTiming(response.raw().newBuilder(), event)
+                                .code(status)
+                                .message(error)
+                                .build();
+                        return Response.error(ResponseBody.create(MEDIA_TYPE_TEXT, error), raw);
+                    default:
+                        // Newer event types are ignored
+                        break;
+                }
+            }
+        } catch (JsonParseException e) {
+            throw new IOException("Malformed analyze stream", e);
+        }
+        throw new IOException("Analyze stream ended without a report");
+    }
+
+    @NonNull
+    private <T> Response<T> send(@NonNull YOLOAnalysisRequest request,
+                                 long timeoutSeconds,
+                                 @NonNull Function<RequestBody, Call<T>> encoded,
+                                 @NonNull Function<YOLOAnalysisRequest, Call<T>> json) throws IOException {
+        if (compactEncodingSupported && request.hasStructuredDetections()) {
+            Response<T> response = withTimeout(encoded.apply(request.toCborBody()), timeoutSeconds).execute();
+            if (response.code() != HTTP_UNSUPPORTED_MEDIA_TYPE) {
+                return response;
+            }
+            Log.i(TAG, "Backend does not accept CBOR, falling back to JSON");
+            compactEncodingSupported = false;
+        }
+        return withTimeout(json.apply(request), timeoutSeconds).execute();
+    }
+
+    @NonNull
+    private static okhttp3.Response.Builder withServerTiming(@NonNull okhttp3.Response.Builder raw,
+                                                             @NonNull AnalyzeStreamEvent event) {
+        return event.getServerTiming() != null
+                ? raw.header(ServerTiming.HEADER, event.getServerTiming())
+                : raw;
+    }
+
+    @NonNull
+    private static <T> Call<T> withTimeout(@NonNull Call<T> call, long timeoutSeconds) {
+        if (timeoutSeconds > 0) {
+            call.timeout().timeout(timeoutSeconds, TimeUnit.SECONDS);
+        }
+        return call;
+    }
+}
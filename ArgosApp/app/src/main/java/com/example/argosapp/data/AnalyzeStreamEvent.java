@@ -0,0 +1,31 @@
+package com.example.argosapp.data;
+
+// One NDJSON line streamed back by `/api/ai/analyze/stream`
+public class AnalyzeStreamEvent {
+    public static final String TYPE_PARTIAL = "partial";
+    public static final String TYPE_REPORT = "report";
+    public static final String TYPE_ERROR = "error";
+
+    private String type;
+    // "partial" carries status and damage_category only; "report" is the stored, complete report
+    private ULDReport report;
+    // HTTP-like status code for "error" lines, since the real status was already sent as 200
+    private int status;
+    private String error;
+    // On the last line: Server-Timing for the whole request, which the header could not carry
+    private String serverTiming;
+
+    AnalyzeStreamEvent(String type, ULDReport report, int status, String error, String serverTiming) {
+        this.type = type;
+        this.report = report;
+        this.status = status;
+        this.error = error;
+        this.serverTiming = serverTiming;
+    }
+
+    public String getType() { return type; }
+    public ULDReport getReport() { return report; }
+    public int getStatus() { return status; }
+    public String getError() { return error; }
+    public String getServerTiming() { return serverTiming; }
+}
@@ -1,12 +1,37 @@
 package com.example.argosapp.data;
 
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
 import retrofit2.Call;
 import retrofit2.http.Body;
 import retrofit2.http.POST;
+import retrofit2.http.Streaming;
 
 public interface ApiService {
 
     // Calls the FastAPI `/api/ai/analyze` endpoint with YOLOAnalysisRequest and expects ULDReport
     @POST("/api/ai/analyze")
     Call<ULDReport> analyzeDetections(@Body YOLOAnalysisRequest request);
-}
\ No newline at end of file
+
+    // Same endpoint with a pre-encoded body, e.g. YOLOAnalysisRequest#toCborBody()
+    @POST("/api/ai/analyze")
+    Call<ULDReport> analyzeDetectionsEncoded(@Body RequestBody body);
+
+    // Streams the analysis as NDJSON AnalyzeStreamEvent lines: the verdict first, the full report last
+    @Streaming
+    @POST("/api/ai/analyze/stream")
+    Call<ResponseBody> analyzeDetectionsStream(@Body YOLOAnalysisRequest request);
+
+    @Streaming
+    @POST("/api/ai/analyze/stream")
+    Call<ResponseBody> analyzeDetectionsStreamEncoded(@Body RequestBody body);
+
+    // Stores an already known report without an LLM call, e.g. one served from the client-side cache
+    @POST("/api/uld/report")
+    Call<ULDReport> recordReport(@Body ULDReport report);
+
+    // Analyzes many ULDs in one request; the body is NDJSON with one BatchAnalysisResult per line
+    @Streaming
+    @POST("/api/ai/analyze/batch")
+    Call<ResponseBody> analyzeBatch(@Body YOLOAnalysisBatchRequest request);
+}
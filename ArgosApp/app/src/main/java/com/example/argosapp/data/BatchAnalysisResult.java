@@ -0,0 +1,21 @@
+package com.example.argosapp.data;
+
+// One NDJSON line streamed back by `/api/ai/analyze/batch`, in completion order
+public class BatchAnalysisResult {
+    private int index;
+    private String uld_id;
+    private ULDReport report; // null when the item failed
+    private String error;
+
+    BatchAnalysisResult(int index, String uld_id, ULDReport report, String error) {
+        this.index = index;
+        this.uld_id = uld_id;
+        this.report = report;
+        this.error = error;
+    }
+
+    public int getIndex() { return index; }
+    public String getUld_id() { return uld_id; }
+    public ULDReport getReport() { return report; }
+    public String getError() { return error; }
+}
@@ -0,0 +1,91 @@
+package com.example.argosapp.data;
+
+import androidx.annotation.NonNull;
+
+import okio.Buffer;
+import okio.ByteString;
+import okio.Utf8;
+
+/**
+ * Minimal CBOR (RFC 8949) encoder for the few shapes the analyze payload needs: definite-length
+ * maps and arrays, text strings, integers and single-precision floats. Writes straight into an Okio
+ * buffer, so encoding a request allocates nothing per value.
+ */
+public final class CborWriter {
+
+    private static final int MAJOR_UNSIGNED = 0;
+    private static final int MAJOR_NEGATIVE = 1;
+    private static final int MAJOR_TEXT = 3;
+    private static final int MAJOR_ARRAY = 4;
+    private static final int MAJOR_MAP = 5;
+    private static final int FLOAT32 = 0xFA;
+    private static final int NULL = 0xF6;
+
+    private final Buffer buffer = new Buffer();
+
+    @NonNull
+    public CborWriter beginMap(int pairs) {
+        writeHead(MAJOR_MAP, pairs);
+        return this;
+    }
+
+    @NonNull
+    public CborWriter beginArray(int items) {
+        writeHead(MAJOR_ARRAY, items);
+        return this;
+    }
+
+    @NonNull
+    public CborWriter string(@NonNull String value) {
+        writeHead(MAJOR_TEXT, Utf8.size(value));
+        buffer.writeUtf8(value);
+        return this;
+    }
+
+    @NonNull
+    public CborWriter integer(long value) {
+        if (value >= 0) {
+            writeHead(MAJOR_UNSIGNED, value);
+        } else {
+            writeHead(MAJOR_NEGATIVE, -1 - value);
+        }
+        return this;
+    }
+
+    @NonNull
+    public CborWriter float32(float value) {
+        buffer.writeByte(FLOAT32);
+        buffer.writeInt(Float.floatToIntBits(value));
+        return this;
+    }
+
+    @NonNull
+    public CborWriter nullValue() {
+        buffer.writeByte(NULL);
+        return this;
+    }
+
+    @NonNull
+    public ByteString toByteString() {
+        return buffer.readByteString();
+    }
+
+    private void writeHead(int majorType, long argument) {
+        int major = majorType << 5;
+        if (argument < 24) {
+            buffer.writeByte(major | (int) argument);
+        } else if (argument <= 0xFF) {
+            buffer.writeByte(major | 24);
+            buffer.writeByte((int) argument);
+        } else if (argument <= 0xFFFF) {
+            buffer.writeByte(major | 25);
+            buffer.writeShort((int) argument);
+        } else if (argument <= 0xFFFFFFFFL) {
+            buffer.writeByte(major | 26);
+            buffer.writeInt((int) argument);
+        } else {
+            buffer.writeByte(major | 27);
+            buffer.writeLong(argument);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.argosapp.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Detections of one image as parallel primitive arrays: {@code boxes} holds x1, y1, x2, y2 per
+ * detection (normalized, NaN when the detector gave no box), next to {@code scores} and
+ * {@code classIds}. Detectors fill it without boxing a coordinate, and the live overlay copies it
+ * with {@link System#arraycopy}. Code that still works on {@link YoloDetection} objects goes through
+ * {@link #toDetections()}.
+ */
+public final class DetectionBatch {
+
+    private float[] boxes;
+    private float[] scores;
+    private int[] classIds;
+    private String[] labels;
+    private int size;
+
+    public DetectionBatch() {
+        this(8);
+    }
+
+    public DetectionBatch(int capacity) {
+        int initial = Math.max(1, capacity);
+        boxes = new float[initial * 4];
+        scores = new float[initial];
+        classIds = new int[initial];
+        labels = new String[initial];
+    }
+
+    // Appends a detection and returns its index
+    public int add(int classId, @NonNull String label, float score, float x1, float y1, float x2, float y2) {
+        if (size == scores.length) {
+            grow();
+        }
+        int index = size++;
+        classIds[index] = classId;
+        labels[index] = label;
+        scores[index] = score;
+        setBox(index, x1, y1, x2, y2);
+        return index;
+    }
+
+    // Appends a detection that has no box
+    public int add(int classId, @NonNull String label, float score) {
+        return add(classId, label, score, Float.NaN, Float.NaN, Float.NaN, Float.NaN);
+    }
+
+    public void setBox(int index, float x1, float y1, float x2, float y2) {
+        int b = index * 4;
+        boxes[b] = x1;
+        boxes[b + 1] = y1;
+        boxes[b + 2] = x2;
+        boxes[b + 3] = y2;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getClassId(int index) {
+        return classIds[index];
+    }
+
+    @NonNull
+    public String getLabel(int index) {
+        return labels[index];
+    }
+
+    public float getScore(int index) {
+        return scores[index];
+    }
+
+    public boolean hasBox(int index) {
+        return !Float.isNaN(boxes[index * 4]);
+    }
+
+    /**
+     * Backing box array, four floats per detection starting at {@code index * 4}; only the first
+     * {@code size() * 4} entries are meaningful. Detectors map coordinates in place through it, and
+     * views copy from it; nobody else should write to it.
+     */
+    @NonNull
+    public float[] getBoxes() {
+        return boxes;
+    }
+
+    // Compatibility adapter for the scan pipeline and payloads, which still work on YoloDetection
+    @NonNull
+    public List<YoloDetection> toDetections() {
+        if (size == 0) {
+            return Collections.emptyList();
+        }
+        List<YoloDetection> detections = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            int b = i * 4;
+            List<Float> box = hasBox(i)
+                    ? Arrays.asList(boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3])
+                    : Collections.emptyList();
+            detections.add(new YoloDetection(classIds[i], labels[i], scores[i], box));
+        }
+        return detections;
+    }
+
+    @NonNull
+    public static DetectionBatch fromDetections(@Nullable List<YoloDetection> detections) {
+        if (detections == null) {
+            return new DetectionBatch(1);
+        }
+        DetectionBatch batch = new DetectionBatch(detections.size());
+        for (int i = 0, n = detections.size(); i < n; i++) {
+            YoloDetection detection = detections.get(i);
+            String label = detection.getClassName() != null ? detection.getClassName() : "";
+            List<Float> box = detection.getBox();
+            if (box != null && box.size() == 4) {
+                batch.add(detection.getClassId(), label, detection.getConfidence(),
+                        box.get(0), box.get(1), box.get(2), box.get(3));
+            } else {
+                batch.add(detection.getClassId(), label, detection.getConfidence());
+            }
+        }
+        return batch;
+    }
+
+    private void grow() {
+        int capacity = scores.length * 2;
+        boxes = Arrays.copyOf(boxes, capacity * 4);
+        scores = Arrays.copyOf(scores, capacity);
+        classIds = Arrays.copyOf(classIds, capacity);
+        labels = Arrays.copyOf(labels, capacity);
+    }
+}
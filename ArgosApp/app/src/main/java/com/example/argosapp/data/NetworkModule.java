@@ -0,0 +1,175 @@
+package com.example.argosapp.data;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+
+/**
+ * Owns the app's single OkHttp stack. Every backend client is derived with {@link OkHttpClient#newBuilder()}
+ * from one base client, so they share its connection pool, dispatcher threads and HTTP/2 sessions,
+ * and only differ in timeouts and interceptors.
+ */
+public final class NetworkModule {
+
+    private static final String TAG = "NetworkModule";
+
+    // Echoed by both backends next to their Server-Timing header, and printed in their logs
+    public static final String REQUEST_ID_HEADER = "X-Request-ID";
+
+    // Enough for the dashboard and the YOLO space plus a few parallel batch/outbox calls
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    // JSON bodies below this are not worth the gzip header and CPU
+    static final long MIN_GZIP_BYTES = 1024;
+
+    private NetworkModule() {
+    }
+
+    // Initialization-on-demand holder: lazy and thread-safe without locking on every access
+    private static final class Holder {
+        static final OkHttpClient BASE = createBaseClient();
+    }
+
+    @NonNull
+    public static OkHttpClient baseClient() {
+        return Holder.BASE;
+    }
+
+    // Client for the dashboard API; request bodies are gzip-compressed, the backend inflates them
+    @NonNull
+    public static OkHttpClient apiClient() {
+        return baseClient().newBuilder()
+                .addInterceptor(new RequestIdInterceptor())
+                .addInterceptor(new GzipRequestInterceptor())
+                .build();
+    }
+
+    // Client for image uploads to the hosted YOLO service; JPEG bodies are not compressed again
+    @NonNull
+    public static OkHttpClient detectorClient() {
+        return baseClient().newBuilder()
+                .addInterceptor(new RequestIdInterceptor())
+                .callTimeout(60, TimeUnit.SECONDS)
+                .readTimeout(60, TimeUnit.SECONDS)
+                .writeTimeout(60, TimeUnit.SECONDS)
+                .build();
+    }
+
+    /**
+     * Resolves and connects to each host in the background so the first scan does not pay for DNS,
+     * TCP and TLS on a high-latency link. The opened connections stay in the shared pool.
+     */
+    public static void prewarm(@NonNull String... baseUrls) {
+        OkHttpClient client = baseClient();
+        for (String baseUrl : baseUrls) {
+            HttpUrl url = HttpUrl.parse(baseUrl);
+            if (url == null) {
+                continue;
+            }
+            Request request = new Request.Builder().url(url).head().build();
+            client.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                    Log.d(TAG, "Pre-warm of " + url.host() + " failed: " + e.getMessage());
+                }
+
+                @Override
+                public void onResponse(@NonNull Call call, @NonNull Response response) {
+                    response.close();
+                }
+            });
+        }
+    }
+
+    @NonNull
+    private static OkHttpClient createBaseClient() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequestsPerHost(8);
+        return new OkHttpClient.Builder()
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .dispatcher(dispatcher)
+                // HTTP/2 is negotiated over TLS via ALPN; cleartext hosts stay on HTTP/1.1
+                .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+                .connectTimeout(15, TimeUnit.SECONDS)
+                .readTimeout(30, TimeUnit.SECONDS)
+                .writeTimeout(30, TimeUnit.SECONDS)
+                .retryOnConnectionFailure(true)
+                .build();
+    }
+
+    // Tags each call with a random ID so a slow scan can be matched with the backend's record of it.
+    // Application interceptors run once per call, so OkHttp's own retries keep the same ID
+    static final class RequestIdInterceptor implements Interceptor {
+
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request original = chain.request();
+            if (original.header(REQUEST_ID_HEADER) != null) {
+                return chain.proceed(original);
+            }
+            return chain.proceed(original.newBuilder()
+                    .header(REQUEST_ID_HEADER, newRequestId())
+                    .build());
+        }
+
+        @NonNull
+        static String newRequestId() {
+            return String.format(Locale.US, "%016x", ThreadLocalRandom.current().nextLong());
+        }
+    }
+
+    // Compresses request bodies with gzip, buffering them so Content-Length stays known
+    static final class GzipRequestInterceptor implements Interceptor {
+
+        @NonNull
+        @Override
+        public Response intercept(@NonNull Chain chain) throws IOException {
+            Request original = chain.request();
+            RequestBody body = original.body();
+            if (body == null
+                    || original.header("Content-Encoding") != null
+                    || body.contentLength() < MIN_GZIP_BYTES) {
+                return chain.proceed(original);
+            }
+            Request compressed = original.newBuilder()
+                    .header("Content-Encoding", "gzip")
+                    .method(original.method(), gzip(body))
+                    .build();
+            return chain.proceed(compressed);
+        }
+
+        @NonNull
+        private static RequestBody gzip(@NonNull RequestBody body) throws IOException {
+            Buffer buffer = new Buffer();
+            try (BufferedSink sink = Okio.buffer(new GzipSink(buffer))) {
+                body.writeTo(sink);
+            }
+            MediaType contentType = body.contentType();
+            return RequestBody.create(contentType, buffer.readByteString());
+        }
+    }
+}
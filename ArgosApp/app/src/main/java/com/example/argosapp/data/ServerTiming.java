@@ -0,0 +1,141 @@
+package com.example.argosapp.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Response;
+
+/**
+ * Durations a backend reported for one request in {@code Server-Timing} headers, e.g.
+ * {@code llm;dur=812.4, db;dur=3.1, total;dur=820.0}. Metrics without a {@code dur} parameter and
+ * malformed entries are skipped; when a name repeats, the durations are added up.
+ */
+public final class ServerTiming {
+
+    public static final String HEADER = "Server-Timing";
+    // The whole request as the server measured it, which the client subtracts to get network time
+    public static final String TOTAL = "total";
+
+    private static final ServerTiming EMPTY = new ServerTiming(Collections.emptyMap());
+
+    private final Map<String, Double> millis;
+
+    private ServerTiming(@NonNull Map<String, Double> millis) {
+        this.millis = millis;
+    }
+
+    @NonNull
+    public static ServerTiming from(@NonNull Response response) {
+        return parse(response.headers(HEADER));
+    }
+
+    @NonNull
+    public static ServerTiming parse(@NonNull List<String> headerValues) {
+        Map<String, Double> millis = new LinkedHashMap<>();
+        for (String value : headerValues) {
+            for (String metric : split(value, ',')) {
+                parseMetric(metric, millis);
+            }
+        }
+        return millis.isEmpty() ? EMPTY : new ServerTiming(Collections.unmodifiableMap(millis));
+    }
+
+    public boolean isEmpty() {
+        return millis.isEmpty();
+    }
+
+    public boolean has(@NonNull String name) {
+        return millis.containsKey(name);
+    }
+
+    // Milliseconds, or -1 when the server did not report this metric
+    public double getMillis(@NonNull String name) {
+        Double value = millis.get(name);
+        return value != null ? value : -1d;
+    }
+
+    // In the order the server sent them
+    @NonNull
+    public Map<String, Double> asMap() {
+        return millis;
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, Double> entry : millis.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(entry.getKey()).append(";dur=").append(entry.getValue());
+        }
+        return builder.toString();
+    }
+
+    private static void parseMetric(@NonNull String metric, @NonNull Map<String, Double> millis) {
+        List<String> parts = split(metric, ';');
+        String name = parts.get(0).trim();
+        if (name.isEmpty()) {
+            return;
+        }
+        Double duration = null;
+        for (int i = 1; i < parts.size(); i++) {
+            String param = parts.get(i);
+            int equals = param.indexOf('=');
+            if (equals < 0 || !param.substring(0, equals).trim().equalsIgnoreCase("dur")) {
+                continue;
+            }
+            duration = parseDuration(param.substring(equals + 1).trim());
+        }
+        if (duration == null || duration < 0) {
+            return;
+        }
+        Double previous = millis.get(name);
+        millis.put(name, previous != null ? previous + duration : duration);
+    }
+
+    @Nullable
+    private static Double parseDuration(@NonNull String value) {
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            double duration = Double.parseDouble(value);
+            return Double.isNaN(duration) || Double.isInfinite(duration) ? null : duration;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Splits on the separator outside of quoted strings, so a desc="a, b" stays in one piece
+    @NonNull
+    private static List<String> split(@NonNull String value, char separator) {
+        List<String> parts = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (quoted && c == '\\' && i + 1 < value.length()) {
+                current.append(c).append(value.charAt(++i));
+                continue;
+            }
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == separator && !quoted) {
+                parts.add(current.toString());
+                current.setLength(0);
+                continue;
+            }
+            current.append(c);
+        }
+        parts.add(current.toString());
+        return parts;
+    }
+}
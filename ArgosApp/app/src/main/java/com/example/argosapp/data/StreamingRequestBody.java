@@ -0,0 +1,113 @@
+package com.example.argosapp.data;
+
+import android.content.ContentResolver;
+import android.content.res.AssetFileDescriptor;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Request body that copies a file or content URI to the socket segment by segment through Okio,
+ * so an upload never holds more than a few buffers of the image on the heap. Each attempt re-opens
+ * the source, which keeps OkHttp's retries working.
+ */
+public final class StreamingRequestBody extends RequestBody {
+
+    private static final long SEGMENT_SIZE = 8 * 1024;
+
+    public interface UploadListener {
+        void onUploadComplete(long bytesWritten, long elapsedNanos);
+    }
+
+    private interface StreamOpener {
+        @NonNull
+        InputStream open() throws IOException;
+    }
+
+    private final MediaType contentType;
+    private final long contentLength;
+    private final StreamOpener opener;
+    @Nullable
+    private final UploadListener listener;
+
+    private StreamingRequestBody(@Nullable MediaType contentType,
+                                 long contentLength,
+                                 @NonNull StreamOpener opener,
+                                 @Nullable UploadListener listener) {
+        this.contentType = contentType;
+        this.contentLength = contentLength;
+        this.opener = opener;
+        this.listener = listener;
+    }
+
+    @NonNull
+    public static StreamingRequestBody fromFile(@NonNull File file,
+                                                @Nullable MediaType contentType,
+                                                @Nullable UploadListener listener) {
+        return new StreamingRequestBody(contentType, file.length(), () -> new FileInputStream(file), listener);
+    }
+
+    @NonNull
+    public static StreamingRequestBody fromUri(@NonNull ContentResolver contentResolver,
+                                               @NonNull Uri uri,
+                                               @Nullable MediaType contentType,
+                                               @Nullable UploadListener listener) {
+        return new StreamingRequestBody(contentType, queryLength(contentResolver, uri), () -> {
+            InputStream is = contentResolver.openInputStream(uri);
+            if (is == null) {
+                throw new FileNotFoundException("Unable to open " + uri);
+            }
+            return is;
+        }, listener);
+    }
+
+    // Returns -1 when the provider cannot report a size, which makes OkHttp use chunked encoding
+    public static long queryLength(@NonNull ContentResolver contentResolver, @NonNull Uri uri) {
+        try (AssetFileDescriptor descriptor = contentResolver.openAssetFileDescriptor(uri, "r")) {
+            return descriptor != null ? descriptor.getLength() : -1L;
+        } catch (IOException | SecurityException e) {
+            return -1L;
+        }
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(@NonNull BufferedSink sink) throws IOException {
+        long start = System.nanoTime();
+        long written = 0L;
+        try (Source source = Okio.source(opener.open())) {
+            long read;
+            while ((read = source.read(sink.buffer(), SEGMENT_SIZE)) != -1) {
+                written += read;
+                sink.emitCompleteSegments();
+            }
+        }
+        sink.flush();
+        if (listener != null) {
+            listener.onUploadComplete(written, System.nanoTime() - start);
+        }
+    }
+}
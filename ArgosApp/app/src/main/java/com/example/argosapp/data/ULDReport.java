@@ -7,7 +7,22 @@ public class ULDReport {
     private String damage_category;
     private String maintenance_suggestion;
 
-    // Getters (needed for Gson deserialization)
+    public ULDReport() {
+    }
+
+    public ULDReport(String uld_id, String status, String damage_category, String maintenance_suggestion) {
+        this.uld_id = uld_id;
+        this.status = status;
+        this.damage_category = damage_category;
+        this.maintenance_suggestion = maintenance_suggestion;
+    }
+
+    // Cached analyses are reused across ULDs, so the ID has to be swapped for the one being scanned
+    public ULDReport withUldId(String uldId) {
+        return new ULDReport(uldId, status, damage_category, maintenance_suggestion);
+    }
+
+    // Getters, also used by WireFormat's adapter
     public String getUld_id() { return uld_id; }
     public String getStatus() { return status; }
     public String getDamage_category() { return damage_category; }
@@ -0,0 +1,506 @@
+package com.example.argosapp.data;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import retrofit2.converter.gson.GsonConverterFactory;
+
+/**
+ * The app's single Gson instance, with a streaming {@link TypeAdapter} for every type exchanged with
+ * the FastAPI backend. Nothing goes through Gson's reflective adapter, so there is no per-class
+ * reflection cost on first use and R8 is free to rename and strip the model classes.
+ *
+ * The adapters emit exactly what reflective Gson emitted: fields in declaration order, nulls omitted,
+ * floats written through {@link Float#toString()}. WireFormatTest pins that byte for byte.
+ */
+public final class WireFormat {
+
+    private WireFormat() {
+    }
+
+    private static final class Holder {
+        static final Gson GSON = new GsonBuilder()
+                .registerTypeAdapter(ULDReport.class, new ULDReportAdapter().nullSafe())
+                .registerTypeAdapter(YoloDetection.class, new YoloDetectionAdapter().nullSafe())
+                .registerTypeAdapter(YOLOAnalysisRequest.class, new AnalysisRequestAdapter().nullSafe())
+                .registerTypeAdapter(YOLOAnalysisBatchRequest.class, new BatchRequestAdapter().nullSafe())
+                .registerTypeAdapter(AnalyzeStreamEvent.class, new StreamEventAdapter().nullSafe())
+                .registerTypeAdapter(BatchAnalysisResult.class, new BatchResultAdapter().nullSafe())
+                .create();
+    }
+
+    @NonNull
+    public static Gson gson() {
+        return Holder.GSON;
+    }
+
+    @NonNull
+    public static GsonConverterFactory converterFactory() {
+        return GsonConverterFactory.create(gson());
+    }
+
+    static final class ULDReportAdapter extends TypeAdapter<ULDReport> {
+        @Override
+        public void write(JsonWriter out, ULDReport report) throws IOException {
+            out.beginObject();
+            writeString(out, "uld_id", report.getUld_id());
+            writeString(out, "status", report.getStatus());
+            writeString(out, "damage_category", report.getDamage_category());
+            writeString(out, "maintenance_suggestion", report.getMaintenance_suggestion());
+            out.endObject();
+        }
+
+        @Override
+        public ULDReport read(JsonReader in) throws IOException {
+            String uldId = null;
+            String status = null;
+            String damageCategory = null;
+            String maintenanceSuggestion = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "uld_id":
+                        uldId = readString(in);
+                        break;
+                    case "status":
+                        status = readString(in);
+                        break;
+                    case "damage_category":
+                        damageCategory = readString(in);
+                        break;
+                    case "maintenance_suggestion":
+                        maintenanceSuggestion = readString(in);
+                        break;
+                    default:
+                        // The backend also returns last_seen, location, etc. that the app does not use
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return new ULDReport(uldId, status, damageCategory, maintenanceSuggestion);
+        }
+    }
+
+    static final class YoloDetectionAdapter extends TypeAdapter<YoloDetection> {
+        @Override
+        public void write(JsonWriter out, YoloDetection detection) throws IOException {
+            out.beginObject();
+            out.name("classId").value(detection.getClassId());
+            writeString(out, "className", detection.getClassName());
+            out.name("confidence");
+            writeFloat(out, detection.getConfidence());
+            List<Float> box = detection.getBox();
+            if (box != null) {
+                out.name("box").beginArray();
+                for (Float value : box) {
+                    if (value == null) {
+                        out.nullValue();
+                    } else {
+                        writeFloat(out, value);
+                    }
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public YoloDetection read(JsonReader in) throws IOException {
+            int classId = 0;
+            String className = null;
+            float confidence = 0f;
+            List<Float> box = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "classId":
+                        classId = readInt(in, 0);
+                        break;
+                    case "className":
+                        className = readString(in);
+                        break;
+                    case "confidence":
+                        confidence = readFloat(in, 0f);
+                        break;
+                    case "box":
+                        box = readFloatList(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return new YoloDetection(classId, className, confidence, box);
+        }
+    }
+
+    // Requests are read back too, e.g. from the outbox or when logged and re-parsed
+    static final class AnalysisRequestAdapter extends TypeAdapter<YOLOAnalysisRequest> {
+        @Override
+        public void write(JsonWriter out, YOLOAnalysisRequest request) throws IOException {
+            out.beginObject();
+            writeString(out, "uld_id", request.uld_id);
+            writeString(out, "yolo_findings", request.yolo_findings);
+            out.name("schema_version").value(request.schema_version);
+            if (request.detections != null) {
+                out.name("detections").beginArray();
+                for (YOLOAnalysisRequest.Detection detection : request.detections) {
+                    if (detection == null) {
+                        out.nullValue();
+                        continue;
+                    }
+                    out.beginObject();
+                    out.name("class_id").value(detection.class_id);
+                    out.name("confidence");
+                    writeFloat(out, detection.confidence);
+                    if (detection.box != null) {
+                        out.name("box").beginArray();
+                        for (float value : detection.box) {
+                            writeFloat(out, value);
+                        }
+                        out.endArray();
+                    }
+                    out.endObject();
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public YOLOAnalysisRequest read(JsonReader in) throws IOException {
+            String uldId = null;
+            String findings = null;
+            // A missing version means the request predates versioning, i.e. the first schema
+            int schemaVersion = YOLOAnalysisRequest.SCHEMA_VERSION;
+            List<YOLOAnalysisRequest.Detection> detections = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "uld_id":
+                        uldId = readString(in);
+                        break;
+                    case "yolo_findings":
+                        findings = readString(in);
+                        break;
+                    case "schema_version":
+                        schemaVersion = readInt(in, YOLOAnalysisRequest.SCHEMA_VERSION);
+                        break;
+                    case "detections":
+                        detections = readRequestDetections(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return new YOLOAnalysisRequest(uldId, findings, schemaVersion, detections);
+        }
+
+        @Nullable
+        private static List<YOLOAnalysisRequest.Detection> readRequestDetections(@NonNull JsonReader in)
+                throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<YOLOAnalysisRequest.Detection> detections = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                // Null entries and boxes are dropped, as fromDetections never produces them
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                int classId = 0;
+                float confidence = 0f;
+                float[] box = null;
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "class_id":
+                            classId = readInt(in, 0);
+                            break;
+                        case "confidence":
+                            confidence = readFloat(in, 0f);
+                            break;
+                        case "box":
+                            box = readFloatArray(in);
+                            break;
+                        default:
+                            in.skipValue();
+                            break;
+                    }
+                }
+                in.endObject();
+                detections.add(new YOLOAnalysisRequest.Detection(classId, confidence,
+                        box != null ? box : new float[0]));
+            }
+            in.endArray();
+            return detections;
+        }
+    }
+
+    static final class BatchRequestAdapter extends TypeAdapter<YOLOAnalysisBatchRequest> {
+        private final AnalysisRequestAdapter itemAdapter = new AnalysisRequestAdapter();
+
+        @Override
+        public void write(JsonWriter out, YOLOAnalysisBatchRequest request) throws IOException {
+            out.beginObject();
+            if (request.items != null) {
+                out.name("items").beginArray();
+                for (YOLOAnalysisRequest item : request.items) {
+                    if (item == null) {
+                        out.nullValue();
+                    } else {
+                        itemAdapter.write(out, item);
+                    }
+                }
+                out.endArray();
+            }
+            out.endObject();
+        }
+
+        @Override
+        public YOLOAnalysisBatchRequest read(JsonReader in) throws IOException {
+            List<YOLOAnalysisRequest> items = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                if (!in.nextName().equals("items")) {
+                    in.skipValue();
+                    continue;
+                }
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                items = new ArrayList<>();
+                in.beginArray();
+                while (in.hasNext()) {
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        items.add(null);
+                    } else {
+                        items.add(itemAdapter.read(in));
+                    }
+                }
+                in.endArray();
+            }
+            in.endObject();
+            return new YOLOAnalysisBatchRequest(items);
+        }
+    }
+
+    // Responses are written back in the backend's own field names, so a logged line re-parses as received
+    static final class StreamEventAdapter extends TypeAdapter<AnalyzeStreamEvent> {
+        private final ULDReportAdapter reportAdapter = new ULDReportAdapter();
+
+        @Override
+        public void write(JsonWriter out, AnalyzeStreamEvent event) throws IOException {
+            out.beginObject();
+            writeString(out, "type", event.getType());
+            writeReport(out, event.getReport(), reportAdapter);
+            if (event.getStatus() != 0) {
+                out.name("status").value(event.getStatus());
+            }
+            writeString(out, "error", event.getError());
+            writeString(out, "server_timing", event.getServerTiming());
+            out.endObject();
+        }
+
+        @Override
+        public AnalyzeStreamEvent read(JsonReader in) throws IOException {
+            String type = null;
+            ULDReport report = null;
+            int status = 0;
+            String error = null;
+            String serverTiming = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type":
+                        type = readString(in);
+                        break;
+                    case "report":
+                        report = readReport(in, reportAdapter);
+                        break;
+                    case "status":
+                        status = readInt(in, 0);
+                        break;
+                    case "error":
+                        error = readString(in);
+                        break;
+                    case "server_timing":
+                        serverTiming = readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return new AnalyzeStreamEvent(type, report, status, error, serverTiming);
+        }
+    }
+
+    static final class BatchResultAdapter extends TypeAdapter<BatchAnalysisResult> {
+        private final ULDReportAdapter reportAdapter = new ULDReportAdapter();
+
+        @Override
+        public void write(JsonWriter out, BatchAnalysisResult result) throws IOException {
+            out.beginObject();
+            out.name("index").value(result.getIndex());
+            writeString(out, "uld_id", result.getUld_id());
+            writeReport(out, result.getReport(), reportAdapter);
+            writeString(out, "error", result.getError());
+            out.endObject();
+        }
+
+        @Override
+        public BatchAnalysisResult read(JsonReader in) throws IOException {
+            int index = 0;
+            String uldId = null;
+            ULDReport report = null;
+            String error = null;
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "index":
+                        index = readInt(in, 0);
+                        break;
+                    case "uld_id":
+                        uldId = readString(in);
+                        break;
+                    case "report":
+                        report = readReport(in, reportAdapter);
+                        break;
+                    case "error":
+                        error = readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return new BatchAnalysisResult(index, uldId, report, error);
+        }
+    }
+
+    // Readers and writers below are shared with adapters outside this package, e.g. RemoteDetector's
+
+    // Reflective Gson skipped null fields entirely, so the adapters do too
+    public static void writeString(@NonNull JsonWriter out, @NonNull String name, @Nullable String value)
+            throws IOException {
+        if (value != null) {
+            out.name(name).value(value);
+        }
+    }
+
+    // Boxed on purpose: JsonWriter.value(Number) prints Float.toString ("0.9"), as reflective Gson did,
+    // where value(double) would print the widened double ("0.8999999761581421")
+    public static void writeFloat(@NonNull JsonWriter out, float value) throws IOException {
+        out.value(Float.valueOf(value));
+    }
+
+    public static void writeFloatArray(@NonNull JsonWriter out, @Nullable float[] values) throws IOException {
+        if (values == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (float value : values) {
+            writeFloat(out, value);
+        }
+        out.endArray();
+    }
+
+    private static void writeReport(@NonNull JsonWriter out, @Nullable ULDReport report,
+                                    @NonNull ULDReportAdapter adapter) throws IOException {
+        if (report != null) {
+            out.name("report");
+            adapter.write(out, report);
+        }
+    }
+
+    @Nullable
+    public static String readString(@NonNull JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+
+    public static int readInt(@NonNull JsonReader in, int fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return in.nextInt();
+    }
+
+    public static float readFloat(@NonNull JsonReader in, float fallback) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return fallback;
+        }
+        return (float) in.nextDouble();
+    }
+
+    @Nullable
+    public static float[] readFloatArray(@NonNull JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        float[] values = new float[4];
+        int count = 0;
+        in.beginArray();
+        while (in.hasNext()) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = readFloat(in, 0f);
+        }
+        in.endArray();
+        return count == values.length ? values : Arrays.copyOf(values, count);
+    }
+
+    @Nullable
+    private static List<Float> readFloatList(@NonNull JsonReader in) throws IOException {
+        float[] values = readFloatArray(in);
+        if (values == null) {
+            return null;
+        }
+        List<Float> list = new ArrayList<>(values.length);
+        for (float value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    @Nullable
+    private static ULDReport readReport(@NonNull JsonReader in, @NonNull ULDReportAdapter adapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return adapter.read(in);
+    }
+}
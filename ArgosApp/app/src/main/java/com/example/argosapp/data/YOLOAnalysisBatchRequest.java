@@ -0,0 +1,12 @@
+package com.example.argosapp.data;
+
+import java.util.List;
+
+// Body of `/api/ai/analyze/batch`: one entry per ULD captured during a batch session
+public class YOLOAnalysisBatchRequest {
+    List<YOLOAnalysisRequest> items;
+
+    public YOLOAnalysisBatchRequest(List<YOLOAnalysisRequest> items) {
+        this.items = items;
+    }
+}
@@ -1,12 +1,101 @@
 package com.example.argosapp.data;
 
-// This class is used by Gson to serialize requests sent to the FastAPI backend
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+// Request body sent to the FastAPI backend; serialized by WireFormat's adapter, or as CBOR
 public class YOLOAnalysisRequest {
+    // Bump when the shape of `detections` changes; the backend rejects versions it does not know
+    public static final int SCHEMA_VERSION = 1;
+    public static final MediaType MEDIA_TYPE_CBOR = MediaType.parse("application/cbor");
+
     String uld_id;
+    // Free text, only sent when there are no structured detections (e.g. simulated findings)
+    @Nullable
     String yolo_findings;
+    int schema_version = SCHEMA_VERSION;
+    @Nullable
+    List<Detection> detections;
+
+    // One detection as primitives: model class index, confidence and a normalized [x1, y1, x2, y2] box
+    static final class Detection {
+        int class_id;
+        float confidence;
+        float[] box;
+
+        Detection(int class_id, float confidence, float[] box) {
+            this.class_id = class_id;
+            this.confidence = confidence;
+            this.box = box;
+        }
+    }
 
     public YOLOAnalysisRequest(String uld_id, String yolo_findings) {
         this.uld_id = uld_id;
         this.yolo_findings = yolo_findings;
     }
-}
\ No newline at end of file
+
+    private YOLOAnalysisRequest(String uld_id, @NonNull List<Detection> detections) {
+        this.uld_id = uld_id;
+        this.detections = detections;
+    }
+
+    // Every field as read back from JSON by WireFormat
+    YOLOAnalysisRequest(String uld_id, @Nullable String yolo_findings, int schema_version,
+                        @Nullable List<Detection> detections) {
+        this.uld_id = uld_id;
+        this.yolo_findings = yolo_findings;
+        this.schema_version = schema_version;
+        this.detections = detections;
+    }
+
+    @NonNull
+    public static YOLOAnalysisRequest fromDetections(@NonNull String uldId, @NonNull List<YoloDetection> detections) {
+        List<Detection> items = new ArrayList<>(detections.size());
+        for (YoloDetection detection : detections) {
+            List<Float> box = detection.getBox();
+            float[] packed = new float[box != null && box.size() == 4 ? 4 : 0];
+            for (int i = 0; i < packed.length; i++) {
+                packed[i] = box.get(i);
+            }
+            items.add(new Detection(detection.getClassId(), detection.getConfidence(), packed));
+        }
+        return new YOLOAnalysisRequest(uldId, items);
+    }
+
+    public boolean hasStructuredDetections() {
+        return detections != null;
+    }
+
+    // Same fields as the JSON form, encoded as CBOR; floats take 5 bytes instead of their decimal text
+    @NonNull
+    public RequestBody toCborBody() {
+        CborWriter writer = new CborWriter();
+        int fields = 2 + (yolo_findings != null ? 1 : 0) + (detections != null ? 1 : 0);
+        writer.beginMap(fields)
+                .string("uld_id").string(uld_id)
+                .string("schema_version").integer(schema_version);
+        if (yolo_findings != null) {
+            writer.string("yolo_findings").string(yolo_findings);
+        }
+        if (detections != null) {
+            writer.string("detections").beginArray(detections.size());
+            for (Detection detection : detections) {
+                writer.beginMap(3)
+                        .string("class_id").integer(detection.class_id)
+                        .string("confidence").float32(detection.confidence)
+                        .string("box").beginArray(detection.box.length);
+                for (float value : detection.box) {
+                    writer.float32(value);
+                }
+            }
+        }
+        return RequestBody.create(MEDIA_TYPE_CBOR, writer.toByteString());
+    }
+}
@@ -4,18 +4,28 @@ import java.util.List;
 
 // Simple POJO to mirror the original Kotlin data class
 public class YoloDetection {
+    // Used when a detection's class index is not known, e.g. synthesized placeholders
+    public static final int UNKNOWN_CLASS = -1;
+
+    private int classId;
     private String className;
     private float confidence;
     private List<Float> box;
 
     public YoloDetection(String className, float confidence, List<Float> box) {
+        this(UNKNOWN_CLASS, className, confidence, box);
+    }
+
+    public YoloDetection(int classId, String className, float confidence, List<Float> box) {
+        this.classId = classId;
         this.className = className;
         this.confidence = confidence;
         this.box = box;
     }
 
-    // Gson requires getters for serialization/deserialization
+    // Getters, also used by WireFormat's adapter
+    public int getClassId() { return classId; }
     public String getClassName() { return className; }
     public float getConfidence() { return confidence; }
     public List<Float> getBox() { return box; }
-}
\ No newline at end of file
+}
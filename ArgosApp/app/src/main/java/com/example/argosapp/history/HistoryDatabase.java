@@ -0,0 +1,72 @@
+package com.example.argosapp.history;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.NonNull;
+
+// SQLite schema for the on-device scan history; rows are partitioned by the signed-in user's key
+final class HistoryDatabase extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "argos_history.db";
+    private static final int DATABASE_VERSION = 2;
+
+    static final String TABLE_HISTORY = "scan_history";
+    static final String COLUMN_ID = "_id";
+    static final String COLUMN_USER_KEY = "user_key";
+    static final String COLUMN_ULD_ID = "uld_id";
+    static final String COLUMN_SEVERITY_KEY = "severity_key";
+    static final String COLUMN_SEVERITY_LABEL = "severity_label";
+    static final String COLUMN_SUMMARY = "summary";
+    static final String COLUMN_DAMAGE_TITLE = "damage_title";
+    static final String COLUMN_SUGGESTION = "suggestion";
+    static final String COLUMN_IMAGE_URI = "image_uri";
+    static final String COLUMN_THUMBNAIL_URI = "thumbnail_uri";
+    static final String COLUMN_TIMESTAMP = "timestamp";
+
+    HistoryDatabase(@NonNull Context context) {
+        this(context, DATABASE_NAME);
+    }
+
+    HistoryDatabase(@NonNull Context context, @NonNull String databaseName) {
+        super(context.getApplicationContext(), databaseName, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // Lets the history screen read while the scan pipeline appends
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_HISTORY + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_USER_KEY + " TEXT NOT NULL, "
+                + COLUMN_ULD_ID + " TEXT NOT NULL, "
+                + COLUMN_SEVERITY_KEY + " TEXT NOT NULL, "
+                + COLUMN_SEVERITY_LABEL + " TEXT NOT NULL, "
+                + COLUMN_SUMMARY + " TEXT NOT NULL, "
+                + COLUMN_DAMAGE_TITLE + " TEXT NOT NULL, "
+                + COLUMN_SUGGESTION + " TEXT NOT NULL, "
+                + COLUMN_IMAGE_URI + " TEXT NOT NULL, "
+                + COLUMN_THUMBNAIL_URI + " TEXT NOT NULL DEFAULT '', "
+                + COLUMN_TIMESTAMP + " INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_history_user_time ON " + TABLE_HISTORY
+                + " (" + COLUMN_USER_KEY + ", " + COLUMN_TIMESTAMP + " DESC, " + COLUMN_ID + " DESC)");
+        db.execSQL("CREATE INDEX idx_history_user_uld ON " + TABLE_HISTORY
+                + " (" + COLUMN_USER_KEY + ", " + COLUMN_ULD_ID + ")");
+        db.execSQL("CREATE INDEX idx_history_user_severity ON " + TABLE_HISTORY
+                + " (" + COLUMN_USER_KEY + ", " + COLUMN_SEVERITY_KEY + ", " + COLUMN_TIMESTAMP + " DESC)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            db.execSQL("ALTER TABLE " + TABLE_HISTORY + " ADD COLUMN "
+                    + COLUMN_THUMBNAIL_URI + " TEXT NOT NULL DEFAULT ''");
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.argosapp.history;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.argosapp.model.ScanHistoryItem;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Keyset-paged view over the history store for the history screen. Pages are read on the history
+ * executor and handed to the main thread, where the loaded window lives; the list only ever grows at
+ * its two ends, so a new scan or a new page is reported as a positional insert instead of a new list.
+ */
+public final class HistoryPager {
+
+    public interface Listener {
+        // The window was replaced, e.g. after a user switch
+        void onReset();
+
+        void onItemsInserted(int position, int count);
+
+        void onItemChanged(int position);
+    }
+
+    private final HistoryStore store;
+    private final Executor executor;
+    private final int pageSize;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Main-thread state. Scans prepended since the last reset are kept newest-last in `head` and pages
+    // read from the store newest-first in `tail`, so both kinds of insert are amortized O(1).
+    private final List<ScanHistoryItem> head = new ArrayList<>();
+    private final List<ScanHistoryItem> tail = new ArrayList<>();
+    private int generation;
+    private boolean loading;
+    private boolean endReached = true;
+    @Nullable
+    private String userKey;
+    @Nullable
+    private Listener listener;
+
+    public HistoryPager(@NonNull HistoryStore store, @NonNull Executor executor, int pageSize) {
+        this.store = store;
+        this.executor = executor;
+        this.pageSize = pageSize;
+    }
+
+    // The first page is only read once a screen is listening, so startup never waits on history
+    @MainThread
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+        if (listener != null && tail.isEmpty()) {
+            loadMore();
+        }
+    }
+
+    @MainThread
+    public int size() {
+        return head.size() + tail.size();
+    }
+
+    @MainThread
+    @NonNull
+    public ScanHistoryItem get(int position) {
+        int headSize = head.size();
+        return position < headSize ? head.get(headSize - 1 - position) : tail.get(position - headSize);
+    }
+
+    // True until the first page for the current user has arrived
+    @MainThread
+    public boolean isLoading() {
+        return loading;
+    }
+
+    @MainThread
+    public void reset(@NonNull String newUserKey) {
+        userKey = newUserKey;
+        generation++;
+        head.clear();
+        tail.clear();
+        endReached = false;
+        loading = false;
+        if (listener != null) {
+            listener.onReset();
+            loadMore();
+        }
+    }
+
+    // Called by the list as it nears its end; a no-op while a page is in flight or history is exhausted
+    @MainThread
+    public void loadMore() {
+        if (loading || endReached || userKey == null) {
+            return;
+        }
+        loading = true;
+        String key = userKey;
+        int requestGeneration = generation;
+        ScanHistoryItem last = size() > 0 ? get(size() - 1) : null;
+        executor.execute(() -> {
+            List<ScanHistoryItem> page = last == null
+                    ? store.loadRecent(key, pageSize)
+                    : store.loadPage(key, last.getTimestamp(), last.getId(), pageSize);
+            mainHandler.post(() -> onPageLoaded(requestGeneration, page));
+        });
+    }
+
+    // Reports a row that was just inserted into the store for userKey
+    @WorkerThread
+    public void prepend(@NonNull String itemUserKey, @NonNull ScanHistoryItem item) {
+        mainHandler.post(() -> {
+            if (!itemUserKey.equals(userKey)) {
+                return;
+            }
+            head.add(item);
+            if (listener != null) {
+                listener.onItemsInserted(0, 1);
+            }
+        });
+    }
+
+    // Reports a row that was updated in the store; only matters if it is inside the loaded window
+    @WorkerThread
+    public void replace(@NonNull String itemUserKey, @NonNull ScanHistoryItem item) {
+        mainHandler.post(() -> {
+            if (!itemUserKey.equals(userKey)) {
+                return;
+            }
+            int headSize = head.size();
+            for (int i = 0; i < headSize; i++) {
+                if (head.get(i).getId() == item.getId()) {
+                    head.set(i, item);
+                    notifyChanged(headSize - 1 - i);
+                    return;
+                }
+            }
+            for (int i = 0; i < tail.size(); i++) {
+                if (tail.get(i).getId() == item.getId()) {
+                    tail.set(i, item);
+                    notifyChanged(headSize + i);
+                    return;
+                }
+            }
+        });
+    }
+
+    private void notifyChanged(int position) {
+        if (listener != null) {
+            listener.onItemChanged(position);
+        }
+    }
+
+    private void onPageLoaded(int requestGeneration, @NonNull List<ScanHistoryItem> page) {
+        if (requestGeneration != generation) {
+            return;
+        }
+        loading = false;
+        endReached = page.size() < pageSize;
+        // A scan prepended while the first page was in flight may also be in that page
+        int start = size();
+        for (ScanHistoryItem item : page) {
+            if (!containsHead(item.getId())) {
+                tail.add(item);
+            }
+        }
+        int added = size() - start;
+        if (listener != null) {
+            if (added > 0) {
+                listener.onItemsInserted(start, added);
+            } else if (start == 0) {
+                // Still lets an empty history leave the loading state
+                listener.onReset();
+            }
+        }
+    }
+
+    private boolean containsHead(long id) {
+        for (ScanHistoryItem item : head) {
+            if (item.getId() == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
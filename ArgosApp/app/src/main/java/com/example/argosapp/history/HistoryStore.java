@@ -0,0 +1,270 @@
+package com.example.argosapp.history;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import com.example.argosapp.model.ScanHistoryItem;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Append-only scan history backed by SQLite. Appends are a single indexed insert and reads are
+ * always bounded by a limit, so neither grows with the size of a user's history.
+ */
+public final class HistoryStore {
+
+    private static final String TAG = "HistoryStore";
+
+    // Legacy storage: one JSON array per user in SharedPreferences
+    private static final String LEGACY_PREF_HISTORY = "argos_history";
+    private static final String LEGACY_KEY_HISTORY_PREFIX = "history_";
+
+    private static final String[] PROJECTION = {
+            HistoryDatabase.COLUMN_ID,
+            HistoryDatabase.COLUMN_ULD_ID,
+            HistoryDatabase.COLUMN_SEVERITY_KEY,
+            HistoryDatabase.COLUMN_SEVERITY_LABEL,
+            HistoryDatabase.COLUMN_SUMMARY,
+            HistoryDatabase.COLUMN_DAMAGE_TITLE,
+            HistoryDatabase.COLUMN_SUGGESTION,
+            HistoryDatabase.COLUMN_IMAGE_URI,
+            HistoryDatabase.COLUMN_THUMBNAIL_URI,
+            HistoryDatabase.COLUMN_TIMESTAMP
+    };
+    private static final String ORDER_NEWEST_FIRST =
+            HistoryDatabase.COLUMN_TIMESTAMP + " DESC, " + HistoryDatabase.COLUMN_ID + " DESC";
+
+    private final HistoryDatabase database;
+    private final SharedPreferences legacyPrefs;
+
+    public HistoryStore(@NonNull Context context) {
+        this(context, new HistoryDatabase(context));
+    }
+
+    // A separate database file, so benchmarks and tests never touch the inspector's history
+    @VisibleForTesting
+    public HistoryStore(@NonNull Context context, @NonNull String databaseName) {
+        this(context, new HistoryDatabase(context, databaseName));
+    }
+
+    private HistoryStore(@NonNull Context context, @NonNull HistoryDatabase database) {
+        this.database = database;
+        legacyPrefs = context.getSharedPreferences(LEGACY_PREF_HISTORY, Context.MODE_PRIVATE);
+    }
+
+    public void close() {
+        database.close();
+    }
+
+    @WorkerThread
+    public long insert(@NonNull String userKey, @NonNull ScanHistoryItem item) {
+        return database.getWritableDatabase().insert(HistoryDatabase.TABLE_HISTORY, null, toValues(userKey, item));
+    }
+
+    // Inserts many rows in one transaction, e.g. when seeding history for benchmarks
+    @WorkerThread
+    public void insertAll(@NonNull String userKey, @NonNull List<ScanHistoryItem> items) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (ScanHistoryItem item : items) {
+                db.insert(HistoryDatabase.TABLE_HISTORY, null, toValues(userKey, item));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    // Overwrites a row in place, e.g. when a queued analysis finally returns; the user key never changes
+    @WorkerThread
+    public void update(@NonNull String userKey, long id, @NonNull ScanHistoryItem item) {
+        database.getWritableDatabase().update(HistoryDatabase.TABLE_HISTORY, toValues(userKey, item),
+                HistoryDatabase.COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+    }
+
+    @WorkerThread
+    @Nullable
+    public ScanHistoryItem loadById(long id) {
+        List<ScanHistoryItem> items = query(HistoryDatabase.COLUMN_ID + " = ?", new String[]{String.valueOf(id)}, 1);
+        return items.isEmpty() ? null : items.get(0);
+    }
+
+    @WorkerThread
+    @NonNull
+    public List<ScanHistoryItem> loadRecent(@NonNull String userKey, int limit) {
+        return query(HistoryDatabase.COLUMN_USER_KEY + " = ?", new String[]{userKey}, limit);
+    }
+
+    /**
+     * Keyset page: the next {@code limit} rows strictly older than the (timestamp, id) of the last row
+     * already shown. Unlike OFFSET this stays an index seek however deep the user has scrolled.
+     */
+    @WorkerThread
+    @NonNull
+    public List<ScanHistoryItem> loadPage(@NonNull String userKey, long beforeTimestamp, long beforeId, int limit) {
+        return query(HistoryDatabase.COLUMN_USER_KEY + " = ? AND ("
+                        + HistoryDatabase.COLUMN_TIMESTAMP + " < ? OR ("
+                        + HistoryDatabase.COLUMN_TIMESTAMP + " = ? AND " + HistoryDatabase.COLUMN_ID + " < ?))",
+                new String[]{userKey, String.valueOf(beforeTimestamp), String.valueOf(beforeTimestamp),
+                        String.valueOf(beforeId)},
+                limit);
+    }
+
+    @WorkerThread
+    @NonNull
+    public List<ScanHistoryItem> loadByUldId(@NonNull String userKey, @NonNull String uldId, int limit) {
+        return query(HistoryDatabase.COLUMN_USER_KEY + " = ? AND " + HistoryDatabase.COLUMN_ULD_ID + " = ?",
+                new String[]{userKey, uldId}, limit);
+    }
+
+    @WorkerThread
+    @NonNull
+    public List<ScanHistoryItem> loadBySeverity(@NonNull String userKey, @NonNull String severityKey, int limit) {
+        return query(HistoryDatabase.COLUMN_USER_KEY + " = ? AND " + HistoryDatabase.COLUMN_SEVERITY_KEY + " = ?",
+                new String[]{userKey, severityKey}, limit);
+    }
+
+    @WorkerThread
+    public long count(@NonNull String userKey) {
+        return DatabaseUtils.queryNumEntries(database.getReadableDatabase(), HistoryDatabase.TABLE_HISTORY,
+                HistoryDatabase.COLUMN_USER_KEY + " = ?", new String[]{userKey});
+    }
+
+    // Every image and thumbnail URI any user's history points at, so unreferenced files can be pruned
+    @WorkerThread
+    @NonNull
+    public Set<String> loadFileUris() {
+        Set<String> uris = new HashSet<>();
+        try (Cursor cursor = database.getReadableDatabase().query(
+                HistoryDatabase.TABLE_HISTORY,
+                new String[]{HistoryDatabase.COLUMN_IMAGE_URI, HistoryDatabase.COLUMN_THUMBNAIL_URI},
+                null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                for (int i = 0; i < 2; i++) {
+                    if (!cursor.isNull(i) && !cursor.getString(i).isEmpty()) {
+                        uris.add(cursor.getString(i));
+                    }
+                }
+            }
+        }
+        return uris;
+    }
+
+    /**
+     * Moves any history still stored in the legacy SharedPreferences blob into the database. Each
+     * user's key is removed only after its rows are committed, so an interrupted run resumes safely.
+     */
+    @WorkerThread
+    public void migrateLegacyPreferences() {
+        Map<String, ?> entries = legacyPrefs.getAll();
+        for (Map.Entry<String, ?> entry : entries.entrySet()) {
+            String key = entry.getKey();
+            if (!key.startsWith(LEGACY_KEY_HISTORY_PREFIX) || !(entry.getValue() instanceof String)) {
+                continue;
+            }
+            String userKey = key.substring(LEGACY_KEY_HISTORY_PREFIX.length());
+            try {
+                migrateUser(userKey, (String) entry.getValue());
+            } catch (JSONException e) {
+                Log.w(TAG, "Dropping unreadable legacy history for " + userKey, e);
+            }
+            legacyPrefs.edit().remove(key).commit();
+        }
+    }
+
+    private void migrateUser(@NonNull String userKey, @NonNull String raw) throws JSONException {
+        JSONArray array = new JSONArray(raw);
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            // The blob is newest-first; insert oldest-first so row ids follow capture order
+            for (int i = array.length() - 1; i >= 0; i--) {
+                JSONObject obj = array.getJSONObject(i);
+                ScanHistoryItem item = new ScanHistoryItem(
+                        obj.optString("uldId", ""),
+                        obj.optString("severityKey", "unknown"),
+                        obj.optString("severityLabel", ""),
+                        obj.optString("summary", ""),
+                        obj.optString("damageTitle", ""),
+                        obj.optString("suggestion", ""),
+                        obj.optString("imageUri", ""),
+                        obj.optLong("timestamp", 0L)
+                );
+                db.insert(HistoryDatabase.TABLE_HISTORY, null, toValues(userKey, item));
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    @NonNull
+    private List<ScanHistoryItem> query(@NonNull String selection, @NonNull String[] args, int limit) {
+        List<ScanHistoryItem> items = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().query(
+                HistoryDatabase.TABLE_HISTORY,
+                PROJECTION,
+                selection,
+                args,
+                null,
+                null,
+                ORDER_NEWEST_FIRST,
+                String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                items.add(fromCursor(cursor));
+            }
+        }
+        return items;
+    }
+
+    @NonNull
+    private static ScanHistoryItem fromCursor(@NonNull Cursor cursor) {
+        return new ScanHistoryItem(
+                cursor.getLong(0),
+                cursor.getString(1),
+                cursor.getString(2),
+                cursor.getString(3),
+                cursor.getString(4),
+                cursor.getString(5),
+                cursor.getString(6),
+                cursor.getString(7),
+                cursor.getString(8),
+                cursor.getLong(9)
+        );
+    }
+
+    @NonNull
+    private static ContentValues toValues(@NonNull String userKey, @NonNull ScanHistoryItem item) {
+        ContentValues values = new ContentValues();
+        values.put(HistoryDatabase.COLUMN_USER_KEY, userKey);
+        values.put(HistoryDatabase.COLUMN_ULD_ID, item.getUldId());
+        values.put(HistoryDatabase.COLUMN_SEVERITY_KEY, item.getSeverityKey());
+        values.put(HistoryDatabase.COLUMN_SEVERITY_LABEL, item.getSeverityLabel());
+        values.put(HistoryDatabase.COLUMN_SUMMARY, item.getSummary());
+        values.put(HistoryDatabase.COLUMN_DAMAGE_TITLE, item.getDamageTitle());
+        values.put(HistoryDatabase.COLUMN_SUGGESTION, item.getSuggestion());
+        values.put(HistoryDatabase.COLUMN_IMAGE_URI, item.getImageUri());
+        values.put(HistoryDatabase.COLUMN_THUMBNAIL_URI, item.getThumbnailUri());
+        values.put(HistoryDatabase.COLUMN_TIMESTAMP, item.getTimestamp());
+        return values;
+    }
+}
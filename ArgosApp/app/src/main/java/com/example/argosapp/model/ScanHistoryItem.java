@@ -4,6 +4,10 @@ import androidx.annotation.NonNull;
 
 public class ScanHistoryItem {
 
+    // Row id assigned by the history store; NO_ID until the item has been persisted
+    public static final long NO_ID = -1L;
+
+    private final long id;
     private final String uldId;
     private final String severityKey;
     private final String severityLabel;
@@ -11,6 +15,7 @@ public class ScanHistoryItem {
     private final String damageTitle;
     private final String suggestion;
     private final String imageUri;
+    private final String thumbnailUri;
     private final long timestamp;
 
     public ScanHistoryItem(@NonNull String uldId,
@@ -21,6 +26,20 @@ public class ScanHistoryItem {
                            @NonNull String suggestion,
                            @NonNull String imageUri,
                            long timestamp) {
+        this(NO_ID, uldId, severityKey, severityLabel, summary, damageTitle, suggestion, imageUri, "", timestamp);
+    }
+
+    public ScanHistoryItem(long id,
+                           @NonNull String uldId,
+                           @NonNull String severityKey,
+                           @NonNull String severityLabel,
+                           @NonNull String summary,
+                           @NonNull String damageTitle,
+                           @NonNull String suggestion,
+                           @NonNull String imageUri,
+                           @NonNull String thumbnailUri,
+                           long timestamp) {
+        this.id = id;
         this.uldId = uldId;
         this.severityKey = severityKey;
         this.severityLabel = severityLabel;
@@ -28,9 +47,20 @@ public class ScanHistoryItem {
         this.damageTitle = damageTitle;
         this.suggestion = suggestion;
         this.imageUri = imageUri;
+        this.thumbnailUri = thumbnailUri;
         this.timestamp = timestamp;
     }
 
+    public long getId() {
+        return id;
+    }
+
+    @NonNull
+    public ScanHistoryItem withId(long newId) {
+        return new ScanHistoryItem(newId, uldId, severityKey, severityLabel, summary, damageTitle, suggestion,
+                imageUri, thumbnailUri, timestamp);
+    }
+
     @NonNull
     public String getUldId() {
         return uldId;
@@ -69,5 +99,11 @@ public class ScanHistoryItem {
     public String getImageUri() {
         return imageUri;
     }
+
+    // Empty for scans recorded before thumbnails were generated
+    @NonNull
+    public String getThumbnailUri() {
+        return thumbnailUri;
+    }
 }
 
@@ -5,6 +5,9 @@ import android.net.Uri;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.example.argosapp.data.YoloDetection;
+
+import java.util.Collections;
 import java.util.List;
 
 public class ScanResultUiModel {
@@ -20,6 +23,8 @@ public class ScanResultUiModel {
     private final Uri imageUri;
     private final long timestamp;
     private final List<DamageDetail> damageDetails;
+    // Every YOLO detection of the scan, drawn as boxes over the preview
+    private final List<YoloDetection> detections;
 
     public ScanResultUiModel(@NonNull String uldId,
                              @NonNull String severityKey,
@@ -31,6 +36,21 @@ public class ScanResultUiModel {
                              @Nullable Uri imageUri,
                              long timestamp,
                              @NonNull List<DamageDetail> damageDetails) {
+        this(uldId, severityKey, severityLabel, severityDescription, primaryDamageTitle, primarySuggestion,
+                yoloSummary, imageUri, timestamp, damageDetails, Collections.emptyList());
+    }
+
+    public ScanResultUiModel(@NonNull String uldId,
+                             @NonNull String severityKey,
+                             @NonNull String severityLabel,
+                             @NonNull String severityDescription,
+                             @NonNull String primaryDamageTitle,
+                             @NonNull String primarySuggestion,
+                             @NonNull String yoloSummary,
+                             @Nullable Uri imageUri,
+                             long timestamp,
+                             @NonNull List<DamageDetail> damageDetails,
+                             @NonNull List<YoloDetection> detections) {
         this.uldId = uldId;
         this.severityKey = severityKey;
         this.severityLabel = severityLabel;
@@ -41,6 +61,7 @@ public class ScanResultUiModel {
         this.imageUri = imageUri;
         this.timestamp = timestamp;
         this.damageDetails = damageDetails;
+        this.detections = detections;
     }
 
     @NonNull
@@ -91,5 +112,10 @@ public class ScanResultUiModel {
     public List<DamageDetail> getDamageDetails() {
         return damageDetails;
     }
+
+    @NonNull
+    public List<YoloDetection> getDetections() {
+        return detections;
+    }
 }
 
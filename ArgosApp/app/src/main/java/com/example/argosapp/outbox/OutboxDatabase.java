@@ -0,0 +1,63 @@
+package com.example.argosapp.outbox;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import androidx.annotation.NonNull;
+
+// SQLite schema for analysis requests that are waiting to be (re)sent to the dashboard backend
+final class OutboxDatabase extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "argos_outbox.db";
+    private static final int DATABASE_VERSION = 2;
+
+    static final String TABLE_OUTBOX = "outbox";
+    static final String COLUMN_ID = "_id";
+    static final String COLUMN_USER_KEY = "user_key";
+    static final String COLUMN_HISTORY_ID = "history_id";
+    static final String COLUMN_ULD_ID = "uld_id";
+    static final String COLUMN_YOLO_FINDINGS = "yolo_findings";
+    // Structured detections as a WireFormat JSON array; NULL for text-only (simulated) findings
+    static final String COLUMN_DETECTIONS = "detections";
+    static final String COLUMN_IMAGE_URI = "image_uri";
+    static final String COLUMN_CREATED_AT = "created_at";
+    static final String COLUMN_ATTEMPTS = "attempts";
+    static final String COLUMN_NEXT_ATTEMPT_AT = "next_attempt_at";
+    static final String COLUMN_LAST_ERROR = "last_error";
+
+    OutboxDatabase(@NonNull Context context) {
+        super(context.getApplicationContext(), DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_OUTBOX + " ("
+                + COLUMN_ID + " INTEGER PRIMARY KEY AUTOINCREMENT, "
+                + COLUMN_USER_KEY + " TEXT NOT NULL, "
+                + COLUMN_HISTORY_ID + " INTEGER NOT NULL, "
+                + COLUMN_ULD_ID + " TEXT NOT NULL, "
+                + COLUMN_YOLO_FINDINGS + " TEXT NOT NULL, "
+                + COLUMN_DETECTIONS + " TEXT, "
+                + COLUMN_IMAGE_URI + " TEXT NOT NULL, "
+                + COLUMN_CREATED_AT + " INTEGER NOT NULL, "
+                + COLUMN_ATTEMPTS + " INTEGER NOT NULL DEFAULT 0, "
+                + COLUMN_NEXT_ATTEMPT_AT + " INTEGER NOT NULL, "
+                + COLUMN_LAST_ERROR + " TEXT)");
+        db.execSQL("CREATE INDEX idx_outbox_due ON " + TABLE_OUTBOX + " (" + COLUMN_NEXT_ATTEMPT_AT + ")");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            // Rows queued before this keep replaying from their findings text
+            db.execSQL("ALTER TABLE " + TABLE_OUTBOX + " ADD COLUMN " + COLUMN_DETECTIONS + " TEXT");
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.argosapp.outbox;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.argosapp.data.ULDReport;
+import com.example.argosapp.data.YoloDetection;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends queued analysis requests in the background. Failed attempts are retried with exponential
+ * backoff and "equal jitter" (half the delay fixed, half random) so a ramp full of devices does not
+ * retry in lockstep when an access point comes back. Regaining a network pulls entries that are
+ * waiting out a long backoff forward to a random point within the first backoff step; entries due
+ * sooner keep their schedule, and the attempt count is left alone, so a connection that keeps
+ * dropping still backs off.
+ */
+public final class OutboxDrainer {
+
+    private static final String TAG = "OutboxDrainer";
+
+    static final long BASE_DELAY_MS = 2_000L;
+    static final long MAX_DELAY_MS = 5 * 60_000L;
+    private static final int BATCH_LIMIT = 20;
+    // Entries due later than this after a network comes back are pulled forward
+    static final long PULL_FORWARD_AFTER_MS = 30_000L;
+
+    public interface Sender {
+        @NonNull
+        ULDReport send(@NonNull OutboxEntry entry) throws IOException;
+    }
+
+    public interface Listener {
+        void onDelivered(@NonNull OutboxEntry entry, @NonNull ULDReport report);
+
+        // The backend refused the request outright; retrying would not help
+        void onRejected(@NonNull OutboxEntry entry, @NonNull String error);
+    }
+
+    // Thrown by a Sender for responses that must not be retried, e.g. a 4xx validation error
+    public static final class RejectedException extends IOException {
+        public RejectedException(@NonNull String message) {
+            super(message);
+        }
+    }
+
+    private final OutboxStore store;
+    private final Sender sender;
+    private final Listener listener;
+    private final ConnectivityManager connectivityManager;
+    private final ScheduledExecutorService executor =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "scan-outbox"));
+    private final AtomicBoolean initialNetworkSeen = new AtomicBoolean();
+    private final ConnectivityManager.NetworkCallback networkCallback = new ConnectivityManager.NetworkCallback() {
+        @Override
+        public void onAvailable(@NonNull Network network) {
+            // Registering reports the current network straight away; start() already drains for it
+            if (!initialNetworkSeen.getAndSet(true)) {
+                return;
+            }
+            executor.execute(() -> {
+                long now = System.currentTimeMillis();
+                long delay = ThreadLocalRandom.current().nextLong(backoffDelay(1) + 1);
+                store.pullForward(now + PULL_FORWARD_AFTER_MS, now + delay);
+                scheduleNext();
+            });
+        }
+    };
+    private ScheduledFuture<?> scheduledDrain;
+
+    public OutboxDrainer(@NonNull Context context,
+                         @NonNull OutboxStore store,
+                         @NonNull Sender sender,
+                         @NonNull Listener listener) {
+        this.store = store;
+        this.sender = sender;
+        this.listener = listener;
+        this.connectivityManager = context.getSystemService(ConnectivityManager.class);
+    }
+
+    // Drains whatever survived the last process and starts listening for connectivity changes
+    public void start() {
+        connectivityManager.registerDefaultNetworkCallback(networkCallback);
+        executor.execute(this::drain);
+    }
+
+    public void shutdown() {
+        try {
+            connectivityManager.unregisterNetworkCallback(networkCallback);
+        } catch (IllegalArgumentException ignored) {
+            // start() was never called
+        }
+        executor.shutdownNow();
+    }
+
+    // Queues a request whose first, interactive attempt has just failed
+    public void enqueue(@NonNull String userKey,
+                        long historyId,
+                        @NonNull String uldId,
+                        @NonNull String yoloFindings,
+                        @NonNull List<YoloDetection> detections,
+                        @NonNull String imageUri) {
+        executor.execute(() -> {
+            store.enqueue(userKey, historyId, uldId, yoloFindings, detections, imageUri,
+                    System.currentTimeMillis() + backoffDelay(1));
+            scheduleNext();
+        });
+    }
+
+    private void drain() {
+        if (scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+            scheduledDrain = null;
+        }
+        List<OutboxEntry> due = store.loadDue(System.currentTimeMillis(), BATCH_LIMIT);
+        boolean stalled = false;
+        for (OutboxEntry entry : due) {
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            try {
+                ULDReport report = sender.send(entry);
+                store.delete(entry.getId());
+                listener.onDelivered(entry, report);
+            } catch (RejectedException e) {
+                Log.w(TAG, "Outbox entry " + entry.getId() + " rejected: " + e.getMessage());
+                store.delete(entry.getId());
+                listener.onRejected(entry, e.getMessage() != null ? e.getMessage() : "Rejected");
+            } catch (IOException e) {
+                int attempts = entry.getAttempts() + 1;
+                store.reschedule(entry.getId(), attempts,
+                        System.currentTimeMillis() + backoffDelay(attempts), e.getMessage());
+                // Most likely still offline; leave the rest for the next scheduled pass
+                stalled = true;
+                break;
+            }
+        }
+        if (!stalled && due.size() == BATCH_LIMIT) {
+            executor.execute(this::drain);
+        } else {
+            scheduleNext();
+        }
+    }
+
+    private void scheduleNext() {
+        long next = store.nextAttemptAt();
+        if (next < 0) {
+            return;
+        }
+        if (scheduledDrain != null) {
+            scheduledDrain.cancel(false);
+        }
+        long delay = Math.max(0L, next - System.currentTimeMillis());
+        scheduledDrain = executor.schedule(this::drain, delay, TimeUnit.MILLISECONDS);
+    }
+
+    static long backoffDelay(int attempts) {
+        int exponent = Math.min(Math.max(attempts - 1, 0), 16);
+        long ceiling = Math.min(MAX_DELAY_MS, BASE_DELAY_MS << exponent);
+        long half = ceiling / 2;
+        return half + ThreadLocalRandom.current().nextLong(half + 1);
+    }
+}
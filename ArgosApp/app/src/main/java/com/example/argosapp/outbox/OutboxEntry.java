@@ -0,0 +1,83 @@
+package com.example.argosapp.outbox;
+
+import androidx.annotation.NonNull;
+
+import com.example.argosapp.data.YoloDetection;
+
+import java.util.List;
+
+// One analysis request waiting in the outbox, linked to the pending history row it will fill in
+public final class OutboxEntry {
+
+    private final long id;
+    private final String userKey;
+    private final long historyId;
+    private final String uldId;
+    private final String yoloFindings;
+    private final List<YoloDetection> detections;
+    private final String imageUri;
+    private final long createdAt;
+    private final int attempts;
+
+    public OutboxEntry(long id,
+                       @NonNull String userKey,
+                       long historyId,
+                       @NonNull String uldId,
+                       @NonNull String yoloFindings,
+                       @NonNull List<YoloDetection> detections,
+                       @NonNull String imageUri,
+                       long createdAt,
+                       int attempts) {
+        this.id = id;
+        this.userKey = userKey;
+        this.historyId = historyId;
+        this.uldId = uldId;
+        this.yoloFindings = yoloFindings;
+        this.detections = detections;
+        this.imageUri = imageUri;
+        this.createdAt = createdAt;
+        this.attempts = attempts;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    @NonNull
+    public String getUserKey() {
+        return userKey;
+    }
+
+    public long getHistoryId() {
+        return historyId;
+    }
+
+    @NonNull
+    public String getUldId() {
+        return uldId;
+    }
+
+    @NonNull
+    public String getYoloFindings() {
+        return yoloFindings;
+    }
+
+    // Empty when the scan only had findings text, or was queued before detections were stored
+    @NonNull
+    public List<YoloDetection> getDetections() {
+        return detections;
+    }
+
+    @NonNull
+    public String getImageUri() {
+        return imageUri;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+}
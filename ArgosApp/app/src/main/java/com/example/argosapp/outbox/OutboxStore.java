@@ -0,0 +1,172 @@
+package com.example.argosapp.outbox;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.argosapp.data.WireFormat;
+import com.example.argosapp.data.YoloDetection;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Durable queue of analysis requests; rows are removed only once the backend has answered
+public final class OutboxStore {
+
+    // Built explicitly: R8 full mode strips the generic signature an anonymous TypeToken subclass relies on
+    private static final Type DETECTIONS_TYPE = TypeToken.getParameterized(List.class, YoloDetection.class).getType();
+
+    private static final String[] PROJECTION = {
+            OutboxDatabase.COLUMN_ID,
+            OutboxDatabase.COLUMN_USER_KEY,
+            OutboxDatabase.COLUMN_HISTORY_ID,
+            OutboxDatabase.COLUMN_ULD_ID,
+            OutboxDatabase.COLUMN_YOLO_FINDINGS,
+            OutboxDatabase.COLUMN_DETECTIONS,
+            OutboxDatabase.COLUMN_IMAGE_URI,
+            OutboxDatabase.COLUMN_CREATED_AT,
+            OutboxDatabase.COLUMN_ATTEMPTS
+    };
+
+    private final OutboxDatabase database;
+
+    public OutboxStore(@NonNull Context context) {
+        database = new OutboxDatabase(context);
+    }
+
+    @WorkerThread
+    public long enqueue(@NonNull String userKey,
+                        long historyId,
+                        @NonNull String uldId,
+                        @NonNull String yoloFindings,
+                        @NonNull List<YoloDetection> detections,
+                        @NonNull String imageUri,
+                        long nextAttemptAt) {
+        ContentValues values = new ContentValues();
+        values.put(OutboxDatabase.COLUMN_USER_KEY, userKey);
+        values.put(OutboxDatabase.COLUMN_HISTORY_ID, historyId);
+        values.put(OutboxDatabase.COLUMN_ULD_ID, uldId);
+        values.put(OutboxDatabase.COLUMN_YOLO_FINDINGS, yoloFindings);
+        if (!detections.isEmpty()) {
+            values.put(OutboxDatabase.COLUMN_DETECTIONS, WireFormat.gson().toJson(detections, DETECTIONS_TYPE));
+        }
+        values.put(OutboxDatabase.COLUMN_IMAGE_URI, imageUri);
+        values.put(OutboxDatabase.COLUMN_CREATED_AT, System.currentTimeMillis());
+        values.put(OutboxDatabase.COLUMN_ATTEMPTS, 1);
+        values.put(OutboxDatabase.COLUMN_NEXT_ATTEMPT_AT, nextAttemptAt);
+        return database.getWritableDatabase().insert(OutboxDatabase.TABLE_OUTBOX, null, values);
+    }
+
+    // Oldest-first, so results are reconciled in the order the ULDs were scanned
+    @WorkerThread
+    @NonNull
+    public List<OutboxEntry> loadDue(long now, int limit) {
+        List<OutboxEntry> entries = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().query(
+                OutboxDatabase.TABLE_OUTBOX,
+                PROJECTION,
+                OutboxDatabase.COLUMN_NEXT_ATTEMPT_AT + " <= ?",
+                new String[]{String.valueOf(now)},
+                null,
+                null,
+                OutboxDatabase.COLUMN_ID + " ASC",
+                String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                entries.add(new OutboxEntry(
+                        cursor.getLong(0),
+                        cursor.getString(1),
+                        cursor.getLong(2),
+                        cursor.getString(3),
+                        cursor.getString(4),
+                        readDetections(cursor.isNull(5) ? null : cursor.getString(5)),
+                        cursor.getString(6),
+                        cursor.getLong(7),
+                        cursor.getInt(8)
+                ));
+            }
+        }
+        return entries;
+    }
+
+    // Captures still waiting to be analyzed, so they are not pruned from under the outbox
+    @WorkerThread
+    @NonNull
+    public Set<String> loadImageUris() {
+        Set<String> uris = new HashSet<>();
+        try (Cursor cursor = database.getReadableDatabase().query(
+                OutboxDatabase.TABLE_OUTBOX,
+                new String[]{OutboxDatabase.COLUMN_IMAGE_URI},
+                null, null, null, null, null)) {
+            while (cursor.moveToNext()) {
+                uris.add(cursor.getString(0));
+            }
+        }
+        return uris;
+    }
+
+    // Earliest scheduled retry, or -1 when the outbox is empty
+    @WorkerThread
+    public long nextAttemptAt() {
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT MIN(" + OutboxDatabase.COLUMN_NEXT_ATTEMPT_AT + ") FROM " + OutboxDatabase.TABLE_OUTBOX,
+                null)) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : -1L;
+        }
+    }
+
+    @WorkerThread
+    public void reschedule(long id, int attempts, long nextAttemptAt, @Nullable String error) {
+        ContentValues values = new ContentValues();
+        values.put(OutboxDatabase.COLUMN_ATTEMPTS, attempts);
+        values.put(OutboxDatabase.COLUMN_NEXT_ATTEMPT_AT, nextAttemptAt);
+        values.put(OutboxDatabase.COLUMN_LAST_ERROR, error);
+        database.getWritableDatabase().update(OutboxDatabase.TABLE_OUTBOX, values,
+                OutboxDatabase.COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+    }
+
+    // Moves entries scheduled after `later` to `to`, e.g. when connectivity returns; entries due
+    // sooner keep their place in the backoff schedule
+    @WorkerThread
+    public void pullForward(long later, long to) {
+        ContentValues values = new ContentValues();
+        values.put(OutboxDatabase.COLUMN_NEXT_ATTEMPT_AT, to);
+        database.getWritableDatabase().update(OutboxDatabase.TABLE_OUTBOX, values,
+                OutboxDatabase.COLUMN_NEXT_ATTEMPT_AT + " > ?", new String[]{String.valueOf(later)});
+    }
+
+    @WorkerThread
+    public void delete(long id) {
+        database.getWritableDatabase().delete(OutboxDatabase.TABLE_OUTBOX,
+                OutboxDatabase.COLUMN_ID + " = ?", new String[]{String.valueOf(id)});
+    }
+
+    @WorkerThread
+    public long count() {
+        return DatabaseUtils.queryNumEntries(database.getReadableDatabase(), OutboxDatabase.TABLE_OUTBOX);
+    }
+
+    // A row that cannot be read back still replays from its findings text rather than blocking the queue
+    @NonNull
+    private static List<YoloDetection> readDetections(@Nullable String json) {
+        if (json == null) {
+            return Collections.emptyList();
+        }
+        try {
+            List<YoloDetection> detections = WireFormat.gson().fromJson(json, DETECTIONS_TYPE);
+            return detections != null ? detections : Collections.emptyList();
+        } catch (JsonParseException e) {
+            return Collections.emptyList();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.argosapp.scan;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.example.argosapp.data.ApiService;
+import com.example.argosapp.data.BatchAnalysisResult;
+import com.example.argosapp.data.YOLOAnalysisBatchRequest;
+import com.example.argosapp.data.YOLOAnalysisRequest;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import retrofit2.Response;
+
+/**
+ * Collects detected scans during a batch inspection and sends them to `/api/ai/analyze/batch` in
+ * groups of {@code batchSize}. The server streams one result per ULD as its analysis completes, and
+ * each one is handed back through {@link Listener} immediately.
+ */
+public final class BatchSession {
+
+    private static final String TAG = "BatchSession";
+
+    public interface Listener {
+        void onReport(@NonNull ScanContext context);
+
+        void onFailed(@NonNull ScanContext context, @NonNull String error);
+    }
+
+    private final ApiService apiService;
+    private final Gson gson;
+    private final int batchSize;
+    private final Listener listener;
+    private final ExecutorService uploader = Executors.newSingleThreadExecutor();
+    private final List<ScanContext> pending = new ArrayList<>();
+    private final AtomicInteger submitted = new AtomicInteger();
+    private final AtomicInteger finished = new AtomicInteger();
+
+    public BatchSession(@NonNull ApiService apiService,
+                        @NonNull Gson gson,
+                        int batchSize,
+                        @NonNull Listener listener) {
+        this.apiService = apiService;
+        this.gson = gson;
+        this.batchSize = batchSize;
+        this.listener = listener;
+    }
+
+    public void add(@NonNull ScanContext context) {
+        submitted.incrementAndGet();
+        synchronized (pending) {
+            pending.add(context);
+            if (pending.size() >= batchSize) {
+                flushLocked();
+            }
+        }
+    }
+
+    // Sends whatever is pending, even if the batch is not full yet
+    public void flush() {
+        synchronized (pending) {
+            flushLocked();
+        }
+    }
+
+    public void close() {
+        flush();
+        uploader.shutdown();
+    }
+
+    public int getSubmittedCount() {
+        return submitted.get();
+    }
+
+    public int getFinishedCount() {
+        return finished.get();
+    }
+
+    private void flushLocked() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<ScanContext> batch = new ArrayList<>(pending);
+        pending.clear();
+        uploader.execute(() -> upload(batch));
+    }
+
+    private void upload(@NonNull List<ScanContext> batch) {
+        List<YOLOAnalysisRequest> items = new ArrayList<>(batch.size());
+        for (ScanContext context : batch) {
+            items.add(context.getDetections().isEmpty()
+                    ? new YOLOAnalysisRequest(context.getUldId(), context.getYoloFindings())
+                    : YOLOAnalysisRequest.fromDetections(context.getUldId(), context.getDetections()));
+        }
+        boolean[] delivered = new boolean[batch.size()];
+        try {
+            Response<ResponseBody> response = apiService.analyzeBatch(new YOLOAnalysisBatchRequest(items)).execute();
+            if (!response.isSuccessful() || response.body() == null) {
+                failRemaining(batch, delivered, "API Error: " + response.code() + " " + response.message());
+                return;
+            }
+            try (ResponseBody body = response.body()) {
+                BufferedSource source = body.source();
+                String line;
+                while ((line = source.readUtf8Line()) != null) {
+                    if (line.trim().isEmpty()) {
+                        continue;
+                    }
+                    deliver(batch, delivered, gson.fromJson(line, BatchAnalysisResult.class));
+                }
+            }
+        } catch (IOException | JsonParseException e) {
+            Log.e(TAG, "Batch upload failed", e);
+            failRemaining(batch, delivered, "Upload failed: " + e.getMessage());
+            return;
+        }
+        failRemaining(batch, delivered, "No result returned for this ULD");
+    }
+
+    private void deliver(@NonNull List<ScanContext> batch, @NonNull boolean[] delivered, BatchAnalysisResult result) {
+        if (result == null || result.getIndex() < 0 || result.getIndex() >= batch.size()
+                || delivered[result.getIndex()]) {
+            return;
+        }
+        int index = result.getIndex();
+        delivered[index] = true;
+        finished.incrementAndGet();
+        ScanContext context = batch.get(index);
+        if (result.getReport() != null) {
+            listener.onReport(context.withReport(result.getReport()));
+        } else {
+            listener.onFailed(context, result.getError() != null ? result.getError() : "Analysis failed");
+        }
+    }
+
+    private void failRemaining(@NonNull List<ScanContext> batch, @NonNull boolean[] delivered, @NonNull String error) {
+        for (int i = 0; i < batch.size(); i++) {
+            if (!delivered[i]) {
+                delivered[i] = true;
+                finished.incrementAndGet();
+                listener.onFailed(batch.get(i), error);
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.argosapp.scan;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.media.ExifInterface;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.argosapp.yolo.DetectorInput;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decodes camera captures without ever holding the full-resolution photo in memory: bounds are read
+ * first, the JPEG is subsampled with {@code inSampleSize} to just above the target size, and the
+ * result is rotated per EXIF and letterboxed onto the detector's square input.
+ */
+public final class CaptureDecoder {
+
+    // Ultralytics letterbox padding colour
+    private static final int LETTERBOX_COLOR = Color.rgb(114, 114, 114);
+
+    private final ContentResolver contentResolver;
+    private final int inputSize;
+
+    public CaptureDecoder(@NonNull ContentResolver contentResolver, int inputSize) {
+        this.contentResolver = contentResolver;
+        this.inputSize = inputSize;
+    }
+
+    @WorkerThread
+    @Nullable
+    public DetectorInput decode(@NonNull Uri uri) throws IOException {
+        int rotation = readRotationDegrees(uri);
+        Bitmap sampled = decodeSampled(uri, inputSize, rotation);
+        if (sampled == null) {
+            return null;
+        }
+
+        return letterbox(sampled, inputSize, maxEdge -> decodeBounded(uri, maxEdge, rotation), uri, rotation);
+    }
+
+    /**
+     * Letterboxes an upright bitmap onto the detector's square input and recycles it. Also used for
+     * live camera frames, which are already in memory and never go through a file.
+     */
+    @WorkerThread
+    @NonNull
+    public static DetectorInput letterbox(@NonNull Bitmap sampled,
+                                          int inputSize,
+                                          @Nullable DetectorInput.HighResLoader highResLoader,
+                                          @Nullable Uri uri,
+                                          int rotation) {
+        int sourceWidth = sampled.getWidth();
+        int sourceHeight = sampled.getHeight();
+        float scale = (float) inputSize / Math.max(sourceWidth, sourceHeight);
+        int contentWidth = Math.round(sourceWidth * scale);
+        int contentHeight = Math.round(sourceHeight * scale);
+        int padX = (inputSize - contentWidth) / 2;
+        int padY = (inputSize - contentHeight) / 2;
+
+        Bitmap letterboxed = Bitmap.createBitmap(inputSize, inputSize, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(letterboxed);
+        canvas.drawColor(LETTERBOX_COLOR);
+        Matrix matrix = new Matrix();
+        matrix.postScale(scale, scale);
+        matrix.postTranslate(padX, padY);
+        canvas.drawBitmap(sampled, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+        sampled.recycle();
+
+        // Box mapping only needs the aspect ratio, so the sampled size stands in for the source size
+        return new DetectorInput(letterboxed, sourceWidth, sourceHeight, scale, padX, padY,
+                highResLoader, uri, rotation);
+    }
+
+    // Higher resolution path, used only by detectors that ask for it
+    @WorkerThread
+    @NonNull
+    public Bitmap decodeBounded(@NonNull Uri uri, int maxEdge, int rotation) throws IOException {
+        Bitmap bitmap = decodeSampled(uri, maxEdge, rotation);
+        if (bitmap == null) {
+            throw new IOException("Unable to decode " + uri);
+        }
+        int longest = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longest <= maxEdge) {
+            return bitmap;
+        }
+        float scale = (float) maxEdge / longest;
+        Bitmap scaled = Bitmap.createScaledBitmap(bitmap,
+                Math.round(bitmap.getWidth() * scale), Math.round(bitmap.getHeight() * scale), true);
+        if (scaled != bitmap) {
+            bitmap.recycle();
+        }
+        return scaled;
+    }
+
+    // Decodes with the largest power-of-two subsampling that keeps the longest edge >= targetEdge
+    @Nullable
+    private Bitmap decodeSampled(@NonNull Uri uri, int targetEdge, int rotation) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream is = contentResolver.openInputStream(uri)) {
+            BitmapFactory.decodeStream(is, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            return null;
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, targetEdge);
+        // JPEG captures carry no alpha; RGB_565 halves the intermediate allocation
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        Bitmap decoded;
+        try (InputStream is = contentResolver.openInputStream(uri)) {
+            decoded = BitmapFactory.decodeStream(is, null, options);
+        }
+        if (decoded == null || rotation == 0) {
+            return decoded;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotation);
+        Bitmap rotated = Bitmap.createBitmap(decoded, 0, 0, decoded.getWidth(), decoded.getHeight(), matrix, true);
+        if (rotated != decoded) {
+            decoded.recycle();
+        }
+        return rotated;
+    }
+
+    static int calculateInSampleSize(int width, int height, int targetEdge) {
+        int longest = Math.max(width, height);
+        int sampleSize = 1;
+        while (longest / (sampleSize * 2) >= targetEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private int readRotationDegrees(@NonNull Uri uri) {
+        try (InputStream is = contentResolver.openInputStream(uri)) {
+            if (is == null) {
+                return 0;
+            }
+            ExifInterface exif = new ExifInterface(is);
+            switch (exif.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL)) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.argosapp.scan;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Stores frames committed from live preview. The file is only written, for the history card and
+ * for detectors that upload the photo; detection itself runs on the frame already in memory.
+ */
+public final class CaptureStore {
+
+    private static final String TAG = "CaptureStore";
+    private static final String DIRECTORY = "captures";
+    private static final int QUALITY = 90;
+
+    private final File directory;
+
+    public CaptureStore(@NonNull File filesDir) {
+        this.directory = new File(filesDir, DIRECTORY);
+    }
+
+    // Returns a file:// URI to the written JPEG, or null when it could not be written
+    @WorkerThread
+    @Nullable
+    public Uri write(@NonNull Bitmap frame) {
+        File file = new File(directory, "live_" + System.currentTimeMillis() + ".jpg");
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create " + directory);
+            }
+            try (OutputStream os = new FileOutputStream(file)) {
+                if (!frame.compress(Bitmap.CompressFormat.JPEG, QUALITY, os)) {
+                    throw new IOException("JPEG encoding failed");
+                }
+            }
+            return Uri.fromFile(file);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to store live frame", e);
+            file.delete();
+            return null;
+        }
+    }
+
+    // Captures nothing points at any more, e.g. frames whose scan failed before reaching history.
+    // Files newer than olderThan are kept, since their scan may still be in flight.
+    @WorkerThread
+    public int deleteUnreferenced(@NonNull Set<String> referencedUris, long olderThan) {
+        return StoredFiles.deleteUnreferenced(directory, referencedUris, olderThan);
+    }
+}
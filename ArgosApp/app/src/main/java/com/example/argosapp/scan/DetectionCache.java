@@ -0,0 +1,104 @@
+package com.example.argosapp.scan;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.argosapp.data.ULDReport;
+import com.example.argosapp.data.YoloDetection;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Recent scan results keyed by the capture's perceptual hash. A lookup matches any entry within
+ * {@code maxDistance} bits that is younger than the time window; since retakes happen seconds apart,
+ * a small LRU is enough and the linear scan over it is negligible next to a detection round trip.
+ */
+public final class DetectionCache {
+
+    public static final class Entry {
+        private final long hash;
+        private final List<YoloDetection> detections;
+        private final String yoloFindings;
+        private final ULDReport report;
+        private final long createdAt;
+
+        Entry(long hash, @NonNull List<YoloDetection> detections, @NonNull String yoloFindings,
+              @NonNull ULDReport report, long createdAt) {
+            this.hash = hash;
+            this.detections = detections;
+            this.yoloFindings = yoloFindings;
+            this.report = report;
+            this.createdAt = createdAt;
+        }
+
+        @NonNull
+        public List<YoloDetection> getDetections() {
+            return detections;
+        }
+
+        @NonNull
+        public String getYoloFindings() {
+            return yoloFindings;
+        }
+
+        @NonNull
+        public ULDReport getReport() {
+            return report;
+        }
+    }
+
+    private final int maxEntries;
+    private final long windowMillis;
+    private final int maxDistance;
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    public DetectionCache(int maxEntries, long windowMillis, int maxDistance) {
+        this.maxEntries = maxEntries;
+        this.windowMillis = windowMillis;
+        this.maxDistance = maxDistance;
+    }
+
+    @Nullable
+    public synchronized Entry find(long hash, long now) {
+        Entry best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (now - entry.createdAt > windowMillis) {
+                iterator.remove();
+                continue;
+            }
+            int distance = PerceptualHash.distance(hash, entry.hash);
+            if (distance <= maxDistance && distance < bestDistance) {
+                best = entry;
+                bestDistance = distance;
+            }
+        }
+        if (best != null) {
+            // Touch it so it survives eviction
+            entries.get(best.hash);
+        }
+        return best;
+    }
+
+    public synchronized void put(long hash,
+                                 @NonNull List<YoloDetection> detections,
+                                 @NonNull String yoloFindings,
+                                 @NonNull ULDReport report,
+                                 long now) {
+        entries.put(hash, new Entry(hash, detections, yoloFindings, report, now));
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.argosapp.scan;
+
+import android.graphics.Bitmap;
+import android.graphics.Matrix;
+import android.net.Uri;
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.ImageProxy;
+
+import com.example.argosapp.data.DetectionBatch;
+import com.example.argosapp.data.YoloDetection;
+import com.example.argosapp.yolo.DetectorInput;
+import com.example.argosapp.yolo.DetectorMode;
+import com.example.argosapp.yolo.YoloProcessor;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs the on-device detector over the camera's analysis stream. CameraX is set up to keep only the
+ * latest frame, and this analyzer drops further frames that arrive within the rate cap or whose
+ * luma hash has not moved since the last inference, so a steady scene costs a hash per frame and
+ * nothing else. Frames are only converted to bitmaps once they are actually inferred or committed.
+ */
+public final class LiveFrameAnalyzer implements ImageAnalysis.Analyzer {
+
+    public interface Listener {
+        @WorkerThread
+        void onFrameAnalyzed(@NonNull Result result);
+
+        // detections is null when the on-device model is unavailable and the frame still needs detecting
+        @WorkerThread
+        void onFrameCommitted(@NonNull DetectorInput input,
+                              @Nullable List<YoloDetection> detections,
+                              @Nullable Uri imageUri,
+                              boolean forceRescan);
+    }
+
+    // Detections for one inferred frame; boxes are normalized to the upright frame
+    public static final class Result {
+        public final DetectionBatch detections;
+        public final int frameWidth;
+        public final int frameHeight;
+        public final long inferenceMillis;
+
+        Result(@NonNull DetectionBatch detections, int frameWidth, int frameHeight, long inferenceMillis) {
+            this.detections = detections;
+            this.frameWidth = frameWidth;
+            this.frameHeight = frameHeight;
+            this.inferenceMillis = inferenceMillis;
+        }
+    }
+
+    private final YoloProcessor yoloProcessor;
+    private final CaptureStore captureStore;
+    private final long minIntervalMillis;
+    private final int changeThreshold;
+    private final Listener listener;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(r -> new Thread(r, "live-analysis"));
+
+    // Set from the main thread; the next frame is committed regardless of rate cap or change
+    private volatile boolean commitRequested;
+    private volatile boolean forceRescanOnCommit;
+
+    // Only touched on the analysis thread
+    private long lastInferenceAt = Long.MIN_VALUE / 2;
+    private long lastHash;
+    private boolean hasLastHash;
+    @Nullable
+    private DetectionBatch lastDetections;
+
+    public LiveFrameAnalyzer(@NonNull YoloProcessor yoloProcessor,
+                             @NonNull CaptureStore captureStore,
+                             long minIntervalMillis,
+                             int changeThreshold,
+                             @NonNull Listener listener) {
+        this.yoloProcessor = yoloProcessor;
+        this.captureStore = captureStore;
+        this.minIntervalMillis = minIntervalMillis;
+        this.changeThreshold = changeThreshold;
+        this.listener = listener;
+    }
+
+    // The executor CameraX should call analyze() on
+    @NonNull
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    public void requestCommit(boolean forceRescan) {
+        forceRescanOnCommit = forceRescan;
+        commitRequested = true;
+    }
+
+    // Forget the previous scene, e.g. when live mode is re-entered
+    public void reset() {
+        executor.execute(() -> {
+            hasLastHash = false;
+            lastDetections = null;
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    @WorkerThread
+    public void analyze(@NonNull ImageProxy image) {
+        try {
+            boolean commit = commitRequested;
+            long now = SystemClock.elapsedRealtime();
+            if (!commit && now - lastInferenceAt < minIntervalMillis) {
+                return;
+            }
+            ImageProxy.PlaneProxy luma = image.getPlanes()[0];
+            long hash = PerceptualHash.computeLuma(luma.getBuffer(), image.getWidth(), image.getHeight(),
+                    luma.getRowStride(), luma.getPixelStride());
+            boolean unchanged = hasLastHash && PerceptualHash.distance(hash, lastHash) <= changeThreshold;
+            if (!commit && unchanged) {
+                return;
+            }
+
+            Bitmap upright = toUprightBitmap(image);
+            if (commit) {
+                commitRequested = false;
+                commitFrame(upright, unchanged);
+                return;
+            }
+            lastInferenceAt = now;
+            if (!yoloProcessor.isLocalAvailable()) {
+                upright.recycle();
+                return;
+            }
+            int width = upright.getWidth();
+            int height = upright.getHeight();
+            DetectorInput input = CaptureDecoder.letterbox(upright, YoloProcessor.INPUT_SIZE, null, null, 0);
+            DetectionBatch detections = yoloProcessor.detect(input, DetectorMode.LOCAL);
+            input.recycle();
+            lastHash = hash;
+            hasLastHash = true;
+            lastDetections = detections;
+            listener.onFrameAnalyzed(new Result(detections, width, height, SystemClock.elapsedRealtime() - now));
+        } finally {
+            image.close();
+        }
+    }
+
+    // Reuses the boxes on screen when the scene has not changed since they were inferred
+    private void commitFrame(@NonNull Bitmap upright, boolean unchanged) {
+        Uri imageUri = captureStore.write(upright);
+        DetectorInput input = CaptureDecoder.letterbox(upright, YoloProcessor.INPUT_SIZE, null, imageUri, 0);
+        DetectionBatch detections = null;
+        if (unchanged && lastDetections != null) {
+            detections = lastDetections;
+        } else if (yoloProcessor.isLocalAvailable()) {
+            detections = yoloProcessor.detect(input, DetectorMode.LOCAL);
+        }
+        // The scan pipeline stores YoloDetection objects, so only a committed frame pays for the conversion
+        listener.onFrameCommitted(input, detections != null ? detections.toDetections() : null,
+                imageUri, forceRescanOnCommit);
+    }
+
+    @NonNull
+    private static Bitmap toUprightBitmap(@NonNull ImageProxy image) {
+        Bitmap frame = image.toBitmap();
+        int rotation = image.getImageInfo().getRotationDegrees();
+        if (rotation == 0) {
+            return frame;
+        }
+        Matrix matrix = new Matrix();
+        matrix.postRotate(rotation);
+        Bitmap rotated = Bitmap.createBitmap(frame, 0, 0, frame.getWidth(), frame.getHeight(), matrix, true);
+        if (rotated != frame) {
+            frame.recycle();
+        }
+        return rotated;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.argosapp.scan;
+
+import android.graphics.Bitmap;
+
+import androidx.annotation.NonNull;
+
+import com.example.argosapp.yolo.DetectorInput;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 64-bit difference hash (dHash): the photo is reduced to a 9x8 grayscale grid and each bit records
+ * whether a cell is brighter than its right-hand neighbour. Retakes of the same ULD face differ in a
+ * handful of bits, while unrelated photos differ in about half of them.
+ */
+public final class PerceptualHash {
+
+    private static final int GRID_WIDTH = 9;
+    private static final int GRID_HEIGHT = 8;
+    // Samples per cell edge when hashing camera frames; 16x16 is plenty for a 64-bit hash
+    private static final int LUMA_SAMPLES_PER_CELL = 16;
+
+    private PerceptualHash() {
+    }
+
+    // Hashes only the photo area of the letterboxed model bitmap, so the grey padding does not count
+    public static long compute(@NonNull DetectorInput input) {
+        Bitmap model = input.getModelBitmap();
+        int contentWidth = Math.min(model.getWidth() - input.getPadX(),
+                Math.round(input.getSourceWidth() * input.getScale()));
+        int contentHeight = Math.min(model.getHeight() - input.getPadY(),
+                Math.round(input.getSourceHeight() * input.getScale()));
+        int[] pixels = new int[contentWidth * contentHeight];
+        model.getPixels(pixels, 0, contentWidth, input.getPadX(), input.getPadY(), contentWidth, contentHeight);
+        return compute(pixels, contentWidth, contentHeight);
+    }
+
+    // Box-filters ARGB pixels down to the grid; averaging is steadier than sampling under glare
+    static long compute(@NonNull int[] argb, int width, int height) {
+        double[] grid = new double[GRID_WIDTH * GRID_HEIGHT];
+        for (int gy = 0; gy < GRID_HEIGHT; gy++) {
+            int y0 = gy * height / GRID_HEIGHT;
+            int y1 = Math.max(y0 + 1, (gy + 1) * height / GRID_HEIGHT);
+            for (int gx = 0; gx < GRID_WIDTH; gx++) {
+                int x0 = gx * width / GRID_WIDTH;
+                int x1 = Math.max(x0 + 1, (gx + 1) * width / GRID_WIDTH);
+                long sum = 0;
+                for (int y = y0; y < y1; y++) {
+                    int row = y * width;
+                    for (int x = x0; x < x1; x++) {
+                        sum += luma(argb[row + x]);
+                    }
+                }
+                grid[gy * GRID_WIDTH + gx] = (double) sum / ((y1 - y0) * (x1 - x0));
+            }
+        }
+        return hashGrid(grid);
+    }
+
+    /**
+     * Hashes a camera frame straight from its Y plane, so live preview can tell whether anything moved
+     * without converting the frame to a bitmap. Each cell is averaged over a sparse sample grid; the
+     * result is only comparable with other frames hashed the same way.
+     */
+    public static long computeLuma(@NonNull ByteBuffer plane, int width, int height, int rowStride, int pixelStride) {
+        double[] grid = new double[GRID_WIDTH * GRID_HEIGHT];
+        for (int gy = 0; gy < GRID_HEIGHT; gy++) {
+            int y0 = gy * height / GRID_HEIGHT;
+            int y1 = Math.max(y0 + 1, (gy + 1) * height / GRID_HEIGHT);
+            int stepY = Math.max(1, (y1 - y0) / LUMA_SAMPLES_PER_CELL);
+            for (int gx = 0; gx < GRID_WIDTH; gx++) {
+                int x0 = gx * width / GRID_WIDTH;
+                int x1 = Math.max(x0 + 1, (gx + 1) * width / GRID_WIDTH);
+                int stepX = Math.max(1, (x1 - x0) / LUMA_SAMPLES_PER_CELL);
+                long sum = 0;
+                int count = 0;
+                for (int y = y0; y < y1; y += stepY) {
+                    int row = y * rowStride;
+                    for (int x = x0; x < x1; x += stepX) {
+                        sum += plane.get(row + x * pixelStride) & 0xFF;
+                        count++;
+                    }
+                }
+                grid[gy * GRID_WIDTH + gx] = (double) sum / count;
+            }
+        }
+        return hashGrid(grid);
+    }
+
+    private static long hashGrid(@NonNull double[] grid) {
+        long hash = 0L;
+        for (int gy = 0; gy < GRID_HEIGHT; gy++) {
+            for (int gx = 0; gx < GRID_WIDTH - 1; gx++) {
+                hash <<= 1;
+                if (grid[gy * GRID_WIDTH + gx] > grid[gy * GRID_WIDTH + gx + 1]) {
+                    hash |= 1L;
+                }
+            }
+        }
+        return hash;
+    }
+
+    public static int distance(long a, long b) {
+        return Long.bitCount(a ^ b);
+    }
+
+    // Integer Rec. 601 luma
+    private static int luma(int argb) {
+        int r = (argb >> 16) & 0xFF;
+        int g = (argb >> 8) & 0xFF;
+        int b = argb & 0xFF;
+        return (299 * r + 587 * g + 114 * b) / 1000;
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.argosapp.scan;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.argosapp.data.ULDReport;
+import com.example.argosapp.data.YoloDetection;
+import com.example.argosapp.yolo.DetectorInput;
+
+import java.util.Collections;
+import java.util.List;
+
+// Immutable state of one scan as it moves through ScanPipeline; each stage returns an updated copy
+public final class ScanContext {
+
+    private final long scanId;
+    private final String uldId;
+    @Nullable
+    private final Uri imageUri;
+    private final long startedAt;
+    private final boolean batched;
+    private final boolean forceRescan;
+    // Shared by all copies, so every stage adds to the same trace
+    private final ScanTrace trace;
+
+    // Filled in by the stages; only ever assigned on a fresh copy, never after it is handed on
+    @Nullable
+    private Uri thumbnailUri;
+    @Nullable
+    private DetectorInput detectorInput;
+    private List<YoloDetection> detections = Collections.emptyList();
+    private String yoloFindings = "";
+    @Nullable
+    private ULDReport report;
+    private long perceptualHash;
+    private boolean hasPerceptualHash;
+    private boolean fromCache;
+    private boolean reportFromCache;
+    private boolean liveDetections;
+
+    private ScanContext(long scanId,
+                        @NonNull String uldId,
+                        @Nullable Uri imageUri,
+                        long startedAt,
+                        boolean batched,
+                        boolean forceRescan,
+                        @NonNull ScanTrace trace) {
+        this.scanId = scanId;
+        this.uldId = uldId;
+        this.imageUri = imageUri;
+        this.startedAt = startedAt;
+        this.batched = batched;
+        this.forceRescan = forceRescan;
+        this.trace = trace;
+    }
+
+    @NonNull
+    private ScanContext copy() {
+        ScanContext copy = new ScanContext(scanId, uldId, imageUri, startedAt, batched, forceRescan, trace);
+        copy.thumbnailUri = thumbnailUri;
+        copy.detectorInput = detectorInput;
+        copy.detections = detections;
+        copy.yoloFindings = yoloFindings;
+        copy.report = report;
+        copy.perceptualHash = perceptualHash;
+        copy.hasPerceptualHash = hasPerceptualHash;
+        copy.fromCache = fromCache;
+        copy.reportFromCache = reportFromCache;
+        copy.liveDetections = liveDetections;
+        return copy;
+    }
+
+    @NonNull
+    public static ScanContext forCapture(long scanId,
+                                         @NonNull String uldId,
+                                         @Nullable Uri imageUri,
+                                         boolean batched,
+                                         boolean forceRescan) {
+        long now = System.currentTimeMillis();
+        return new ScanContext(scanId, uldId, imageUri, now, batched, forceRescan, new ScanTrace(scanId, now));
+    }
+
+    @NonNull
+    public static ScanContext forFindings(long scanId, @NonNull String uldId, @NonNull String yoloFindings) {
+        long now = System.currentTimeMillis();
+        ScanContext context = new ScanContext(scanId, uldId, null, now, false, false, new ScanTrace(scanId, now));
+        context.yoloFindings = yoloFindings;
+        return context;
+    }
+
+    @NonNull
+    public ScanContext withDetectorInput(@Nullable DetectorInput detectorInput) {
+        ScanContext copy = copy();
+        copy.detectorInput = detectorInput;
+        return copy;
+    }
+
+    // Detections already drawn over the live preview for this frame; the input stays for the decode stage
+    @NonNull
+    public ScanContext withLiveDetections(@NonNull List<YoloDetection> detections) {
+        ScanContext copy = copy();
+        copy.detections = Collections.unmodifiableList(detections);
+        copy.liveDetections = true;
+        return copy;
+    }
+
+    // Detection is the last consumer of the decoded image, so the detect stage drops it from the context
+    @NonNull
+    public ScanContext withDetections(@NonNull List<YoloDetection> detections, @NonNull String yoloFindings) {
+        ScanContext copy = copy();
+        copy.detectorInput = null;
+        copy.detections = Collections.unmodifiableList(detections);
+        copy.yoloFindings = yoloFindings;
+        return copy;
+    }
+
+    @NonNull
+    public ScanContext withThumbnail(@Nullable Uri thumbnailUri) {
+        ScanContext copy = copy();
+        copy.thumbnailUri = thumbnailUri;
+        return copy;
+    }
+
+    @NonNull
+    public ScanContext withReport(@NonNull ULDReport report) {
+        ScanContext copy = copy();
+        copy.report = report;
+        return copy;
+    }
+
+    @NonNull
+    public ScanContext withPerceptualHash(long perceptualHash) {
+        ScanContext copy = copy();
+        copy.perceptualHash = perceptualHash;
+        copy.hasPerceptualHash = true;
+        return copy;
+    }
+
+    // Completes the scan from a recent near-identical capture; detect and analyze are skipped
+    @NonNull
+    public ScanContext withCachedResult(@NonNull DetectionCache.Entry entry) {
+        ScanContext copy = withDetections(entry.getDetections(), entry.getYoloFindings());
+        copy.report = entry.getReport().withUldId(uldId);
+        copy.fromCache = true;
+        return copy;
+    }
+
+    // A report answered by the analysis cache instead of the backend
+    @NonNull
+    public ScanContext withCachedReport(@NonNull ULDReport report) {
+        ScanContext copy = copy();
+        copy.report = report;
+        copy.reportFromCache = true;
+        return copy;
+    }
+
+    public long getScanId() {
+        return scanId;
+    }
+
+    @NonNull
+    public String getUldId() {
+        return uldId;
+    }
+
+    @Nullable
+    public Uri getImageUri() {
+        return imageUri;
+    }
+
+    // Small preview written at capture time for history cards
+    @Nullable
+    public Uri getThumbnailUri() {
+        return thumbnailUri;
+    }
+
+    @Nullable
+    public DetectorInput getDetectorInput() {
+        return detectorInput;
+    }
+
+    @NonNull
+    public List<YoloDetection> getDetections() {
+        return detections;
+    }
+
+    @NonNull
+    public String getYoloFindings() {
+        return yoloFindings;
+    }
+
+    @Nullable
+    public ULDReport getReport() {
+        return report;
+    }
+
+    public long getStartedAt() {
+        return startedAt;
+    }
+
+    @NonNull
+    public ScanTrace getTrace() {
+        return trace;
+    }
+
+    // Batched scans skip the per-scan analyze call and are sent through BatchSession instead
+    public boolean isBatched() {
+        return batched;
+    }
+
+    // Set when the inspector asked to bypass the result caches for this capture
+    public boolean isForceRescan() {
+        return forceRescan;
+    }
+
+    public boolean hasPerceptualHash() {
+        return hasPerceptualHash;
+    }
+
+    public long getPerceptualHash() {
+        return perceptualHash;
+    }
+
+    // Detection and analysis were both skipped for a near-duplicate capture
+    public boolean isFromCache() {
+        return fromCache;
+    }
+
+    // The frame was committed from live preview with its detections, so the detect stage reuses them
+    public boolean hasLiveDetections() {
+        return liveDetections;
+    }
+
+    // Only the analyze call was skipped, because the same findings were analyzed recently
+    public boolean isReportFromCache() {
+        return reportFromCache;
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.argosapp.scan;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.WorkerThread;
+
+import com.example.argosapp.data.ServerTiming;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the most recent finished scan traces in memory and summarizes them as per-stage percentiles,
+ * plus per-endpoint percentiles of the backend calls they made. Nothing is persisted;
+ * {@link #exportTo} writes the window to a file for offline analysis.
+ */
+public final class ScanMetrics {
+
+    private final ScanTrace[] window;
+    private int next;
+    private int size;
+    private long recorded;
+
+    public ScanMetrics(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        window = new ScanTrace[capacity];
+    }
+
+    /**
+     * Finishes {@code trace} and adds it to the window, evicting the oldest trace when full.
+     *
+     * @return false when the trace had already been recorded
+     */
+    public boolean record(@NonNull ScanTrace trace, @NonNull ScanTrace.Outcome fallback) {
+        if (!trace.finish(fallback)) {
+            return false;
+        }
+        synchronized (this) {
+            window[next] = trace;
+            next = (next + 1) % window.length;
+            size = Math.min(size + 1, window.length);
+            recorded++;
+        }
+        return true;
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        List<ScanTrace> traces = traces();
+        Map<ScanTrace.Stage, Percentiles> stages = new EnumMap<>(ScanTrace.Stage.class);
+        long[] durations = new long[traces.size()];
+        for (ScanTrace.Stage stage : ScanTrace.Stage.values()) {
+            int count = 0;
+            for (ScanTrace trace : traces) {
+                if (trace.hasStage(stage)) {
+                    durations[count++] = trace.getStageNanos(stage);
+                }
+            }
+            stages.put(stage, Percentiles.of(durations, count));
+        }
+        // End to end only means something for scans that went all the way through
+        int count = 0;
+        long[] queued = new long[traces.size()];
+        Map<ScanTrace.Outcome, Integer> outcomes = new EnumMap<>(ScanTrace.Outcome.class);
+        Map<String, List<ScanTrace.Exchange>> exchanges = new TreeMap<>();
+        int remoteWarm = 0;
+        int remoteCold = 0;
+        for (ScanTrace trace : traces) {
+            Boolean warm = trace.getRemoteWarm();
+            if (warm != null) {
+                if (warm) {
+                    remoteWarm++;
+                } else {
+                    remoteCold++;
+                }
+            }
+            ScanTrace.Outcome outcome = trace.getOutcome();
+            if (outcome == ScanTrace.Outcome.COMPLETED) {
+                queued[count] = trace.getQueueNanos();
+                durations[count++] = trace.getTotalNanos();
+            }
+            if (outcome != null) {
+                Integer previous = outcomes.get(outcome);
+                outcomes.put(outcome, previous == null ? 1 : previous + 1);
+            }
+            for (ScanTrace.Exchange exchange : trace.getExchanges()) {
+                List<ScanTrace.Exchange> group = exchanges.get(exchange.endpoint);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    exchanges.put(exchange.endpoint, group);
+                }
+                group.add(exchange);
+            }
+        }
+        Map<String, EndpointStats> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, List<ScanTrace.Exchange>> entry : exchanges.entrySet()) {
+            endpoints.put(entry.getKey(), EndpointStats.of(entry.getValue()));
+        }
+        long total;
+        synchronized (this) {
+            total = recorded;
+        }
+        return new Snapshot(stages, Percentiles.of(durations, count), Percentiles.of(queued, count),
+                endpoints, outcomes, remoteWarm, remoteCold, total);
+    }
+
+    /**
+     * Writes the traces in the window, oldest first, as JSON Lines: one object per scan with its
+     * outcome, detector, bytes, each stage's start offset and duration in milliseconds, and each
+     * backend call with its request ID, so a slow scan can be looked up in the server logs.
+     *
+     * @return the number of traces written
+     */
+    @WorkerThread
+    public int exportTo(@NonNull File file) throws IOException {
+        List<ScanTrace> traces = traces();
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file),
+                StandardCharsets.UTF_8))) {
+            for (ScanTrace trace : traces) {
+                JsonWriter json = new JsonWriter(writer);
+                writeTrace(json, trace);
+                json.flush();
+                writer.write('\n');
+            }
+        }
+        return traces.size();
+    }
+
+    @NonNull
+    private synchronized List<ScanTrace> traces() {
+        List<ScanTrace> traces = new ArrayList<>(size);
+        int start = (next - size + window.length) % window.length;
+        for (int i = 0; i < size; i++) {
+            traces.add(window[(start + i) % window.length]);
+        }
+        return traces;
+    }
+
+    private static void writeTrace(@NonNull JsonWriter out, @NonNull ScanTrace trace) throws IOException {
+        out.beginObject();
+        out.name("scan_id").value(trace.getScanId());
+        out.name("started_at").value(trace.getStartedAtMillis());
+        ScanTrace.Outcome outcome = trace.getOutcome();
+        out.name("outcome").value(outcome != null ? outcome.name().toLowerCase(Locale.US) : null);
+        out.name("detector").value(trace.getDetector() != null
+                ? trace.getDetector().name().toLowerCase(Locale.US) : null);
+        Boolean warm = trace.getRemoteWarm();
+        if (warm != null) {
+            out.name("remote_backend").value(warm ? "warm" : "cold");
+        }
+        out.name("bytes_sent").value(trace.getBytesSent());
+        out.name("bytes_received").value(trace.getBytesReceived());
+        out.name("total_ms").value(toMillis(trace.getTotalNanos()));
+        out.name("queue_ms").value(toMillis(trace.getQueueNanos()));
+        out.name("stages").beginObject();
+        for (ScanTrace.Stage stage : ScanTrace.Stage.values()) {
+            if (!trace.hasStage(stage)) {
+                continue;
+            }
+            out.name(stage.name().toLowerCase(Locale.US)).beginObject();
+            out.name("start_ms").value(toMillis(trace.getStageOffsetNanos(stage)));
+            out.name("duration_ms").value(toMillis(trace.getStageNanos(stage)));
+            out.endObject();
+        }
+        out.endObject();
+        out.name("exchanges").beginArray();
+        for (ScanTrace.Exchange exchange : trace.getExchanges()) {
+            out.beginObject();
+            out.name("endpoint").value(exchange.endpoint);
+            out.name("request_id").value(exchange.requestId);
+            out.name("code").value(exchange.code);
+            out.name("client_ms").value(toMillis(exchange.clientNanos));
+            long network = exchange.getNetworkNanos();
+            if (network >= 0) {
+                out.name("network_ms").value(toMillis(network));
+            }
+            out.name("server_timing").beginObject();
+            for (Map.Entry<String, Double> metric : exchange.serverTiming.asMap().entrySet()) {
+                out.name(metric.getKey()).value(metric.getValue());
+            }
+            out.endObject();
+            out.endObject();
+        }
+        out.endArray();
+        out.endObject();
+    }
+
+    private static double toMillis(long nanos) {
+        // Microsecond resolution is plenty and keeps the export readable
+        return Math.round(nanos / 1_000d) / 1_000d;
+    }
+
+    public static final class Percentiles {
+        public final int count;
+        // Nanoseconds; -1 when count is 0
+        public final long p50;
+        public final long p95;
+        public final long p99;
+
+        private Percentiles(int count, long p50, long p95, long p99) {
+            this.count = count;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+        }
+
+        // Nearest-rank percentiles over the first count values; sorts them in place
+        @NonNull
+        static Percentiles of(@NonNull long[] values, int count) {
+            if (count == 0) {
+                return new Percentiles(0, -1L, -1L, -1L);
+            }
+            Arrays.sort(values, 0, count);
+            return new Percentiles(count, rank(values, count, 50), rank(values, count, 95), rank(values, count, 99));
+        }
+
+        private static long rank(@NonNull long[] sorted, int count, int percentile) {
+            int index = (count * percentile + 99) / 100 - 1;
+            return sorted[Math.max(0, index)];
+        }
+    }
+
+    // Backend calls to one endpoint: the client's round trip, the network share of it, and each
+    // metric the server reported in Server-Timing
+    public static final class EndpointStats {
+        @NonNull
+        public final Percentiles client;
+        @NonNull
+        public final Percentiles network;
+        private final Map<String, Percentiles> server;
+
+        private EndpointStats(@NonNull Percentiles client, @NonNull Percentiles network,
+                              @NonNull Map<String, Percentiles> server) {
+            this.client = client;
+            this.network = network;
+            this.server = server;
+        }
+
+        @NonNull
+        static EndpointStats of(@NonNull List<ScanTrace.Exchange> exchanges) {
+            long[] values = new long[exchanges.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = exchanges.get(i).clientNanos;
+            }
+            Percentiles client = Percentiles.of(values, values.length);
+            int count = 0;
+            for (ScanTrace.Exchange exchange : exchanges) {
+                long network = exchange.getNetworkNanos();
+                if (network >= 0) {
+                    values[count++] = network;
+                }
+            }
+            Percentiles network = Percentiles.of(values, count);
+            // Metrics in the order the server first reported them, total last
+            Map<String, Percentiles> server = new LinkedHashMap<>();
+            for (ScanTrace.Exchange exchange : exchanges) {
+                for (String metric : exchange.serverTiming.asMap().keySet()) {
+                    if (!server.containsKey(metric) && !metric.equals(ServerTiming.TOTAL)) {
+                        server.put(metric, metricPercentiles(exchanges, metric, values));
+                    }
+                }
+            }
+            server.put(ServerTiming.TOTAL, metricPercentiles(exchanges, ServerTiming.TOTAL, values));
+            return new EndpointStats(client, network, Collections.unmodifiableMap(server));
+        }
+
+        @NonNull
+        private static Percentiles metricPercentiles(@NonNull List<ScanTrace.Exchange> exchanges,
+                                                     @NonNull String metric, @NonNull long[] scratch) {
+            int count = 0;
+            for (ScanTrace.Exchange exchange : exchanges) {
+                long nanos = exchange.getServerNanos(metric);
+                if (nanos >= 0) {
+                    scratch[count++] = nanos;
+                }
+            }
+            return Percentiles.of(scratch, count);
+        }
+
+        // Server-Timing metrics seen for this endpoint, e.g. llm, db or inference, then total
+        @NonNull
+        public Map<String, Percentiles> getServer() {
+            return server;
+        }
+    }
+
+    public static final class Snapshot {
+        private final Map<ScanTrace.Stage, Percentiles> stages;
+        private final Percentiles total;
+        private final Percentiles queue;
+        private final Map<String, EndpointStats> endpoints;
+        private final Map<ScanTrace.Outcome, Integer> outcomes;
+        private final int remoteWarm;
+        private final int remoteCold;
+        private final long recorded;
+
+        Snapshot(@NonNull Map<ScanTrace.Stage, Percentiles> stages,
+                 @NonNull Percentiles total,
+                 @NonNull Percentiles queue,
+                 @NonNull Map<String, EndpointStats> endpoints,
+                 @NonNull Map<ScanTrace.Outcome, Integer> outcomes,
+                 int remoteWarm,
+                 int remoteCold,
+                 long recorded) {
+            this.stages = stages;
+            this.total = total;
+            this.queue = queue;
+            this.endpoints = endpoints;
+            this.outcomes = outcomes;
+            this.remoteWarm = remoteWarm;
+            this.remoteCold = remoteCold;
+            this.recorded = recorded;
+        }
+
+        @NonNull
+        public Percentiles get(@NonNull ScanTrace.Stage stage) {
+            return stages.get(stage);
+        }
+
+        // Submission to history, completed scans only
+        @NonNull
+        public Percentiles getTotal() {
+            return total;
+        }
+
+        // Waiting between stages, completed scans only
+        @NonNull
+        public Percentiles getQueue() {
+            return queue;
+        }
+
+        // Keyed by request path, in alphabetical order
+        @NonNull
+        public Map<String, EndpointStats> getEndpoints() {
+            return endpoints;
+        }
+
+        // Scans in the current window that ended this way
+        public int getOutcomeCount(@NonNull ScanTrace.Outcome outcome) {
+            Integer count = outcomes.get(outcome);
+            return count != null ? count : 0;
+        }
+
+        // Scans in the window that called the hosted detector while it was known to be awake, or not
+        public int getRemoteScanCount(boolean warm) {
+            return warm ? remoteWarm : remoteCold;
+        }
+
+        // Every trace recorded since launch, including those already out of the window
+        public long getRecorded() {
+            return recorded;
+        }
+    }
+}
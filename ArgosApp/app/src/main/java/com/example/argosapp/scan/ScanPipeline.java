@@ -0,0 +1,248 @@
+package com.example.argosapp.scan;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs scans through decode -> detect -> analyze -> persist, one thread per stage, so scan N+1 can be
+ * detected while scan N is still waiting on the backend.
+ *
+ * Every stage has a bounded queue. New scans are refused when the first stage is full, and a stage
+ * that finishes work blocks until the next stage has room, which pushes backpressure upstream.
+ */
+public final class ScanPipeline {
+
+    private static final String TAG = "ScanPipeline";
+
+    public enum Stage {
+        DECODE,
+        DETECT,
+        ANALYZE,
+        PERSIST
+    }
+
+    public interface StageHandler {
+        // Returns the updated context, or null to end the scan at this stage
+        @Nullable
+        ScanContext process(@NonNull ScanContext context) throws Exception;
+    }
+
+    public interface Listener {
+        void onStageFailed(@NonNull ScanContext context, @NonNull Stage stage, @NonNull Exception error);
+
+        void onMetricsChanged(@NonNull Snapshot snapshot);
+
+        // The scan left the pipeline: completed after the last stage, or ended early at stage
+        void onScanEnded(@NonNull ScanContext context, @NonNull Stage stage, boolean completed);
+    }
+
+    private final Map<Stage, StageWorker> workers = new EnumMap<>(Stage.class);
+    private final Listener listener;
+
+    public ScanPipeline(@NonNull Map<Stage, StageHandler> handlers,
+                        int queueCapacity,
+                        @NonNull Listener listener) {
+        this.listener = listener;
+        for (Stage stage : Stage.values()) {
+            StageHandler handler = handlers.get(stage);
+            if (handler == null) {
+                throw new IllegalArgumentException("Missing handler for stage " + stage);
+            }
+            workers.put(stage, new StageWorker(stage, handler, queueCapacity));
+        }
+    }
+
+    /**
+     * Enqueues a scan at {@code entry} without blocking the caller.
+     *
+     * @return false when that stage's queue is full and the scan was not accepted
+     */
+    public boolean submit(@NonNull Stage entry, @NonNull ScanContext context) {
+        StageWorker worker = workers.get(entry);
+        try {
+            worker.executor.execute(() -> worker.run(context));
+        } catch (RejectedExecutionException e) {
+            return false;
+        } finally {
+            publishMetrics();
+        }
+        return true;
+    }
+
+    /**
+     * Enqueues a scan at {@code entry}, waiting for room if that stage is full. Used to re-inject
+     * results produced outside the pipeline, e.g. by a batch upload.
+     */
+    public void submitBlocking(@NonNull Stage entry, @NonNull ScanContext context) {
+        enqueue(workers.get(entry), context);
+        publishMetrics();
+    }
+
+    @NonNull
+    public Snapshot snapshot() {
+        Map<Stage, StageStats> stats = new EnumMap<>(Stage.class);
+        for (Map.Entry<Stage, StageWorker> entry : workers.entrySet()) {
+            StageWorker worker = entry.getValue();
+            stats.put(entry.getKey(), new StageStats(
+                    worker.executor.getQueue().size(),
+                    worker.executor.getActiveCount(),
+                    worker.completed.get(),
+                    worker.failed.get(),
+                    worker.totalNanos.get()
+            ));
+        }
+        return new Snapshot(stats);
+    }
+
+    public void shutdown() {
+        for (StageWorker worker : workers.values()) {
+            worker.executor.shutdownNow();
+        }
+    }
+
+    private void handOff(@NonNull Stage from, @NonNull ScanContext context) {
+        int next = from.ordinal() + 1;
+        if (next >= Stage.values().length) {
+            return;
+        }
+        enqueue(workers.get(Stage.values()[next]), context);
+    }
+
+    private void enqueue(@NonNull StageWorker worker, @NonNull ScanContext context) {
+        ThreadPoolExecutor executor = worker.executor;
+        if (executor.isShutdown()) {
+            return;
+        }
+        try {
+            // Blocking put instead of execute(): a full downstream queue stalls this stage
+            executor.getQueue().put(() -> worker.run(context));
+            if (executor.getPoolSize() == 0) {
+                executor.prestartCoreThread();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void publishMetrics() {
+        listener.onMetricsChanged(snapshot());
+    }
+
+    private final class StageWorker {
+        final Stage stage;
+        final StageHandler handler;
+        final ThreadPoolExecutor executor;
+        final AtomicLong completed = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong totalNanos = new AtomicLong();
+
+        StageWorker(@NonNull Stage stage, @NonNull StageHandler handler, int queueCapacity) {
+            this.stage = stage;
+            this.handler = handler;
+            this.executor = new ThreadPoolExecutor(
+                    1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(runnable, "scan-" + stage.name().toLowerCase(Locale.US));
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            );
+            this.executor.prestartCoreThread();
+        }
+
+        void run(@NonNull ScanContext context) {
+            long start = System.nanoTime();
+            ScanTrace.Stage traceStage = traceStage(stage);
+            context.getTrace().begin(traceStage);
+            ScanContext next = null;
+            try {
+                next = handler.process(context);
+                completed.incrementAndGet();
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                Log.e(TAG, "Stage " + stage + " failed for scan " + context.getScanId(), e);
+                listener.onStageFailed(context, stage, e);
+            } finally {
+                totalNanos.addAndGet(System.nanoTime() - start);
+                context.getTrace().end(traceStage);
+            }
+            boolean last = stage.ordinal() == Stage.values().length - 1;
+            if (next != null) {
+                handOff(stage, next);
+            }
+            if (next == null || last) {
+                listener.onScanEnded(next != null ? next : context, stage, next != null);
+            }
+            publishMetrics();
+        }
+    }
+
+    @NonNull
+    private static ScanTrace.Stage traceStage(@NonNull Stage stage) {
+        switch (stage) {
+            case DECODE:
+                return ScanTrace.Stage.DECODE;
+            case DETECT:
+                return ScanTrace.Stage.DETECT;
+            case ANALYZE:
+                return ScanTrace.Stage.ANALYZE;
+            case PERSIST:
+            default:
+                return ScanTrace.Stage.PERSIST;
+        }
+    }
+
+    public static final class StageStats {
+        public final int queued;
+        public final int active;
+        public final long completed;
+        public final long failed;
+        public final long totalNanos;
+
+        StageStats(int queued, int active, long completed, long failed, long totalNanos) {
+            this.queued = queued;
+            this.active = active;
+            this.completed = completed;
+            this.failed = failed;
+            this.totalNanos = totalNanos;
+        }
+
+        public int getDepth() {
+            return queued + active;
+        }
+    }
+
+    public static final class Snapshot {
+        private final Map<Stage, StageStats> stats;
+
+        Snapshot(@NonNull Map<Stage, StageStats> stats) {
+            this.stats = stats;
+        }
+
+        @NonNull
+        public StageStats get(@NonNull Stage stage) {
+            return stats.get(stage);
+        }
+
+        // Scans accepted but not yet persisted, across all stages
+        public int getInFlight() {
+            int total = 0;
+            for (StageStats stageStats : stats.values()) {
+                total += stageStats.getDepth();
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.example.argosapp.scan;
+
+import android.os.Trace;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.argosapp.data.NetworkModule;
+import com.example.argosapp.data.ServerTiming;
+import com.example.argosapp.yolo.DetectionTrace;
+import com.example.argosapp.yolo.DetectorMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * Latency breakdown of one scan: when each stage started and ended (System.nanoTime, so immune to
+ * wall-clock changes), bytes exchanged with the backends, and which detector answered. Pipeline
+ * stages and the history write are also emitted as trace sections, so they show up in Perfetto.
+ * Each backend call is kept as an {@link Exchange} with its request ID and the server's own timing,
+ * which splits the wait into network, queueing and server work.
+ *
+ * A trace is shared by every copy of its ScanContext. It is written by one stage thread at a time
+ * and frozen by {@link #finish}; anything recorded after that is ignored.
+ */
+public final class ScanTrace implements DetectionTrace {
+
+    public enum Stage {
+        DECODE,
+        DETECT,
+        // Nested in DETECT, and only when the remote detector ran
+        JPEG_ENCODE(true),
+        UPLOAD(true),
+        REMOTE_INFERENCE(true),
+        ANALYZE,
+        PERSIST,
+        HISTORY_WRITE;
+
+        private final boolean nested;
+
+        Stage() {
+            this(false);
+        }
+
+        Stage(boolean nested) {
+            this.nested = nested;
+        }
+
+        @NonNull
+        String sectionName() {
+            return "scan:" + name().toLowerCase(Locale.US);
+        }
+    }
+
+    public enum Outcome {
+        // Reached history
+        COMPLETED,
+        // Handed to a BatchSession; the batch's round trip is not part of this trace
+        BATCHED,
+        // Analysis deferred to the outbox
+        QUEUED,
+        FAILED,
+        // Ended early without an error, e.g. a photo that could not be read
+        DROPPED
+    }
+
+    private static final int STAGE_COUNT = Stage.values().length;
+
+    private final long scanId;
+    private final long startedAtMillis;
+    private final long createdNanos;
+    private final long[] startNanos = new long[STAGE_COUNT];
+    private final long[] endNanos = new long[STAGE_COUNT];
+    private long bytesSent;
+    private long bytesReceived;
+    private final List<Exchange> exchanges = new ArrayList<>(2);
+    @Nullable
+    private DetectorMode detector;
+    @Nullable
+    private Boolean remoteWarm;
+    @Nullable
+    private Outcome outcome;
+    private long finishedNanos;
+
+    ScanTrace(long scanId, long startedAtMillis) {
+        this.scanId = scanId;
+        this.startedAtMillis = startedAtMillis;
+        this.createdNanos = System.nanoTime();
+    }
+
+    // Must be paired with end() on the same thread, as trace sections require
+    public void begin(@NonNull Stage stage) {
+        Trace.beginSection(stage.sectionName());
+        synchronized (this) {
+            if (finishedNanos == 0) {
+                startNanos[stage.ordinal()] = System.nanoTime();
+            }
+        }
+    }
+
+    public void end(@NonNull Stage stage) {
+        synchronized (this) {
+            if (finishedNanos == 0 && startNanos[stage.ordinal()] != 0) {
+                endNanos[stage.ordinal()] = System.nanoTime();
+            }
+        }
+        Trace.endSection();
+    }
+
+    /**
+     * Keeps the call's request ID and Server-Timing, and counts the request body and, when the
+     * server declared its length, the response body. The times bracket the whole call as the
+     * caller saw it, reading a streamed body included.
+     */
+    public void addExchange(@NonNull Response raw, long startNanos, long endNanos) {
+        recordExchange(raw, startNanos, endNanos);
+        RequestBody requestBody = raw.request().body();
+        long sent = 0;
+        if (requestBody != null) {
+            try {
+                sent = Math.max(0, requestBody.contentLength());
+            } catch (IOException e) {
+                // Streaming bodies may not know their length; count nothing rather than guess
+            }
+        }
+        ResponseBody responseBody = raw.body();
+        addBytes(sent, responseBody != null ? responseBody.contentLength() : -1L);
+    }
+
+    // The first outcome set wins, so a specific one is not overwritten by a generic fallback
+    public synchronized void setOutcome(@NonNull Outcome outcome) {
+        if (finishedNanos == 0 && this.outcome == null) {
+            this.outcome = outcome;
+        }
+    }
+
+    @Override
+    public synchronized void onDetectorUsed(@NonNull DetectorMode backend) {
+        if (finishedNanos == 0) {
+            detector = backend;
+        }
+    }
+
+    @Override
+    public synchronized void onRemoteStarted(boolean backendWarm) {
+        if (finishedNanos == 0) {
+            remoteWarm = backendWarm;
+        }
+    }
+
+    @Override
+    public void onJpegEncoded(long startNanos, long endNanos) {
+        record(Stage.JPEG_ENCODE, startNanos, endNanos);
+    }
+
+    @Override
+    public void onUploaded(long startNanos, long endNanos, long bytesSent) {
+        record(Stage.UPLOAD, startNanos, endNanos);
+        addBytes(bytesSent, 0);
+    }
+
+    @Override
+    public void onRemoteResponse(long startNanos, long endNanos, long bytesReceived) {
+        record(Stage.REMOTE_INFERENCE, startNanos, endNanos);
+        addBytes(0, bytesReceived);
+    }
+
+    @Override
+    public void onExchange(long startNanos, long endNanos, @NonNull Response raw) {
+        recordExchange(raw, startNanos, endNanos);
+    }
+
+    /**
+     * Freezes the trace; scans that never got a specific outcome are recorded as {@code fallback}.
+     *
+     * @return false when the trace was already finished
+     */
+    synchronized boolean finish(@NonNull Outcome fallback) {
+        if (finishedNanos != 0) {
+            return false;
+        }
+        if (outcome == null) {
+            outcome = fallback;
+        }
+        finishedNanos = System.nanoTime();
+        return true;
+    }
+
+    public long getScanId() {
+        return scanId;
+    }
+
+    public long getStartedAtMillis() {
+        return startedAtMillis;
+    }
+
+    public synchronized boolean hasStage(@NonNull Stage stage) {
+        return endNanos[stage.ordinal()] != 0;
+    }
+
+    // Offset of the stage's start from the moment the scan was submitted
+    public synchronized long getStageOffsetNanos(@NonNull Stage stage) {
+        return hasStage(stage) ? startNanos[stage.ordinal()] - createdNanos : -1L;
+    }
+
+    public synchronized long getStageNanos(@NonNull Stage stage) {
+        return hasStage(stage) ? endNanos[stage.ordinal()] - startNanos[stage.ordinal()] : -1L;
+    }
+
+    // Submission to finish, queueing between stages included; -1 until finished
+    public synchronized long getTotalNanos() {
+        return finishedNanos != 0 ? finishedNanos - createdNanos : -1L;
+    }
+
+    // Time spent waiting for a stage thread rather than in any stage; -1 until finished
+    public synchronized long getQueueNanos() {
+        if (finishedNanos == 0) {
+            return -1L;
+        }
+        long busy = 0;
+        for (Stage stage : Stage.values()) {
+            if (!stage.nested && hasStage(stage)) {
+                busy += getStageNanos(stage);
+            }
+        }
+        return Math.max(0, getTotalNanos() - busy);
+    }
+
+    // Backend calls in the order they completed
+    @NonNull
+    public synchronized List<Exchange> getExchanges() {
+        return Collections.unmodifiableList(new ArrayList<>(exchanges));
+    }
+
+    public synchronized long getBytesSent() {
+        return bytesSent;
+    }
+
+    public synchronized long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    @Nullable
+    public synchronized DetectorMode getDetector() {
+        return detector;
+    }
+
+    // Whether the hosted detector was known to be awake when this scan called it; null if it never did
+    @Nullable
+    public synchronized Boolean getRemoteWarm() {
+        return remoteWarm;
+    }
+
+    @Nullable
+    public synchronized Outcome getOutcome() {
+        return outcome;
+    }
+
+    private synchronized void record(@NonNull Stage stage, long start, long end) {
+        if (finishedNanos == 0) {
+            startNanos[stage.ordinal()] = start;
+            endNanos[stage.ordinal()] = end;
+        }
+    }
+
+    private void recordExchange(@NonNull Response raw, long startNanos, long endNanos) {
+        // The backends echo the ID; fall back to what was sent in case a proxy dropped it
+        String requestId = raw.header(NetworkModule.REQUEST_ID_HEADER);
+        if (requestId == null) {
+            requestId = raw.request().header(NetworkModule.REQUEST_ID_HEADER);
+        }
+        Exchange exchange = new Exchange(raw.request().url().encodedPath(), requestId, raw.code(),
+                endNanos - startNanos, ServerTiming.from(raw));
+        synchronized (this) {
+            if (finishedNanos == 0) {
+                exchanges.add(exchange);
+            }
+        }
+    }
+
+    private synchronized void addBytes(long sent, long received) {
+        if (finishedNanos == 0) {
+            bytesSent += Math.max(0, sent);
+            bytesReceived += Math.max(0, received);
+        }
+    }
+
+    // One HTTP call made for this scan
+    public static final class Exchange {
+        // Request path, e.g. /api/ai/analyze/stream; the unit backend stats are grouped by
+        @NonNull
+        public final String endpoint;
+        @Nullable
+        public final String requestId;
+        public final int code;
+        public final long clientNanos;
+        @NonNull
+        public final ServerTiming serverTiming;
+
+        Exchange(@NonNull String endpoint, @Nullable String requestId, int code, long clientNanos,
+                 @NonNull ServerTiming serverTiming) {
+            this.endpoint = endpoint;
+            this.requestId = requestId;
+            this.code = code;
+            this.clientNanos = clientNanos;
+            this.serverTiming = serverTiming;
+        }
+
+        // The server's own metric in nanoseconds, or -1 when it did not report it
+        public long getServerNanos(@NonNull String metric) {
+            double millis = serverTiming.getMillis(metric);
+            return millis >= 0 ? Math.round(millis * 1_000_000d) : -1L;
+        }
+
+        // Round trip minus the server's total: transfer, TLS and any proxy or platform queue in between
+        public long getNetworkNanos() {
+            long server = getServerNanos(ServerTiming.TOTAL);
+            return server >= 0 ? Math.max(0, clientNanos - server) : -1L;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.argosapp.scan;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+
+// Clean-up shared by the stores that keep scan files under filesDir
+final class StoredFiles {
+
+    private StoredFiles() {
+    }
+
+    /**
+     * Deletes the files in {@code directory} that none of {@code referencedUris} point at and that were
+     * last modified before {@code olderThan}. Files are matched by name, since the same file can be
+     * reached through both /data/data and /data/user/0.
+     */
+    static int deleteUnreferenced(@NonNull File directory, @NonNull Set<String> referencedUris, long olderThan) {
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return 0;
+        }
+        Set<String> referencedNames = new HashSet<>();
+        for (String uri : referencedUris) {
+            String name = Uri.parse(uri).getLastPathSegment();
+            if (name != null) {
+                referencedNames.add(name);
+            }
+        }
+        int deleted = 0;
+        for (File file : files) {
+            if (file.isFile() && file.lastModified() < olderThan
+                    && !referencedNames.contains(file.getName()) && file.delete()) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.argosapp.scan;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.WorkerThread;
+
+import com.example.argosapp.yolo.DetectorInput;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Set;
+
+/**
+ * Writes the small preview shown on history cards. Thumbnails are cut from the detector's letterboxed
+ * bitmap during the decode stage, so producing one costs no extra JPEG decode, and the history list
+ * never has to touch the full-size capture again.
+ */
+public final class ThumbnailStore {
+
+    private static final String TAG = "ThumbnailStore";
+    private static final String DIRECTORY = "thumbnails";
+
+    // Roughly the card's width on a phone; larger screens upscale slightly
+    public static final int THUMBNAIL_EDGE = 480;
+    private static final int QUALITY = 80;
+
+    private final File directory;
+
+    public ThumbnailStore(@NonNull File filesDir) {
+        this.directory = new File(filesDir, DIRECTORY);
+    }
+
+    // Returns a file:// URI to the written thumbnail, or null when it could not be written
+    @WorkerThread
+    @Nullable
+    public Uri write(long scanId, @NonNull DetectorInput input) {
+        Bitmap model = input.getModelBitmap();
+        int contentWidth = Math.min(model.getWidth() - input.getPadX(),
+                Math.round(input.getSourceWidth() * input.getScale()));
+        int contentHeight = Math.min(model.getHeight() - input.getPadY(),
+                Math.round(input.getSourceHeight() * input.getScale()));
+        if (contentWidth <= 0 || contentHeight <= 0) {
+            return null;
+        }
+        float scale = Math.min(1f, (float) THUMBNAIL_EDGE / Math.max(contentWidth, contentHeight));
+        Bitmap cropped = Bitmap.createBitmap(model, input.getPadX(), input.getPadY(), contentWidth, contentHeight);
+        Bitmap thumbnail = scale < 1f
+                ? Bitmap.createScaledBitmap(cropped, Math.round(contentWidth * scale),
+                Math.round(contentHeight * scale), true)
+                : cropped;
+
+        File file = new File(directory, "scan_" + System.currentTimeMillis() + "_" + scanId + ".webp");
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Unable to create " + directory);
+            }
+            try (OutputStream os = new FileOutputStream(file)) {
+                if (!thumbnail.compress(webpFormat(), QUALITY, os)) {
+                    throw new IOException("Thumbnail encoding failed");
+                }
+            }
+            return Uri.fromFile(file);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to write thumbnail for scan " + scanId, e);
+            file.delete();
+            return null;
+        } finally {
+            if (cropped != model) {
+                cropped.recycle();
+            }
+            if (thumbnail != cropped) {
+                thumbnail.recycle();
+            }
+        }
+    }
+
+    // Thumbnails of scans that failed or were dropped before their history row was written. Files
+    // newer than olderThan are kept, since their row may not be written yet.
+    @WorkerThread
+    public int deleteUnreferenced(@NonNull Set<String> referencedUris, long olderThan) {
+        return StoredFiles.deleteUnreferenced(directory, referencedUris, olderThan);
+    }
+
+    @SuppressWarnings("deprecation")
+    @NonNull
+    private static Bitmap.CompressFormat webpFormat() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.R
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+}
@@ -9,26 +9,40 @@ import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
 import androidx.core.graphics.drawable.DrawableCompat;
-import androidx.recyclerview.widget.DiffUtil;
-import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
 import com.example.argosapp.R;
 import com.example.argosapp.databinding.ItemHistoryCardBinding;
+import com.example.argosapp.history.HistoryPager;
 import com.example.argosapp.model.ScanHistoryItem;
+import com.example.argosapp.scan.ThumbnailStore;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 
-class HistoryAdapter extends ListAdapter<ScanHistoryItem, HistoryViewHolder> {
+// Binds rows straight from the pager's loaded window; the fragment forwards its insert events
+class HistoryAdapter extends RecyclerView.Adapter<HistoryViewHolder> {
 
     private final SimpleDateFormat dateFormat =
             new SimpleDateFormat("yyyy-MM-dd HH:mm", Locale.getDefault());
+    private final HistoryPager pager;
 
-    HistoryAdapter() {
-        super(DIFF_CALLBACK);
+    HistoryAdapter(@NonNull HistoryPager pager) {
+        this.pager = pager;
+        setHasStableIds(true);
+    }
+
+    @Override
+    public int getItemCount() {
+        return pager.size();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return pager.get(position).getId();
     }
 
     @NonNull
@@ -41,7 +55,7 @@ class HistoryAdapter extends ListAdapter<ScanHistoryItem, HistoryViewHolder> {
 
     @Override
     public void onBindViewHolder(@NonNull HistoryViewHolder holder, int position) {
-        ScanHistoryItem item = getItem(position);
+        ScanHistoryItem item = pager.get(position);
         ItemHistoryCardBinding binding = holder.binding;
         binding.textUld.setText(item.getUldId());
         binding.textDamageTitle.setText(item.getDamageTitle());
@@ -54,13 +68,23 @@ class HistoryAdapter extends ListAdapter<ScanHistoryItem, HistoryViewHolder> {
 
         applySeverityStyles(binding, item.getSeverityKey());
 
+        String thumbnailUri = item.getThumbnailUri();
         String imageUri = item.getImageUri();
-        if (imageUri != null && !imageUri.isEmpty()) {
+        if (!thumbnailUri.isEmpty()) {
             binding.imagePreview.setScaleType(android.widget.ImageView.ScaleType.CENTER_CROP);
+            // Already small and app-managed, so only Glide's memory cache is worth using
             Glide.with(binding.imagePreview)
-                    .load(Uri.parse(imageUri))
+                    .load(Uri.parse(thumbnailUri))
                     .diskCacheStrategy(DiskCacheStrategy.NONE)
-                    .skipMemoryCache(true)
+                    .placeholder(R.drawable.argos_logo)
+                    .into(binding.imagePreview);
+        } else if (!imageUri.isEmpty()) {
+            binding.imagePreview.setScaleType(android.widget.ImageView.ScaleType.CENTER_CROP);
+            // Scans from before thumbnails existed: cache the downsampled result instead of the original
+            Glide.with(binding.imagePreview)
+                    .load(Uri.parse(imageUri))
+                    .diskCacheStrategy(DiskCacheStrategy.RESOURCE)
+                    .override(ThumbnailStore.THUMBNAIL_EDGE)
                     .placeholder(R.drawable.argos_logo)
                     .into(binding.imagePreview);
         } else {
@@ -113,22 +137,4 @@ class HistoryAdapter extends ListAdapter<ScanHistoryItem, HistoryViewHolder> {
         int blue = android.graphics.Color.blue(color);
         return android.graphics.Color.argb(alpha, red, green, blue);
     }
-
-    private static final DiffUtil.ItemCallback<ScanHistoryItem> DIFF_CALLBACK =
-            new DiffUtil.ItemCallback<ScanHistoryItem>() {
-                @Override
-                public boolean areItemsTheSame(@NonNull ScanHistoryItem oldItem, @NonNull ScanHistoryItem newItem) {
-                    return oldItem.getTimestamp() == newItem.getTimestamp()
-                            && oldItem.getUldId().equals(newItem.getUldId());
-                }
-
-                @Override
-                public boolean areContentsTheSame(@NonNull ScanHistoryItem oldItem, @NonNull ScanHistoryItem newItem) {
-                    return oldItem.getSeverityKey().equals(newItem.getSeverityKey())
-                            && oldItem.getDamageTitle().equals(newItem.getDamageTitle())
-                            && oldItem.getSuggestion().equals(newItem.getSuggestion())
-                            && oldItem.getImageUri().equals(newItem.getImageUri());
-                }
-            };
 }
-
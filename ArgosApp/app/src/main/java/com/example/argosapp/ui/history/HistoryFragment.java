@@ -12,19 +12,23 @@ import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.NavController;
 import androidx.navigation.fragment.NavHostFragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.argosapp.MainViewModel;
 import com.example.argosapp.R;
 import com.example.argosapp.databinding.FragmentHistoryBinding;
-import com.example.argosapp.model.ScanHistoryItem;
+import com.example.argosapp.history.HistoryPager;
 
-import java.util.List;
+public class HistoryFragment extends Fragment implements HistoryPager.Listener {
 
-public class HistoryFragment extends Fragment {
+    // Rows left below the last visible one before the next page is requested
+    private static final int PREFETCH_DISTANCE = 10;
 
     private FragmentHistoryBinding binding;
     private MainViewModel viewModel;
     private HistoryAdapter adapter;
+    private HistoryPager pager;
+    private LinearLayoutManager layoutManager;
 
     @Nullable
     @Override
@@ -38,21 +42,52 @@ public class HistoryFragment extends Fragment {
         super.onViewCreated(view, savedInstanceState);
 
         viewModel = new ViewModelProvider(requireActivity()).get(MainViewModel.class);
-        adapter = new HistoryAdapter();
+        pager = viewModel.getHistoryPager();
+        adapter = new HistoryAdapter(pager);
+        layoutManager = new LinearLayoutManager(requireContext());
 
-        binding.recyclerHistory.setLayoutManager(new LinearLayoutManager(requireContext()));
+        binding.recyclerHistory.setLayoutManager(layoutManager);
         binding.recyclerHistory.setAdapter(adapter);
+        binding.recyclerHistory.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    pager.loadMore();
+                }
+            }
+        });
 
         binding.historyToolbar.setNavigationOnClickListener(v -> navigateTo(R.id.action_historyFragment_to_scanFragment));
         binding.navScanFromHistory.setOnClickListener(v -> navigateTo(R.id.action_historyFragment_to_scanFragment));
         binding.navSettingsFromHistory.setOnClickListener(v -> navigateTo(R.id.action_historyFragment_to_settingsFragment));
 
-        viewModel.history.observe(getViewLifecycleOwner(), this::renderHistory);
+        pager.setListener(this);
+        updateEmptyState();
     }
 
-    private void renderHistory(@NonNull List<ScanHistoryItem> items) {
-        adapter.submitList(items);
-        boolean empty = items.isEmpty();
+    @Override
+    public void onReset() {
+        adapter.notifyDataSetChanged();
+        updateEmptyState();
+    }
+
+    @Override
+    public void onItemsInserted(int position, int count) {
+        boolean atTop = position == 0 && layoutManager.findFirstCompletelyVisibleItemPosition() <= 0;
+        adapter.notifyItemRangeInserted(position, count);
+        if (atTop) {
+            binding.recyclerHistory.scrollToPosition(0);
+        }
+        updateEmptyState();
+    }
+
+    @Override
+    public void onItemChanged(int position) {
+        adapter.notifyItemChanged(position);
+    }
+
+    private void updateEmptyState() {
+        boolean empty = pager.size() == 0 && !pager.isLoading();
         binding.emptyStateContainer.setVisibility(empty ? View.VISIBLE : View.GONE);
         binding.recyclerHistory.setVisibility(empty ? View.GONE : View.VISIBLE);
     }
@@ -65,6 +100,7 @@ public class HistoryFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        pager.setListener(null);
         binding = null;
     }
 }
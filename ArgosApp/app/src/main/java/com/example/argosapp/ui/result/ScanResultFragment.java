@@ -83,6 +83,7 @@ public class ScanResultFragment extends Fragment {
             Glide.with(this)
                     .load(result.getImageUri())
                     .into(binding.imagePreview);
+            binding.overlayDetections.setDetections(result.getDetections(), 0, 0);
         } else {
             binding.cardPreview.setVisibility(View.GONE);
         }
@@ -106,6 +107,9 @@ public class ScanResultFragment extends Fragment {
             itemBinding.textDamageTitle.setText(detail.getTitle());
             itemBinding.textDamageSeverity.setText(detail.getSeverityLabel());
             itemBinding.textDamageSuggestion.setText(detail.getSuggestion());
+            // Per-detection entries carry only a confidence, no suggestion of their own
+            itemBinding.textDamageSuggestion.setVisibility(
+                    TextUtils.isEmpty(detail.getSuggestion()) ? View.GONE : View.VISIBLE);
 
             int color = getSeverityColor(detail.getSeverityKey());
             DrawableCompat.setTint(
@@ -0,0 +1,192 @@
+package com.example.argosapp.ui.scan;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+import androidx.annotation.ColorRes;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.example.argosapp.R;
+import com.example.argosapp.data.DetectionBatch;
+import com.example.argosapp.data.YoloDetection;
+
+import java.util.List;
+
+/**
+ * Draws detection boxes with a "label NN%" tag over an image or camera preview. Detections are copied
+ * into packed primitive arrays when they change, and label text is written into a shared char buffer,
+ * so onDraw itself never allocates; live preview redraws at frame rate without feeding the GC.
+ *
+ * Boxes are normalized to the upright frame. With a known frame size the content is assumed to be
+ * center-cropped into the view (PreviewView's FILL_CENTER, ImageView's centerCrop); without one the
+ * frame is assumed to fill the view exactly.
+ */
+public class DetectionOverlayView extends View {
+
+    // Class ids as produced by the YOLO model: normal, squash, breach; anything else is "unknown"
+    private static final int CLASS_COLORS = 4;
+    private static final int LABEL_MAX_CHARS = 24;
+
+    private final Paint[] boxPaints = new Paint[CLASS_COLORS];
+    private final Paint[] tagPaints = new Paint[CLASS_COLORS];
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+    private final float labelPadding;
+    private final float textAscent;
+    private final float textDescent;
+
+    // Packed detections: boxes as x1, y1, x2, y2 per detection; labels as fixed-width char slots
+    private float[] boxes = new float[0];
+    private int[] paintIndexes = new int[0];
+    private char[] labelChars = new char[0];
+    private int[] labelLengths = new int[0];
+    private float[] labelWidths = new float[0];
+    private int count;
+    private int frameWidth;
+    private int frameHeight;
+
+    public DetectionOverlayView(Context context) {
+        this(context, null);
+    }
+
+    public DetectionOverlayView(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        float density = getResources().getDisplayMetrics().density;
+        int[] colors = {
+                color(context, R.color.severity_green),
+                color(context, R.color.severity_yellow),
+                color(context, R.color.severity_red),
+                color(context, R.color.severity_unknown)
+        };
+        for (int i = 0; i < CLASS_COLORS; i++) {
+            boxPaints[i] = new Paint(Paint.ANTI_ALIAS_FLAG);
+            boxPaints[i].setStyle(Paint.Style.STROKE);
+            boxPaints[i].setStrokeWidth(2.5f * density);
+            boxPaints[i].setColor(colors[i]);
+            tagPaints[i] = new Paint(Paint.ANTI_ALIAS_FLAG);
+            tagPaints[i].setStyle(Paint.Style.FILL);
+            tagPaints[i].setColor(colors[i]);
+        }
+        textPaint.setColor(Color.WHITE);
+        textPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, 12f,
+                getResources().getDisplayMetrics()));
+        Paint.FontMetrics metrics = textPaint.getFontMetrics();
+        textAscent = -metrics.ascent;
+        textDescent = metrics.descent;
+        labelPadding = 4f * density;
+    }
+
+    /**
+     * Replaces the drawn detections. frameWidth/frameHeight are the upright size of the frame the
+     * boxes refer to, or 0 when the frame fills the view. Detections without a box are skipped.
+     */
+    public void setDetections(@NonNull DetectionBatch detections, int frameWidth, int frameHeight) {
+        ensureCapacity(detections.size());
+        float[] source = detections.getBoxes();
+        int n = 0;
+        for (int i = 0, size = detections.size(); i < size; i++) {
+            if (!detections.hasBox(i)) {
+                continue;
+            }
+            System.arraycopy(source, i * 4, boxes, n * 4, 4);
+            int classId = detections.getClassId(i);
+            paintIndexes[n] = classId >= 0 && classId < CLASS_COLORS - 1 ? classId : CLASS_COLORS - 1;
+            labelLengths[n] = writeLabel(n * LABEL_MAX_CHARS, detections.getLabel(i), detections.getScore(i));
+            labelWidths[n] = textPaint.measureText(labelChars, n * LABEL_MAX_CHARS, labelLengths[n]);
+            n++;
+        }
+        count = n;
+        this.frameWidth = frameWidth;
+        this.frameHeight = frameHeight;
+        invalidate();
+    }
+
+    public void setDetections(@NonNull List<YoloDetection> detections, int frameWidth, int frameHeight) {
+        setDetections(DetectionBatch.fromDetections(detections), frameWidth, frameHeight);
+    }
+
+    public void clear() {
+        count = 0;
+        invalidate();
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (count == 0) {
+            return;
+        }
+        float viewWidth = getWidth();
+        float viewHeight = getHeight();
+        float drawnWidth = viewWidth;
+        float drawnHeight = viewHeight;
+        if (frameWidth > 0 && frameHeight > 0) {
+            float scale = Math.max(viewWidth / frameWidth, viewHeight / frameHeight);
+            drawnWidth = frameWidth * scale;
+            drawnHeight = frameHeight * scale;
+        }
+        float offsetX = (viewWidth - drawnWidth) / 2f;
+        float offsetY = (viewHeight - drawnHeight) / 2f;
+        float tagHeight = textAscent + textDescent + 2f * labelPadding;
+
+        for (int i = 0; i < count; i++) {
+            int b = i * 4;
+            float left = offsetX + boxes[b] * drawnWidth;
+            float top = offsetY + boxes[b + 1] * drawnHeight;
+            rect.set(left, top, offsetX + boxes[b + 2] * drawnWidth, offsetY + boxes[b + 3] * drawnHeight);
+            canvas.drawRect(rect, boxPaints[paintIndexes[i]]);
+
+            // Tag sits above the box, or inside it when the box touches the top edge
+            float tagTop = top - tagHeight >= 0f ? top - tagHeight : top;
+            rect.set(left, tagTop, left + labelWidths[i] + 2f * labelPadding, tagTop + tagHeight);
+            canvas.drawRect(rect, tagPaints[paintIndexes[i]]);
+            canvas.drawText(labelChars, i * LABEL_MAX_CHARS, labelLengths[i],
+                    left + labelPadding, tagTop + labelPadding + textAscent, textPaint);
+        }
+    }
+
+    // Grows the packed arrays; steady-state updates with the same or fewer detections reuse them
+    private void ensureCapacity(int detections) {
+        if (paintIndexes.length >= detections) {
+            return;
+        }
+        int capacity = Math.max(detections, paintIndexes.length * 2);
+        boxes = new float[capacity * 4];
+        paintIndexes = new int[capacity];
+        labelChars = new char[capacity * LABEL_MAX_CHARS];
+        labelLengths = new int[capacity];
+        labelWidths = new float[capacity];
+    }
+
+    // Writes "name NN%" into the label slot starting at offset, truncating long class names
+    private int writeLabel(int offset, @Nullable String name, float confidence) {
+        int percent = Math.max(0, Math.min(100, Math.round(confidence * 100f)));
+        int nameLength = name == null ? 0 : Math.min(name.length(), LABEL_MAX_CHARS - 5);
+        if (nameLength > 0) {
+            name.getChars(0, nameLength, labelChars, offset);
+        }
+        int p = offset + nameLength;
+        labelChars[p++] = ' ';
+        if (percent >= 100) {
+            labelChars[p++] = '1';
+        }
+        if (percent >= 10) {
+            labelChars[p++] = (char) ('0' + (percent / 10) % 10);
+        }
+        labelChars[p++] = (char) ('0' + percent % 10);
+        labelChars[p++] = '%';
+        return p - offset;
+    }
+
+    private static int color(@NonNull Context context, @ColorRes int id) {
+        return ContextCompat.getColor(context, id);
+    }
+}
@@ -2,10 +2,9 @@ package com.example.argosapp.ui.scan;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.Size;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,6 +14,13 @@ import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.camera.core.CameraSelector;
+import androidx.camera.core.ImageAnalysis;
+import androidx.camera.core.Preview;
+import androidx.camera.core.resolutionselector.AspectRatioStrategy;
+import androidx.camera.core.resolutionselector.ResolutionSelector;
+import androidx.camera.core.resolutionselector.ResolutionStrategy;
+import androidx.camera.lifecycle.ProcessCameraProvider;
 import androidx.core.content.ContextCompat;
 import androidx.core.content.FileProvider;
 import androidx.fragment.app.Fragment;
@@ -27,23 +33,39 @@ import com.example.argosapp.AppStatus;
 import com.example.argosapp.MainViewModel;
 import com.example.argosapp.R;
 import com.example.argosapp.databinding.FragmentScanBinding;
+import com.example.argosapp.model.ScanResultUiModel;
+import com.example.argosapp.scan.LiveFrameAnalyzer;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
 
 public class ScanFragment extends Fragment {
 
+    // Analysis frames double as the committed still in live mode, so keep them reasonably sharp
+    private static final Size LIVE_ANALYSIS_SIZE = new Size(1280, 960);
+
     private FragmentScanBinding binding;
     private MainViewModel viewModel;
     @Nullable
     private Uri latestTmpUri;
+    // Set by a long-press on capture: the next photo bypasses the near-duplicate result cache
+    private boolean forceNextRescan;
+    // Run once the camera permission is granted: either the system camera or live preview
+    @Nullable
+    private Runnable pendingCameraAction;
+    private boolean liveMode;
+    @Nullable
+    private ProcessCameraProvider cameraProvider;
 
     private final ActivityResultLauncher<String> requestPermissionLauncher =
             registerForActivityResult(new ActivityResultContracts.RequestPermission(), isGranted -> {
-                if (isGranted) {
-                    launchCamera();
-                } else if (isAdded()) {
+                Runnable action = pendingCameraAction;
+                pendingCameraAction = null;
+                if (isGranted && action != null) {
+                    action.run();
+                } else if (!isGranted && isAdded()) {
                     Toast.makeText(requireContext(), R.string.scan_permission_required, Toast.LENGTH_SHORT).show();
                 }
             });
@@ -51,22 +73,12 @@ public class ScanFragment extends Fragment {
     private final ActivityResultLauncher<Uri> takePictureLauncher =
             registerForActivityResult(new ActivityResultContracts.TakePicture(), success -> {
                 if (success && latestTmpUri != null) {
-                    viewModel.setPendingImageUri(latestTmpUri);
-                    try (InputStream is = requireContext().getContentResolver().openInputStream(latestTmpUri)) {
-                        Bitmap bitmap = BitmapFactory.decodeStream(is);
-                        if (bitmap != null) {
-                            viewModel.processImageAndUpload(bitmap);
-                        } else {
-                            viewModel.resetStatus();
-                            showError(getString(R.string.scan_status_error_prefix, getString(R.string.scan_error_read_photo)));
-                        }
-                    } catch (Exception e) {
-                        viewModel.resetStatus();
-                        showError(getString(R.string.scan_status_error_prefix, e.getMessage()));
-                    }
+                    // Decoding happens on the view model's scan pipeline, off the main thread
+                    viewModel.processCapturedImage(latestTmpUri, forceNextRescan);
                 } else {
                     viewModel.resetStatus();
                 }
+                forceNextRescan = false;
             });
 
     @Nullable
@@ -88,7 +100,31 @@ public class ScanFragment extends Fragment {
             binding.textWelcome.setText(getString(R.string.scan_welcome_title, displayName));
         });
 
-        binding.buttonCapture.setOnClickListener(v -> requestCameraPermission());
+        binding.buttonCapture.setOnClickListener(v -> capture(false));
+        binding.buttonCapture.setOnLongClickListener(v -> {
+            Toast.makeText(requireContext(), R.string.scan_force_rescan, Toast.LENGTH_SHORT).show();
+            capture(true);
+            return true;
+        });
+        binding.buttonLiveToggle.setOnClickListener(v -> {
+            if (liveMode) {
+                stopLiveMode();
+            } else {
+                withCameraPermission(this::startLiveMode);
+            }
+        });
+        viewModel.liveDetections.observe(getViewLifecycleOwner(), this::renderLiveDetections);
+        binding.buttonBatchToggle.setOnClickListener(v -> {
+            if (Boolean.TRUE.equals(viewModel.batchMode.getValue())) {
+                viewModel.endBatchSession();
+            } else {
+                viewModel.startBatchSession();
+            }
+        });
+        viewModel.batchMode.observe(getViewLifecycleOwner(), active ->
+                binding.buttonBatchToggle.setText(Boolean.TRUE.equals(active)
+                        ? R.string.scan_batch_finish
+                        : R.string.scan_batch_start));
         binding.buttonProfile.setOnClickListener(v -> navigateTo(R.id.action_scanFragment_to_settingsFragment));
         binding.buttonSimulateGreen.setOnClickListener(v ->
                 viewModel.simulateAndUpload("ULD-GREEN-DEMO", "no damage found, ULD is serviceable"));
@@ -104,11 +140,24 @@ public class ScanFragment extends Fragment {
         viewModel.status.observe(getViewLifecycleOwner(), this::renderStatus);
     }
 
+    @Override
+    public void onStart() {
+        super.onStart();
+        // A scan is likely once this screen is visible; give a sleeping detector a head start
+        viewModel.warmUpDetector();
+    }
+
     private void renderStatus(AppStatus status) {
         if (status instanceof AppStatus.Idle) {
             showIdle();
         } else if (status instanceof AppStatus.Processing) {
             showProcessing(((AppStatus.Processing) status).message);
+        } else if (status instanceof AppStatus.Partial) {
+            ScanResultUiModel partial = ((AppStatus.Partial) status).result;
+            showProcessing(getString(R.string.scan_status_partial,
+                    partial.getSeverityLabel(), partial.getPrimaryDamageTitle()));
+        } else if (status instanceof AppStatus.Queued) {
+            showQueued(((AppStatus.Queued) status).message);
         } else if (status instanceof AppStatus.Error) {
             showError(getString(R.string.scan_status_error_prefix, ((AppStatus.Error) status).message));
         } else if (status instanceof AppStatus.Success) {
@@ -126,12 +175,19 @@ public class ScanFragment extends Fragment {
 
     private void showProcessing(String message) {
         binding.progressIndicator.setVisibility(View.VISIBLE);
-        binding.buttonCapture.setEnabled(false);
+        // Capture stays enabled so the next ULD can be queued while this one is analyzed
+        binding.buttonCapture.setEnabled(true);
         binding.buttonSimulateGreen.setEnabled(false);
         binding.buttonSimulateRed.setEnabled(false);
         binding.textStatus.setText(message);
     }
 
+    // Not a failure: the scan is saved for a background retry and the next ULD can be scanned
+    private void showQueued(String message) {
+        showIdle();
+        binding.textStatus.setText(message);
+    }
+
     private void showError(String message) {
         binding.progressIndicator.setVisibility(View.GONE);
         binding.buttonCapture.setEnabled(true);
@@ -155,16 +211,99 @@ public class ScanFragment extends Fragment {
         viewModel.resetStatus();
     }
 
-    private void requestCameraPermission() {
+    // In live mode the capture button commits the frame on screen instead of opening the camera app
+    private void capture(boolean forceRescan) {
+        if (liveMode) {
+            viewModel.commitLiveFrame(forceRescan);
+            return;
+        }
+        forceNextRescan = forceRescan;
+        withCameraPermission(this::launchCamera);
+    }
+
+    private void withCameraPermission(@NonNull Runnable action) {
         if (ContextCompat.checkSelfPermission(requireContext(), Manifest.permission.CAMERA)
                 == PackageManager.PERMISSION_GRANTED) {
-            launchCamera();
+            action.run();
         } else {
+            pendingCameraAction = action;
             requestPermissionLauncher.launch(Manifest.permission.CAMERA);
         }
     }
 
+    private void startLiveMode() {
+        viewModel.warmUpDetector();
+        ListenableFuture<ProcessCameraProvider> future = ProcessCameraProvider.getInstance(requireContext());
+        future.addListener(() -> {
+            if (binding == null) {
+                return;
+            }
+            try {
+                cameraProvider = future.get();
+            } catch (ExecutionException | InterruptedException e) {
+                showError(getString(R.string.scan_status_error_prefix, e.getMessage()));
+                return;
+            }
+            bindLiveUseCases(cameraProvider);
+        }, ContextCompat.getMainExecutor(requireContext()));
+    }
+
+    private void bindLiveUseCases(@NonNull ProcessCameraProvider provider) {
+        Preview preview = new Preview.Builder().build();
+        preview.setSurfaceProvider(binding.previewLive.getSurfaceProvider());
+        // KEEP_ONLY_LATEST: frames that arrive while the detector is busy are dropped, never queued
+        ImageAnalysis analysis = new ImageAnalysis.Builder()
+                .setBackpressureStrategy(ImageAnalysis.STRATEGY_KEEP_ONLY_LATEST)
+                .setResolutionSelector(new ResolutionSelector.Builder()
+                        .setAspectRatioStrategy(AspectRatioStrategy.RATIO_4_3_FALLBACK_AUTO_STRATEGY)
+                        .setResolutionStrategy(new ResolutionStrategy(LIVE_ANALYSIS_SIZE,
+                                ResolutionStrategy.FALLBACK_RULE_CLOSEST_LOWER_THEN_HIGHER))
+                        .build())
+                .build();
+        LiveFrameAnalyzer analyzer = viewModel.getLiveAnalyzer();
+        analyzer.reset();
+        analysis.setAnalyzer(analyzer.getExecutor(), analyzer);
+        try {
+            provider.unbindAll();
+            provider.bindToLifecycle(getViewLifecycleOwner(), CameraSelector.DEFAULT_BACK_CAMERA, preview, analysis);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            showError(getString(R.string.scan_status_error_prefix, e.getMessage()));
+            return;
+        }
+        liveMode = true;
+        binding.previewLive.setVisibility(View.VISIBLE);
+        binding.overlayLive.setVisibility(View.VISIBLE);
+        binding.imagePreview.setVisibility(View.GONE);
+        binding.viewPreviewPlaceholder.setVisibility(View.GONE);
+        binding.buttonLiveToggle.setText(R.string.scan_live_stop);
+        binding.buttonCapture.setText(R.string.scan_live_confirm);
+        binding.textStatus.setText(viewModel.isLiveDetectionAvailable()
+                ? R.string.scan_status_live
+                : R.string.scan_status_live_no_model);
+    }
+
+    private void stopLiveMode() {
+        if (cameraProvider != null) {
+            cameraProvider.unbindAll();
+        }
+        liveMode = false;
+        binding.previewLive.setVisibility(View.GONE);
+        binding.overlayLive.setVisibility(View.GONE);
+        binding.overlayLive.clear();
+        binding.buttonLiveToggle.setText(R.string.scan_live_start);
+        binding.buttonCapture.setText(R.string.scan_capture_button);
+        renderPreview(viewModel.getLastCapturedImage().getValue());
+    }
+
+    private void renderLiveDetections(@Nullable LiveFrameAnalyzer.Result result) {
+        if (!liveMode || result == null) {
+            return;
+        }
+        binding.overlayLive.setDetections(result.detections, result.frameWidth, result.frameHeight);
+    }
+
     private void launchCamera() {
+        viewModel.warmUpDetector();
         try {
             File photoFile = File.createTempFile("scan_", ".jpg", requireContext().getCacheDir());
             latestTmpUri = FileProvider.getUriForFile(
@@ -187,6 +326,10 @@ public class ScanFragment extends Fragment {
         if (!isAdded() || binding == null) {
             return;
         }
+        if (liveMode) {
+            // The camera preview stays on top until live mode is left
+            return;
+        }
         if (uri == null) {
             binding.imagePreview.setVisibility(View.GONE);
             binding.viewPreviewPlaceholder.setVisibility(View.VISIBLE);
@@ -203,6 +346,9 @@ public class ScanFragment extends Fragment {
     @Override
     public void onDestroyView() {
         super.onDestroyView();
+        // Bound to the view lifecycle, so CameraX has already released the camera
+        liveMode = false;
+        cameraProvider = null;
         binding = null;
     }
 }
@@ -0,0 +1,173 @@
+package com.example.argosapp.ui.settings;
+
+import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.fragment.app.Fragment;
+import androidx.lifecycle.ViewModelProvider;
+import androidx.navigation.fragment.NavHostFragment;
+
+import com.example.argosapp.MainViewModel;
+import com.example.argosapp.R;
+import com.example.argosapp.data.AnalysisCache;
+import com.example.argosapp.data.ServerTiming;
+import com.example.argosapp.databinding.FragmentDiagnosticsBinding;
+import com.example.argosapp.scan.ScanMetrics;
+import com.example.argosapp.scan.ScanPipeline;
+import com.example.argosapp.scan.ScanTrace;
+import com.example.argosapp.yolo.DetectorWarmer;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Scan latency percentiles, backend call breakdowns, pipeline queue depths and analysis cache counters,
+// for field debugging
+public class DiagnosticsFragment extends Fragment {
+
+    private static final String LATENCY_ROW = "%-16s %5s %8s %8s %8s%n";
+    private static final String PIPELINE_ROW = "%-8s %6s %6s %6s %6s %8s%n";
+
+    private FragmentDiagnosticsBinding binding;
+    private MainViewModel viewModel;
+
+    @Nullable
+    @Override
+    public View onCreateView(@NonNull LayoutInflater inflater, @Nullable ViewGroup container, @Nullable Bundle savedInstanceState) {
+        binding = FragmentDiagnosticsBinding.inflate(inflater, container, false);
+        return binding.getRoot();
+    }
+
+    @Override
+    public void onViewCreated(@NonNull View view, @Nullable Bundle savedInstanceState) {
+        super.onViewCreated(view, savedInstanceState);
+
+        viewModel = new ViewModelProvider(requireActivity()).get(MainViewModel.class);
+
+        binding.diagnosticsToolbar.setNavigationOnClickListener(v ->
+                NavHostFragment.findNavController(this).popBackStack());
+        binding.buttonExportTraces.setOnClickListener(v -> {
+            binding.buttonExportTraces.setEnabled(false);
+            viewModel.exportScanTraces();
+        });
+
+        viewModel.scanLatency.observe(getViewLifecycleOwner(), this::renderLatency);
+        viewModel.pipelineMetrics.observe(getViewLifecycleOwner(), this::renderPipeline);
+        viewModel.analysisCacheStats.observe(getViewLifecycleOwner(), this::renderCacheStats);
+        viewModel.traceExportResult.observe(getViewLifecycleOwner(), result -> {
+            binding.buttonExportTraces.setEnabled(true);
+            binding.textExportResult.setVisibility(View.VISIBLE);
+            binding.textExportResult.setText(result);
+        });
+    }
+
+    private void renderLatency(@Nullable ScanMetrics.Snapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        int shown = 0;
+        for (ScanTrace.Outcome outcome : ScanTrace.Outcome.values()) {
+            shown += snapshot.getOutcomeCount(outcome);
+        }
+        binding.textLatencySummary.setText(getString(R.string.diagnostics_latency_summary,
+                snapshot.getRecorded(),
+                shown,
+                snapshot.getOutcomeCount(ScanTrace.Outcome.COMPLETED),
+                snapshot.getOutcomeCount(ScanTrace.Outcome.BATCHED),
+                snapshot.getOutcomeCount(ScanTrace.Outcome.QUEUED),
+                snapshot.getOutcomeCount(ScanTrace.Outcome.FAILED),
+                snapshot.getOutcomeCount(ScanTrace.Outcome.DROPPED)));
+
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.US, LATENCY_ROW, "ms", "n", "p50", "p95", "p99"));
+        for (ScanTrace.Stage stage : ScanTrace.Stage.values()) {
+            appendLatencyRow(table, stage.name().toLowerCase(Locale.US), snapshot.get(stage));
+        }
+        appendLatencyRow(table, "queue", snapshot.getQueue());
+        appendLatencyRow(table, "total", snapshot.getTotal());
+        binding.textLatencyTable.setText(table.toString().trim());
+        renderBackends(snapshot.getEndpoints());
+        renderDetectorWarmth(snapshot);
+    }
+
+    private void renderDetectorWarmth(@NonNull ScanMetrics.Snapshot snapshot) {
+        DetectorWarmer warmer = viewModel.getDetectorWarmer();
+        binding.textDetectorWarmth.setText(getString(R.string.diagnostics_detector_warmth,
+                snapshot.getRemoteScanCount(true),
+                snapshot.getRemoteScanCount(false),
+                warmer.getPingCount(),
+                warmer.getColdStartCount(),
+                TimeUnit.MILLISECONDS.toMinutes(warmer.getKeepAliveInterval())));
+    }
+
+    private void renderBackends(@NonNull Map<String, ScanMetrics.EndpointStats> endpoints) {
+        if (endpoints.isEmpty()) {
+            binding.textBackendsTable.setText(R.string.diagnostics_latency_empty);
+            return;
+        }
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.US, LATENCY_ROW, "ms", "n", "p50", "p95", "p99"));
+        for (Map.Entry<String, ScanMetrics.EndpointStats> entry : endpoints.entrySet()) {
+            ScanMetrics.EndpointStats stats = entry.getValue();
+            table.append(entry.getKey()).append('\n');
+            appendLatencyRow(table, "  client", stats.client);
+            appendLatencyRow(table, "  network", stats.network);
+            // The server's total, then what it reported spending that on
+            appendLatencyRow(table, "  server", stats.getServer().get(ServerTiming.TOTAL));
+            for (Map.Entry<String, ScanMetrics.Percentiles> metric : stats.getServer().entrySet()) {
+                if (!metric.getKey().equals(ServerTiming.TOTAL)) {
+                    appendLatencyRow(table, "    " + metric.getKey(), metric.getValue());
+                }
+            }
+        }
+        binding.textBackendsTable.setText(table.toString().trim());
+    }
+
+    private static void appendLatencyRow(@NonNull StringBuilder table, @NonNull String name,
+                                         @NonNull ScanMetrics.Percentiles percentiles) {
+        if (percentiles.count == 0) {
+            return;
+        }
+        table.append(String.format(Locale.US, LATENCY_ROW, name, percentiles.count,
+                formatMillis(percentiles.p50), formatMillis(percentiles.p95), formatMillis(percentiles.p99)));
+    }
+
+    private void renderPipeline(@Nullable ScanPipeline.Snapshot snapshot) {
+        if (snapshot == null) {
+            return;
+        }
+        StringBuilder table = new StringBuilder();
+        table.append(String.format(Locale.US, PIPELINE_ROW, "stage", "queue", "active", "done", "failed", "avg ms"));
+        for (ScanPipeline.Stage stage : ScanPipeline.Stage.values()) {
+            ScanPipeline.StageStats stats = snapshot.get(stage);
+            long runs = stats.completed + stats.failed;
+            table.append(String.format(Locale.US, PIPELINE_ROW, stage.name().toLowerCase(Locale.US),
+                    stats.queued, stats.active, stats.completed, stats.failed,
+                    runs > 0 ? formatMillis(stats.totalNanos / runs) : "-"));
+        }
+        binding.textPipelineTable.setText(table.toString().trim());
+    }
+
+    private void renderCacheStats(@Nullable AnalysisCache.Stats stats) {
+        if (stats == null) {
+            return;
+        }
+        binding.textCacheStats.setText(getString(R.string.diagnostics_cache_format,
+                stats.hits, stats.staleHits, stats.misses, Math.round(stats.getHitRate() * 100f), stats.size));
+    }
+
+    @NonNull
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.US, "%.1f", nanos / 1_000_000d);
+    }
+
+    @Override
+    public void onDestroyView() {
+        super.onDestroyView();
+        binding = null;
+    }
+}
@@ -39,6 +39,7 @@ public class SettingsFragment extends Fragment {
         setupRow(binding.rowProfile, SettingsDestination.PROFILE);
         setupRow(binding.rowNotifications, SettingsDestination.NOTIFICATIONS);
         setupRow(binding.rowAppSettings, SettingsDestination.APP_SETTINGS);
+        setupRow(binding.rowDiagnostics, SettingsDestination.DIAGNOSTICS);
         setupRow(binding.rowAbout, SettingsDestination.ABOUT);
         setupRow(binding.rowLogout, SettingsDestination.LOGOUT);
 
@@ -59,6 +60,9 @@ public class SettingsFragment extends Fragment {
             case LOGOUT:
                 handleLogout();
                 break;
+            case DIAGNOSTICS:
+                navigateTo(R.id.action_settingsFragment_to_diagnosticsFragment);
+                break;
             case PROFILE:
             case NOTIFICATIONS:
             case APP_SETTINGS:
@@ -92,7 +96,7 @@ public class SettingsFragment extends Fragment {
 
     private void handleLogout() {
         viewModel.updateDisplayName(null);
-        viewModel.setPendingImageUri(null);
+        viewModel.setLastCapturedImage(null);
         viewModel.resetStatus();
         navigateTo(R.id.action_settingsFragment_to_loginFragment);
     }
@@ -112,6 +116,7 @@ public class SettingsFragment extends Fragment {
         PROFILE,
         NOTIFICATIONS,
         APP_SETTINGS,
+        DIAGNOSTICS,
         ABOUT,
         LOGOUT
     }
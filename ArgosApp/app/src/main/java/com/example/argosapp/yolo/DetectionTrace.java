@@ -0,0 +1,57 @@
+package com.example.argosapp.yolo;
+
+import androidx.annotation.NonNull;
+
+import okhttp3.Response;
+
+/**
+ * Receives what happened inside one detection: which backend answered and, for the remote one, how
+ * long encoding, uploading and waiting on the service took. Timestamps are {@link System#nanoTime()}.
+ * The scan pipeline's per-scan trace implements this; everything else passes {@link #NONE}.
+ */
+public interface DetectionTrace {
+
+    DetectionTrace NONE = new DetectionTrace() {
+        @Override
+        public void onDetectorUsed(@NonNull DetectorMode backend) {
+        }
+
+        @Override
+        public void onRemoteStarted(boolean backendWarm) {
+        }
+
+        @Override
+        public void onJpegEncoded(long startNanos, long endNanos) {
+        }
+
+        @Override
+        public void onUploaded(long startNanos, long endNanos, long bytesSent) {
+        }
+
+        @Override
+        public void onRemoteResponse(long startNanos, long endNanos, long bytesReceived) {
+        }
+
+        @Override
+        public void onExchange(long startNanos, long endNanos, @NonNull Response raw) {
+        }
+    };
+
+    // LOCAL or REMOTE, whichever produced the result
+    void onDetectorUsed(@NonNull DetectorMode backend);
+
+    // Before anything is sent: whether the hosted service was known to be awake (see DetectorWarmer)
+    void onRemoteStarted(boolean backendWarm);
+
+    void onJpegEncoded(long startNanos, long endNanos);
+
+    void onUploaded(long startNanos, long endNanos, long bytesSent);
+
+    // From the end of the upload to the parsed response: remote inference plus the download.
+    // bytesReceived is -1 when the service did not send a Content-Length
+    void onRemoteResponse(long startNanos, long endNanos, long bytesReceived);
+
+    // The whole HTTP call, upload included; raw carries the request ID and the service's
+    // Server-Timing. Bytes were already reported above and must not be counted again
+    void onExchange(long startNanos, long endNanos, @NonNull Response raw);
+}
@@ -0,0 +1,20 @@
+package com.example.argosapp.yolo;
+
+import androidx.annotation.NonNull;
+
+import com.example.argosapp.data.DetectionBatch;
+
+import java.io.IOException;
+
+// Common contract for the on-device and remote YOLO backends used by YoloProcessor
+public interface Detector {
+
+    // Boxes are returned normalized to the source photo, not to the letterboxed model input
+    @NonNull
+    DetectionBatch detect(@NonNull DetectorInput input, @NonNull DetectionTrace trace) throws IOException;
+
+    // Cheap check used by DetectorMode.AUTO to decide whether this backend can be tried at all
+    boolean isAvailable();
+
+    void close();
+}
@@ -0,0 +1,157 @@
+package com.example.argosapp.yolo;
+
+import android.graphics.Bitmap;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+
+/**
+ * A capture prepared for detection: a square, letterboxed bitmap at the model's input size plus the
+ * geometry needed to map boxes back onto the (EXIF-rotated) source photo.
+ *
+ * A larger copy is only decoded on demand through {@link #loadHighRes(int)}, for backends that want
+ * more pixels than the on-device model. The original file stays reachable through
+ * {@link #getSourceUri()} so it can be uploaded as-is.
+ */
+public final class DetectorInput {
+
+    public interface HighResLoader {
+        @NonNull
+        Bitmap load(int maxEdge) throws IOException;
+    }
+
+    private final Bitmap modelBitmap;
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final float scale;
+    private final int padX;
+    private final int padY;
+    @Nullable
+    private final HighResLoader highResLoader;
+    @Nullable
+    private final Uri sourceUri;
+    private final int sourceRotation;
+
+    public DetectorInput(@NonNull Bitmap modelBitmap,
+                         int sourceWidth,
+                         int sourceHeight,
+                         float scale,
+                         int padX,
+                         int padY,
+                         @Nullable HighResLoader highResLoader,
+                         @Nullable Uri sourceUri,
+                         int sourceRotation) {
+        this.modelBitmap = modelBitmap;
+        this.sourceWidth = sourceWidth;
+        this.sourceHeight = sourceHeight;
+        this.scale = scale;
+        this.padX = padX;
+        this.padY = padY;
+        this.highResLoader = highResLoader;
+        this.sourceUri = sourceUri;
+        this.sourceRotation = sourceRotation;
+    }
+
+    @NonNull
+    public Bitmap getModelBitmap() {
+        return modelBitmap;
+    }
+
+    public int getSourceWidth() {
+        return sourceWidth;
+    }
+
+    public int getSourceHeight() {
+        return sourceHeight;
+    }
+
+    // Scale from the (sampled) source to the model bitmap
+    public float getScale() {
+        return scale;
+    }
+
+    public int getPadX() {
+        return padX;
+    }
+
+    public int getPadY() {
+        return padY;
+    }
+
+    @Nullable
+    public Uri getSourceUri() {
+        return sourceUri;
+    }
+
+    // Clockwise EXIF rotation that was applied to the stored file to obtain the upright image
+    public int getSourceRotation() {
+        return sourceRotation;
+    }
+
+    public boolean hasHighResSource() {
+        return highResLoader != null;
+    }
+
+    // Decodes an aspect-preserving copy of the source whose longest edge is at most maxEdge
+    @NonNull
+    public Bitmap loadHighRes(int maxEdge) throws IOException {
+        if (highResLoader == null) {
+            throw new IOException("No high resolution source for this capture");
+        }
+        return highResLoader.load(maxEdge);
+    }
+
+    // Maps the normalized [x1, y1, x2, y2] box at boxes[offset] from the letterboxed bitmap to the source, in place
+    public void toSourceBox(@NonNull float[] boxes, int offset) {
+        float side = modelBitmap.getWidth();
+        float contentWidth = sourceWidth * scale;
+        float contentHeight = sourceHeight * scale;
+        boxes[offset] = clamp((boxes[offset] * side - padX) / contentWidth);
+        boxes[offset + 1] = clamp((boxes[offset + 1] * side - padY) / contentHeight);
+        boxes[offset + 2] = clamp((boxes[offset + 2] * side - padX) / contentWidth);
+        boxes[offset + 3] = clamp((boxes[offset + 3] * side - padY) / contentHeight);
+    }
+
+    /**
+     * Maps the normalized box at boxes[offset], measured on the stored file before its EXIF rotation,
+     * onto the upright image in place. Backends that read the raw JPEG without honouring EXIF report
+     * boxes in that frame.
+     */
+    public void fromRawOrientation(@NonNull float[] boxes, int offset) {
+        float x1 = boxes[offset];
+        float y1 = boxes[offset + 1];
+        float x2 = boxes[offset + 2];
+        float y2 = boxes[offset + 3];
+        switch (sourceRotation) {
+            case 90:
+                set(boxes, offset, 1f - y2, x1, 1f - y1, x2);
+                break;
+            case 180:
+                set(boxes, offset, 1f - x2, 1f - y2, 1f - x1, 1f - y1);
+                break;
+            case 270:
+                set(boxes, offset, y1, 1f - x2, y2, 1f - x1);
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void recycle() {
+        modelBitmap.recycle();
+    }
+
+    private static void set(@NonNull float[] boxes, int offset, float x1, float y1, float x2, float y2) {
+        boxes[offset] = x1;
+        boxes[offset + 1] = y1;
+        boxes[offset + 2] = x2;
+        boxes[offset + 3] = y2;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
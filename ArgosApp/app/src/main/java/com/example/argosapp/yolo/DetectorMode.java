@@ -0,0 +1,10 @@
+package com.example.argosapp.yolo;
+
+public enum DetectorMode {
+    // Run the bundled .ptl model on the CPU only
+    LOCAL,
+    // Upload the photo to the hosted YOLO service only
+    REMOTE,
+    // Prefer the bundled model and fall back to the hosted service when it is missing or fails
+    AUTO
+}
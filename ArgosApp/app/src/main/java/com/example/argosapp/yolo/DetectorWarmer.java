@@ -0,0 +1,215 @@
+package com.example.argosapp.yolo;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Keeps the hosted detector awake. The Hugging Face space sleeps when idle and the first request
+ * after that waits for it to boot, so a health ping is sent as soon as a scan looks likely, and
+ * repeated at a low cadence while a shift is active: from the first {@link #warmUp} until no scan or
+ * warm-up has happened for the shift's idle timeout. Pings go through the detector's client, so the
+ * connection they open stays in the shared pool for the upload that follows.
+ *
+ * "Warm" means the service answered, to a ping or a real detection, within the warm window, and no
+ * detection has failed since.
+ */
+public final class DetectorWarmer {
+
+    private static final String TAG = "DetectorWarmer";
+    // A ping slower than this woke the space up rather than finding it running
+    private static final long COLD_START_THRESHOLD_MS = 5_000;
+
+    // Resolved on the warmer's thread, so creating the warmer does not build an OkHttp client
+    private final Supplier<OkHttpClient> clientSupplier;
+    @Nullable
+    private OkHttpClient client;
+    private final HttpUrl healthUrl;
+    private final BooleanSupplier needed;
+    private final long warmWindowMs;
+    private final long shiftIdleMs;
+    private final ScheduledExecutorService scheduler =
+            Executors.newSingleThreadScheduledExecutor(r -> new Thread(r, "detector-warmer"));
+    private final AtomicBoolean pingInFlight = new AtomicBoolean();
+
+    private volatile long keepAliveMs;
+    // SystemClock.elapsedRealtime() of the last answer and of the last sign of use; 0 for never
+    private volatile long lastContactMs;
+    private volatile long lastActivityMs;
+    @Nullable
+    private ScheduledFuture<?> keepAlive;
+    private volatile boolean shutdown;
+    private volatile int pings;
+    private volatile int coldStarts;
+
+    /**
+     * @param needed       whether scans may go to the hosted detector at all; checked on the warmer's
+     *                     thread before each ping, so it may load the on-device model to find out
+     * @param keepAliveMs  ping cadence during a shift; 0 only warms up on demand
+     * @param warmWindowMs how long after its last answer the service is assumed to still be awake
+     * @param shiftIdleMs  a shift ends after this long without scans or warm-ups
+     */
+    public DetectorWarmer(@NonNull Supplier<OkHttpClient> client, @NonNull String baseUrl,
+                          @NonNull BooleanSupplier needed,
+                          long keepAliveMs, long warmWindowMs, long shiftIdleMs) {
+        this.clientSupplier = client;
+        this.healthUrl = HttpUrl.get(baseUrl);
+        this.needed = needed;
+        this.keepAliveMs = keepAliveMs;
+        this.warmWindowMs = warmWindowMs;
+        this.shiftIdleMs = shiftIdleMs;
+    }
+
+    /**
+     * Pings the service unless it is known to be warm or a ping is already on its way, and starts or
+     * extends the shift. Cheap enough to call on every screen visit or camera launch.
+     */
+    public void warmUp() {
+        markActivity();
+        if (!isWarm() && !shutdown) {
+            scheduler.execute(this::ping);
+        }
+    }
+
+    // A scan was submitted; keeps the shift going without pinging by itself
+    public void markActivity() {
+        lastActivityMs = SystemClock.elapsedRealtime();
+        scheduleKeepAlive();
+    }
+
+    /** Takes effect from the next tick; 0 stops the periodic pings but keeps on-demand warm-ups. */
+    public synchronized void setKeepAliveInterval(long keepAliveMs) {
+        this.keepAliveMs = keepAliveMs;
+        if (keepAlive != null) {
+            keepAlive.cancel(false);
+            keepAlive = null;
+        }
+        scheduleKeepAlive();
+    }
+
+    public long getKeepAliveInterval() {
+        return keepAliveMs;
+    }
+
+    public boolean isWarm() {
+        long contact = lastContactMs;
+        return contact != 0 && SystemClock.elapsedRealtime() - contact < warmWindowMs;
+    }
+
+    // RemoteDetector reports real detections too, so a busy shift needs no extra pings. A detection
+    // that failed or was refused means the space may have gone to sleep: later scans count as cold
+    // until it answers again, and a ping is sent to wake it up for them.
+    void onContact(boolean answered) {
+        if (answered) {
+            lastContactMs = SystemClock.elapsedRealtime();
+            return;
+        }
+        lastContactMs = 0;
+        // Called from detection threads; holding the lock keeps shutdown() from racing the execute
+        synchronized (this) {
+            if (!shutdown) {
+                scheduler.execute(this::ping);
+            }
+        }
+    }
+
+    public int getPingCount() {
+        return pings;
+    }
+
+    // Pings that found the space asleep
+    public int getColdStartCount() {
+        return coldStarts;
+    }
+
+    public synchronized void shutdown() {
+        shutdown = true;
+        scheduler.shutdownNow();
+        keepAlive = null;
+    }
+
+    private synchronized void scheduleKeepAlive() {
+        long interval = keepAliveMs;
+        if (shutdown || interval <= 0 || keepAlive != null) {
+            return;
+        }
+        keepAlive = scheduler.scheduleWithFixedDelay(this::tick, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void tick() {
+        if (SystemClock.elapsedRealtime() - lastActivityMs >= shiftIdleMs) {
+            synchronized (this) {
+                if (keepAlive != null) {
+                    keepAlive.cancel(false);
+                    keepAlive = null;
+                }
+            }
+            Log.d(TAG, "Shift idle, keep-alive stopped");
+            return;
+        }
+        // A detection answered recently enough that the space will not sleep before the next tick
+        long contact = lastContactMs;
+        if (contact == 0 || SystemClock.elapsedRealtime() - contact >= keepAliveMs) {
+            ping();
+        }
+    }
+
+    // Runs on the warmer's thread; the call itself is asynchronous so a slow boot never blocks a tick
+    private void ping() {
+        if (shutdown || !pingInFlight.compareAndSet(false, true)) {
+            return;
+        }
+        if (!needed.getAsBoolean()) {
+            pingInFlight.set(false);
+            return;
+        }
+        if (client == null) {
+            client = clientSupplier.get();
+        }
+        long start = SystemClock.elapsedRealtime();
+        pings++;
+        Request request = new Request.Builder().url(healthUrl).get().build();
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(@NonNull Call call, @NonNull IOException e) {
+                pingInFlight.set(false);
+                Log.d(TAG, "Detector ping failed: " + e.getMessage());
+            }
+
+            @Override
+            public void onResponse(@NonNull Call call, @NonNull Response response) {
+                response.close();
+                long elapsed = SystemClock.elapsedRealtime() - start;
+                // Sleeping spaces answer 503 while they boot; only a real answer means warm
+                if (response.isSuccessful()) {
+                    onContact(true);
+                    if (elapsed >= COLD_START_THRESHOLD_MS) {
+                        coldStarts++;
+                        Log.i(TAG, "Detector woke up in " + elapsed + " ms");
+                    }
+                } else {
+                    Log.d(TAG, "Detector ping answered " + response.code());
+                }
+                pingInFlight.set(false);
+            }
+        });
+    }
+}
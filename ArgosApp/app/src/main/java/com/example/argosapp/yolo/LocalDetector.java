@@ -0,0 +1,227 @@
+package com.example.argosapp.yolo;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.graphics.Bitmap;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.example.argosapp.data.DetectionBatch;
+
+import org.pytorch.IValue;
+import org.pytorch.LiteModuleLoader;
+import org.pytorch.Module;
+import org.pytorch.Tensor;
+import org.pytorch.torchvision.TensorImageUtils;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+// Runs the Lite model exported by tools/export_yolo_ptl.py from app assets on the CPU
+public final class LocalDetector implements Detector {
+
+    private static final String TAG = "LocalDetector";
+
+    // Checked in order; see docs/model_export.md for how these files are produced
+    static final String[] MODEL_FILE_CANDIDATES = {"yolov8s.ptl", "best.ptl", "yolo.ptl"};
+    // Extracted copies live here, one per asset, named after the APK that shipped them
+    private static final String MODEL_DIR = "models";
+
+    static final int INPUT_SIZE = 640;
+    // Anchors below this are dropped while decoding; the configurable threshold is PostProcessor's
+    private static final float CANDIDATE_SCORE_FLOOR = 0.1f;
+    // YOLOv8 expects RGB scaled to [0, 1] with no normalization
+    private static final float[] NO_MEAN_RGB = {0f, 0f, 0f};
+    private static final float[] NO_STD_RGB = {1f, 1f, 1f};
+
+    private final Context appContext;
+    private final Object lock = new Object();
+
+    @Nullable
+    private Module module;
+    private boolean loadAttempted;
+
+    public LocalDetector(@NonNull Context context) {
+        this.appContext = context.getApplicationContext();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        synchronized (lock) {
+            return ensureModule() != null;
+        }
+    }
+
+    @NonNull
+    @Override
+    public DetectionBatch detect(@NonNull DetectorInput input, @NonNull DetectionTrace trace) throws IOException {
+        synchronized (lock) {
+            Module loaded = ensureModule();
+            if (loaded == null) {
+                throw new IOException("No on-device YOLO model found in assets");
+            }
+            // CaptureDecoder already letterboxes to INPUT_SIZE, so this only scales unusual inputs
+            Bitmap bitmap = input.getModelBitmap();
+            Bitmap scaled = bitmap.getWidth() == INPUT_SIZE && bitmap.getHeight() == INPUT_SIZE
+                    ? bitmap
+                    : Bitmap.createScaledBitmap(bitmap, INPUT_SIZE, INPUT_SIZE, true);
+            Tensor tensor = TensorImageUtils.bitmapToFloat32Tensor(scaled, NO_MEAN_RGB, NO_STD_RGB);
+            if (scaled != bitmap) {
+                scaled.recycle();
+            }
+
+            IValue output = loaded.forward(IValue.from(tensor));
+            Tensor predictions = output.isTuple() ? output.toTuple()[0].toTensor() : output.toTensor();
+            return decode(predictions.getDataAsFloatArray(), predictions.shape(), input);
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (module != null) {
+                module.destroy();
+                module = null;
+            }
+            loadAttempted = false;
+        }
+    }
+
+    @Nullable
+    private Module ensureModule() {
+        if (module != null || loadAttempted) {
+            return module;
+        }
+        loadAttempted = true;
+        for (String candidate : MODEL_FILE_CANDIDATES) {
+            try {
+                File modelFile = copyAssetToFile(candidate);
+                module = LiteModuleLoader.load(modelFile.getAbsolutePath());
+                Log.i(TAG, "Loaded on-device model " + candidate);
+                return module;
+            } catch (IOException e) {
+                // Not bundled under this name, try the next candidate
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Failed to load on-device model " + candidate, e);
+            }
+        }
+        Log.w(TAG, "No on-device model available, remote detection only");
+        return null;
+    }
+
+    // LiteModuleLoader needs a real file path, so the asset is extracted into filesDir. The copy is
+    // keyed on the APK's install time, so an update that ships a new model extracts it again.
+    private File copyAssetToFile(@NonNull String assetName) throws IOException {
+        File dir = new File(appContext.getFilesDir(), MODEL_DIR);
+        File file = new File(dir, assetName + "." + apkUpdateTime());
+        try (InputStream is = appContext.getAssets().open(assetName)) {
+            if (file.length() > 0) {
+                return file;
+            }
+            if (!dir.isDirectory() && !dir.mkdirs()) {
+                throw new IOException("Cannot create " + dir);
+            }
+            // Written aside and renamed, so a crash mid-copy never leaves a truncated model to load
+            File partial = new File(dir, file.getName() + ".tmp");
+            try (OutputStream os = new FileOutputStream(partial)) {
+                byte[] buffer = new byte[16 * 1024];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    os.write(buffer, 0, read);
+                }
+                os.flush();
+            } catch (IOException e) {
+                partial.delete();
+                throw e;
+            }
+            if (!partial.renameTo(file)) {
+                partial.delete();
+                throw new IOException("Cannot rename " + partial + " to " + file);
+            }
+        }
+        deleteStaleCopies(dir, assetName, file);
+        return file;
+    }
+
+    private long apkUpdateTime() {
+        try {
+            return appContext.getPackageManager()
+                    .getPackageInfo(appContext.getPackageName(), 0).lastUpdateTime;
+        } catch (PackageManager.NameNotFoundException e) {
+            // Our own package is always installed
+            return 0L;
+        }
+    }
+
+    // Copies from earlier APKs, and the unversioned copy older builds left directly in filesDir
+    private void deleteStaleCopies(@NonNull File dir, @NonNull String assetName, @NonNull File current) {
+        File[] stale = dir.listFiles((d, name) -> name.startsWith(assetName + ".") && !name.equals(current.getName()));
+        if (stale != null) {
+            for (File file : stale) {
+                file.delete();
+            }
+        }
+        new File(appContext.getFilesDir(), assetName).delete();
+    }
+
+    // Decodes a YOLOv8 head of shape [1, 4 + classes, anchors] (or its transpose) into normalized
+    // source boxes; thresholding and NMS are left to YoloProcessor's PostProcessor
+    private DetectionBatch decode(@NonNull float[] data, @NonNull long[] shape, @NonNull DetectorInput input) {
+        if (shape.length != 3) {
+            Log.e(TAG, "Unexpected output shape " + Arrays.toString(shape));
+            return new DetectionBatch(1);
+        }
+        boolean channelsFirst = shape[1] < shape[2];
+        int channels = (int) (channelsFirst ? shape[1] : shape[2]);
+        int anchors = (int) (channelsFirst ? shape[2] : shape[1]);
+        int classCount = channels - 4;
+        if (classCount <= 0) {
+            return new DetectionBatch(1);
+        }
+
+        DetectionBatch batch = new DetectionBatch(64);
+        for (int a = 0; a < anchors; a++) {
+            int bestClass = -1;
+            float bestScore = CANDIDATE_SCORE_FLOOR;
+            for (int c = 0; c < classCount; c++) {
+                float score = data[index(channelsFirst, 4 + c, a, channels, anchors)];
+                if (score > bestScore) {
+                    bestScore = score;
+                    bestClass = c;
+                }
+            }
+            if (bestClass < 0) {
+                continue;
+            }
+            float cx = data[index(channelsFirst, 0, a, channels, anchors)];
+            float cy = data[index(channelsFirst, 1, a, channels, anchors)];
+            float w = data[index(channelsFirst, 2, a, channels, anchors)];
+            float h = data[index(channelsFirst, 3, a, channels, anchors)];
+            int index = batch.add(
+                    bestClass,
+                    YoloProcessor.mapLabel(bestClass, null),
+                    bestScore,
+                    clamp((cx - w / 2f) / INPUT_SIZE),
+                    clamp((cy - h / 2f) / INPUT_SIZE),
+                    clamp((cx + w / 2f) / INPUT_SIZE),
+                    clamp((cy + h / 2f) / INPUT_SIZE)
+            );
+            input.toSourceBox(batch.getBoxes(), index * 4);
+        }
+        return batch;
+    }
+
+    private static int index(boolean channelsFirst, int channel, int anchor, int channels, int anchors) {
+        return channelsFirst ? channel * anchors + anchor : anchor * channels + channel;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
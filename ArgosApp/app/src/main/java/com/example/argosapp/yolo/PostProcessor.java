@@ -0,0 +1,112 @@
+package com.example.argosapp.yolo;
+
+import androidx.annotation.NonNull;
+
+import com.example.argosapp.data.DetectionBatch;
+
+import java.util.Arrays;
+
+/**
+ * Detector-independent clean-up applied by YoloProcessor to every backend's output: drops detections
+ * below the score threshold, orders the rest by descending score, runs greedy class-aware
+ * non-maximum suppression and keeps at most {@code maxDetections}. Works on the batch's primitive
+ * arrays; ties are broken by the detector's original order, so the same input always yields the same
+ * output.
+ *
+ * Suppression runs on boxes normalized to the source image. IoU does not change under scaling each
+ * axis independently, so this gives the same answer as running it in pixels. Detections without a
+ * box are never suppressed.
+ */
+public final class PostProcessor {
+
+    public static final PostProcessor DEFAULT = new PostProcessor(0.25f, 0.45f, 100);
+
+    private final float scoreThreshold;
+    private final float iouThreshold;
+    private final int maxDetections;
+
+    public PostProcessor(float scoreThreshold, float iouThreshold, int maxDetections) {
+        if (maxDetections <= 0) {
+            throw new IllegalArgumentException("maxDetections must be positive: " + maxDetections);
+        }
+        // Scores are sorted by their float bits, which only order correctly for non-negative values
+        this.scoreThreshold = Math.max(0f, scoreThreshold);
+        this.iouThreshold = iouThreshold;
+        this.maxDetections = maxDetections;
+    }
+
+    public float getScoreThreshold() {
+        return scoreThreshold;
+    }
+
+    public float getIouThreshold() {
+        return iouThreshold;
+    }
+
+    public int getMaxDetections() {
+        return maxDetections;
+    }
+
+    @NonNull
+    public DetectionBatch process(@NonNull DetectionBatch input) {
+        int size = input.size();
+        // Sort key: score bits in the high word, inverted index in the low word, so an ascending
+        // sort read backwards gives descending score with earlier detections first on ties
+        long[] keys = new long[size];
+        int candidates = 0;
+        for (int i = 0; i < size; i++) {
+            float score = input.getScore(i);
+            if (score >= scoreThreshold && !Float.isNaN(score)) {
+                keys[candidates++] = ((long) Float.floatToIntBits(score) << 32) | (Integer.MAX_VALUE - i);
+            }
+        }
+        Arrays.sort(keys, 0, candidates);
+
+        float[] boxes = input.getBoxes();
+        int[] kept = new int[Math.min(candidates, maxDetections)];
+        int keptCount = 0;
+        for (int k = candidates - 1; k >= 0 && keptCount < kept.length; k--) {
+            int index = Integer.MAX_VALUE - (int) keys[k];
+            if (!overlapsKept(input, boxes, index, kept, keptCount)) {
+                kept[keptCount++] = index;
+            }
+        }
+
+        DetectionBatch output = new DetectionBatch(keptCount);
+        for (int k = 0; k < keptCount; k++) {
+            int index = kept[k];
+            int b = index * 4;
+            output.add(input.getClassId(index), input.getLabel(index), input.getScore(index),
+                    boxes[b], boxes[b + 1], boxes[b + 2], boxes[b + 3]);
+        }
+        return output;
+    }
+
+    private boolean overlapsKept(@NonNull DetectionBatch input, @NonNull float[] boxes, int index,
+                                 @NonNull int[] kept, int keptCount) {
+        if (!input.hasBox(index)) {
+            return false;
+        }
+        int classId = input.getClassId(index);
+        for (int k = 0; k < keptCount; k++) {
+            int other = kept[k];
+            if (input.getClassId(other) == classId && input.hasBox(other)
+                    && iou(boxes, index * 4, other * 4) > iouThreshold) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static float iou(@NonNull float[] boxes, int a, int b) {
+        float left = Math.max(boxes[a], boxes[b]);
+        float top = Math.max(boxes[a + 1], boxes[b + 1]);
+        float right = Math.min(boxes[a + 2], boxes[b + 2]);
+        float bottom = Math.min(boxes[a + 3], boxes[b + 3]);
+        float intersection = Math.max(0f, right - left) * Math.max(0f, bottom - top);
+        float union = (boxes[a + 2] - boxes[a]) * (boxes[a + 3] - boxes[a + 1])
+                + (boxes[b + 2] - boxes[b]) * (boxes[b + 3] - boxes[b + 1])
+                - intersection;
+        return union <= 0f ? 0f : intersection / union;
+    }
+}
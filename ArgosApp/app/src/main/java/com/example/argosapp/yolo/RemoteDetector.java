@@ -0,0 +1,352 @@
+package com.example.argosapp.yolo;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.net.Uri;
+import android.os.Trace;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import com.example.argosapp.data.NetworkModule;
+import com.example.argosapp.data.StreamingRequestBody;
+import com.example.argosapp.data.WireFormat;
+import com.example.argosapp.data.DetectionBatch;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.Multipart;
+import retrofit2.http.POST;
+import retrofit2.http.Part;
+
+// Sends the photo to the hosted YOLO service (Hugging Face space) and maps its response
+public final class RemoteDetector implements Detector {
+
+    private static final String TAG = "RemoteDetector";
+    public static final String BASE_URL = "https://lima-wu-my-yolo-hackathon.hf.space/";
+    private static final MediaType MEDIA_TYPE_JPEG = MediaType.parse("image/jpeg");
+    // Upper bound for a downscaled upload; the hosted model may run at a larger imgsz than the on-device one
+    private static final int REMOTE_MAX_EDGE = 1280;
+    // Captures up to this size are streamed as-is; larger ones are downscaled to a temp file first
+    private static final long MAX_ORIGINAL_UPLOAD_BYTES = 3L * 1024 * 1024;
+
+    private final ContentResolver contentResolver;
+    private final File cacheDir;
+    private final DetectorWarmer warmer;
+    // Built on the first upload; most scans are answered on-device and never need it
+    private volatile RemoteYoloService remoteYoloService;
+    private volatile long lastUploadBytes;
+    private volatile long lastUploadNanos;
+
+    public RemoteDetector(@NonNull Context context, @NonNull DetectorWarmer warmer) {
+        contentResolver = context.getContentResolver();
+        cacheDir = context.getCacheDir();
+        this.warmer = warmer;
+    }
+
+    @NonNull
+    private RemoteYoloService service() {
+        RemoteYoloService service = remoteYoloService;
+        if (service == null) {
+            synchronized (this) {
+                service = remoteYoloService;
+                if (service == null) {
+                    Retrofit retrofit = new Retrofit.Builder()
+                            .baseUrl(BASE_URL)
+                            .client(NetworkModule.detectorClient())
+                            .addConverterFactory(GsonConverterFactory.create(WireFormat.gson().newBuilder()
+                                    .registerTypeAdapter(RemoteDetectionResponse.class, new ResponseAdapter().nullSafe())
+                                    .create()))
+                            .build();
+                    service = retrofit.create(RemoteYoloService.class);
+                    remoteYoloService = service;
+                }
+            }
+        }
+        return service;
+    }
+
+    @NonNull
+    @Override
+    public DetectionBatch detect(@NonNull DetectorInput input, @NonNull DetectionTrace trace) throws IOException {
+        trace.onRemoteStarted(warmer.isWarm());
+        Uri sourceUri = input.getSourceUri();
+        long sourceLength = sourceUri != null ? StreamingRequestBody.queryLength(contentResolver, sourceUri) : -1L;
+        // The body reports when its last byte is written; waiting on the service starts there
+        long[] uploadEndNanos = new long[1];
+        StreamingRequestBody.UploadListener uploadListener = (bytesWritten, elapsedNanos) -> {
+            long now = System.nanoTime();
+            uploadEndNanos[0] = now;
+            recordUpload(bytesWritten, elapsedNanos);
+            trace.onUploaded(now - elapsedNanos, now, bytesWritten);
+        };
+        File tempFile = null;
+        BoxFrame frame;
+        MultipartBody.Part filePart;
+        if (sourceUri != null && sourceLength > 0 && sourceLength <= MAX_ORIGINAL_UPLOAD_BYTES) {
+            // Already a JPEG on disk: stream it untouched instead of decoding and re-encoding
+            filePart = createPart(StreamingRequestBody.fromUri(contentResolver, sourceUri, MEDIA_TYPE_JPEG, uploadListener));
+            frame = BoxFrame.RAW_SOURCE;
+        } else if (input.hasHighResSource()) {
+            tempFile = writeTempJpeg(input.loadHighRes(REMOTE_MAX_EDGE), true, trace);
+            filePart = createPart(StreamingRequestBody.fromFile(tempFile, MEDIA_TYPE_JPEG, uploadListener));
+            frame = BoxFrame.UPRIGHT_SOURCE;
+        } else {
+            tempFile = writeTempJpeg(input.getModelBitmap(), false, trace);
+            filePart = createPart(StreamingRequestBody.fromFile(tempFile, MEDIA_TYPE_JPEG, uploadListener));
+            frame = BoxFrame.LETTERBOXED;
+        }
+        try {
+            Call<RemoteDetectionResponse> call = service().detect(filePart);
+            long callStart = System.nanoTime();
+            Response<RemoteDetectionResponse> response;
+            Trace.beginSection("RemoteDetector.request");
+            try {
+                response = call.execute();
+            } catch (IOException e) {
+                // Timed out or dropped, e.g. while the space was booting
+                warmer.onContact(false);
+                throw e;
+            } finally {
+                Trace.endSection();
+            }
+            long end = System.nanoTime();
+            warmer.onContact(response.isSuccessful());
+            ResponseBody rawBody = response.raw().body();
+            trace.onRemoteResponse(uploadEndNanos[0] != 0 ? uploadEndNanos[0] : callStart, end,
+                    rawBody != null ? rawBody.contentLength() : -1L);
+            trace.onExchange(callStart, end, response.raw());
+            if (!response.isSuccessful() || response.body() == null) {
+                throw new IOException("Remote YOLO failed: " + response.code() + " " + response.message()
+                        + " (request " + response.raw().request().header(NetworkModule.REQUEST_ID_HEADER) + ")");
+            }
+            return mapDetections(response.body(), input, frame);
+        } finally {
+            if (tempFile != null && !tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    public long getLastUploadBytes() {
+        return lastUploadBytes;
+    }
+
+    // Bytes per second of the last completed upload, or 0 when nothing has been sent yet
+    public double getLastUploadThroughput() {
+        long nanos = lastUploadNanos;
+        return nanos > 0 ? lastUploadBytes * 1_000_000_000d / nanos : 0d;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release: the OkHttp client is reclaimed with the detector
+    }
+
+    private MultipartBody.Part createPart(@NonNull RequestBody requestBody) {
+        return MultipartBody.Part.createFormData("file", "capture.jpg", requestBody);
+    }
+
+    // Encodes straight into a cache file so the JPEG bytes never sit in a heap buffer
+    private File writeTempJpeg(@NonNull Bitmap bitmap, boolean recycle, @NonNull DetectionTrace trace)
+            throws IOException {
+        long start = System.nanoTime();
+        File file = File.createTempFile("upload_", ".jpg", cacheDir);
+        Trace.beginSection("RemoteDetector.encodeJpeg");
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(file))) {
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, 90, os)) {
+                throw new IOException("JPEG encoding failed");
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        } finally {
+            if (recycle) {
+                bitmap.recycle();
+            }
+            Trace.endSection();
+        }
+        trace.onJpegEncoded(start, System.nanoTime());
+        return file;
+    }
+
+    private void recordUpload(long bytesWritten, long elapsedNanos) {
+        lastUploadBytes = bytesWritten;
+        lastUploadNanos = elapsedNanos;
+        Log.d(TAG, String.format(Locale.US, "Uploaded %d bytes in %d ms (%.1f KB/s)",
+                bytesWritten, elapsedNanos / 1_000_000L, getLastUploadThroughput() / 1024d));
+    }
+
+    @VisibleForTesting
+    static DetectionBatch mapDetections(@NonNull RemoteDetectionResponse response,
+                                        @NonNull DetectorInput input,
+                                        @NonNull BoxFrame frame) {
+        if (response.detections == null || response.detections.isEmpty()) {
+            return new DetectionBatch(1);
+        }
+        DetectionBatch batch = new DetectionBatch(response.detections.size());
+        for (RemoteDetection detection : response.detections) {
+            if (detection == null) {
+                continue;
+            }
+            String label = YoloProcessor.mapLabel(detection.classId, detection.label);
+            float[] box = detection.boxNorm;
+            if (box == null || box.length != 4) {
+                batch.add(detection.classId, label, detection.confidence);
+                continue;
+            }
+            int index = batch.add(detection.classId, label, detection.confidence, box[0], box[1], box[2], box[3]);
+            // Re-read after add: the backing array is replaced when the batch grows
+            float[] boxes = batch.getBoxes();
+            if (frame == BoxFrame.LETTERBOXED) {
+                input.toSourceBox(boxes, index * 4);
+            } else if (frame == BoxFrame.RAW_SOURCE) {
+                input.fromRawOrientation(boxes, index * 4);
+            }
+        }
+        return batch;
+    }
+
+    // Which image the service saw, and therefore which frame its normalized boxes are in
+    enum BoxFrame {
+        RAW_SOURCE,
+        UPRIGHT_SOURCE,
+        LETTERBOXED
+    }
+
+    private interface RemoteYoloService {
+        @Multipart
+        @POST("detect")
+        Call<RemoteDetectionResponse> detect(@Part MultipartBody.Part file);
+    }
+
+    static final class RemoteDetectionResponse {
+        List<RemoteDetection> detections;
+        String filename;
+    }
+
+    static final class RemoteDetection {
+        float[] boxNorm;
+        float confidence;
+        int classId;
+        String label;
+    }
+
+    // Streams the service's {"detections": [{"box_norm", "confidence", "class_id", "label"}], "filename"}
+    static final class ResponseAdapter extends TypeAdapter<RemoteDetectionResponse> {
+        // Same field names as the service, so a cached or logged response reads back unchanged
+        @Override
+        public void write(JsonWriter out, RemoteDetectionResponse response) throws IOException {
+            out.beginObject();
+            if (response.detections != null) {
+                out.name("detections").beginArray();
+                for (RemoteDetection detection : response.detections) {
+                    if (detection == null) {
+                        out.nullValue();
+                        continue;
+                    }
+                    out.beginObject();
+                    if (detection.boxNorm != null) {
+                        out.name("box_norm");
+                        WireFormat.writeFloatArray(out, detection.boxNorm);
+                    }
+                    out.name("confidence");
+                    WireFormat.writeFloat(out, detection.confidence);
+                    out.name("class_id").value(detection.classId);
+                    WireFormat.writeString(out, "label", detection.label);
+                    out.endObject();
+                }
+                out.endArray();
+            }
+            WireFormat.writeString(out, "filename", response.filename);
+            out.endObject();
+        }
+
+        @Override
+        public RemoteDetectionResponse read(JsonReader in) throws IOException {
+            RemoteDetectionResponse response = new RemoteDetectionResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "detections":
+                        response.detections = readDetections(in);
+                        break;
+                    case "filename":
+                        response.filename = WireFormat.readString(in);
+                        break;
+                    default:
+                        in.skipValue();
+                        break;
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        private static List<RemoteDetection> readDetections(@NonNull JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            List<RemoteDetection> detections = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                RemoteDetection detection = new RemoteDetection();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "box_norm":
+                            detection.boxNorm = WireFormat.readFloatArray(in);
+                            break;
+                        case "confidence":
+                            detection.confidence = WireFormat.readFloat(in, 0f);
+                            break;
+                        case "class_id":
+                            detection.classId = WireFormat.readInt(in, 0);
+                            break;
+                        case "label":
+                            detection.label = WireFormat.readString(in);
+                            break;
+                        default:
+                            in.skipValue();
+                            break;
+                    }
+                }
+                in.endObject();
+                detections.add(detection);
+            }
+            in.endArray();
+            return detections;
+        }
+    }
+}
@@ -1,104 +1,146 @@
 package com.example.argosapp.yolo;
 
-import android.graphics.Bitmap;
+import android.content.Context;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
+import com.example.argosapp.data.DetectionBatch;
 import com.example.argosapp.data.YoloDetection;
-import com.google.gson.annotations.SerializedName;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.concurrent.TimeUnit;
-
-import okhttp3.MediaType;
-import okhttp3.MultipartBody;
-import okhttp3.OkHttpClient;
-import okhttp3.RequestBody;
-import retrofit2.Call;
-import retrofit2.Response;
-import retrofit2.Retrofit;
-import retrofit2.converter.gson.GsonConverterFactory;
-import retrofit2.http.Multipart;
-import retrofit2.http.POST;
-import retrofit2.http.Part;
 
 public class YoloProcessor {
 
     private static final String TAG = "YoloProcessor";
-    private static final String BASE_URL = "https://lima-wu-my-yolo-hackathon.hf.space/";
-    private static final MediaType MEDIA_TYPE_JPEG = MediaType.parse("image/jpeg");
     private static final String[] FALLBACK_LABELS = {"normal", "squash", "breach"};
+    // Indexes in the model's class table
+    public static final int CLASS_NORMAL = 0;
+    public static final int CLASS_SQUASH = 1;
+    public static final int CLASS_BREACH = 2;
 
-    private final RemoteYoloService remoteYoloService;
+    // Edge of the square, letterboxed bitmap that captures are decoded to for detection
+    public static final int INPUT_SIZE = LocalDetector.INPUT_SIZE;
 
-    public YoloProcessor() {
-        OkHttpClient client = new OkHttpClient.Builder()
-                .callTimeout(60, TimeUnit.SECONDS)
-                .connectTimeout(30, TimeUnit.SECONDS)
-                .readTimeout(60, TimeUnit.SECONDS)
-                .writeTimeout(60, TimeUnit.SECONDS)
-                .build();
+    private final Detector localDetector;
+    private final Detector remoteDetector;
+    private volatile DetectorMode defaultMode = DetectorMode.AUTO;
+    private volatile PostProcessor postProcessor = PostProcessor.DEFAULT;
 
-        Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_URL)
-                .client(client)
-                .addConverterFactory(GsonConverterFactory.create())
-                .build();
-        remoteYoloService = retrofit.create(RemoteYoloService.class);
+    public YoloProcessor(@NonNull Context context, @NonNull DetectorWarmer remoteWarmer) {
+        this(new LocalDetector(context), new RemoteDetector(context, remoteWarmer));
     }
 
-    public List<YoloDetection> processImage(@Nullable Bitmap bitmap) {
-        if (bitmap == null) {
-            return Collections.emptyList();
+    YoloProcessor(@NonNull Detector localDetector, @NonNull Detector remoteDetector) {
+        this.localDetector = localDetector;
+        this.remoteDetector = remoteDetector;
+    }
+
+    public void setDefaultMode(@NonNull DetectorMode mode) {
+        this.defaultMode = mode;
+    }
+
+    @NonNull
+    public DetectorMode getDefaultMode() {
+        return defaultMode;
+    }
+
+    // Applied to every detector's output, local or remote
+    public void setPostProcessor(@NonNull PostProcessor postProcessor) {
+        this.postProcessor = postProcessor;
+    }
+
+    @NonNull
+    public PostProcessor getPostProcessor() {
+        return postProcessor;
+    }
+
+    // Whether the on-device model loaded; live preview only runs detection locally
+    public boolean isLocalAvailable() {
+        return localDetector.isAvailable();
+    }
+
+    // Whether scans in the default mode can end up at the hosted detector. Loads the on-device
+    // model to find out, so call it off the main thread
+    public boolean mayUseRemote() {
+        DetectorMode mode = defaultMode;
+        return mode == DetectorMode.REMOTE || (mode == DetectorMode.AUTO && !localDetector.isAvailable());
+    }
+
+    public List<YoloDetection> processImage(@Nullable DetectorInput input) {
+        return processImage(input, defaultMode);
+    }
+
+    // Scan pipeline entry point: the default mode, with the detector's timings reported to trace
+    public List<YoloDetection> processImage(@Nullable DetectorInput input, @NonNull DetectionTrace trace) {
+        return detect(input, defaultMode, trace).toDetections();
+    }
+
+    // List view of detect() for the scan pipeline, which stores and serializes YoloDetection objects
+    public List<YoloDetection> processImage(@Nullable DetectorInput input, @NonNull DetectorMode mode) {
+        return detect(input, mode).toDetections();
+    }
+
+    // Thresholded, sorted by descending score, suppressed and capped by the current PostProcessor
+    @NonNull
+    public DetectionBatch detect(@Nullable DetectorInput input, @NonNull DetectorMode mode) {
+        return detect(input, mode, DetectionTrace.NONE);
+    }
+
+    @NonNull
+    public DetectionBatch detect(@Nullable DetectorInput input, @NonNull DetectorMode mode,
+                                 @NonNull DetectionTrace trace) {
+        if (input == null) {
+            return new DetectionBatch(1);
         }
-        try {
-            MultipartBody.Part filePart = bitmapToPart(bitmap);
-            Call<RemoteDetectionResponse> call = remoteYoloService.detect(filePart);
-            Response<RemoteDetectionResponse> response = call.execute();
-            if (response.isSuccessful() && response.body() != null) {
-                return mapDetections(response.body());
-            } else {
-                Log.e(TAG, "Remote YOLO failed: " +
-                        (response != null ? response.code() + " " + response.message() : "null response"));
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Remote YOLO failure", e);
+        return postProcessor.process(detectRaw(input, mode, trace));
+    }
+
+    @NonNull
+    private DetectionBatch detectRaw(@NonNull DetectorInput input, @NonNull DetectorMode mode,
+                                     @NonNull DetectionTrace trace) {
+        switch (mode) {
+            case LOCAL:
+                return runDetector(DetectorMode.LOCAL, localDetector, input, trace);
+            case REMOTE:
+                return runDetector(DetectorMode.REMOTE, remoteDetector, input, trace);
+            case AUTO:
+            default:
+                if (localDetector.isAvailable()) {
+                    try {
+                        DetectionBatch batch = localDetector.detect(input, trace);
+                        trace.onDetectorUsed(DetectorMode.LOCAL);
+                        return batch;
+                    } catch (Exception e) {
+                        Log.w(TAG, "On-device YOLO failed, falling back to remote", e);
+                    }
+                }
+                return runDetector(DetectorMode.REMOTE, remoteDetector, input, trace);
         }
-        return Collections.emptyList();
     }
 
-    private MultipartBody.Part bitmapToPart(@NonNull Bitmap bitmap) throws IOException {
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, 90, stream);
-        byte[] bytes = stream.toByteArray();
-        RequestBody requestBody = RequestBody.create(MEDIA_TYPE_JPEG, bytes);
-        return MultipartBody.Part.createFormData("file", "capture.jpg", requestBody);
+    public void close() {
+        localDetector.close();
+        remoteDetector.close();
     }
 
-    private List<YoloDetection> mapDetections(@NonNull RemoteDetectionResponse response) {
-        if (response.detections == null || response.detections.isEmpty()) {
-            return Collections.emptyList();
-        }
-        List<YoloDetection> mapped = new ArrayList<>(response.detections.size());
-        for (RemoteDetection detection : response.detections) {
-            if (detection == null) {
-                continue;
-            }
-            String label = mapLabel(detection.classId, detection.label);
-            List<Float> box = detection.boxNorm != null ? detection.boxNorm : Collections.emptyList();
-            mapped.add(new YoloDetection(label, detection.confidence, box));
+    private DetectionBatch runDetector(@NonNull DetectorMode backend,
+                                       @NonNull Detector detector,
+                                       @NonNull DetectorInput input,
+                                       @NonNull DetectionTrace trace) {
+        try {
+            DetectionBatch batch = detector.detect(input, trace);
+            trace.onDetectorUsed(backend);
+            return batch;
+        } catch (Exception e) {
+            Log.e(TAG, "YOLO detection failure", e);
         }
-        return mapped;
+        return new DetectionBatch(1);
     }
 
-    private String mapLabel(int classId, @Nullable String fallback) {
+    static String mapLabel(int classId, @Nullable String fallback) {
         if (classId >= 0 && classId < FALLBACK_LABELS.length) {
             return FALLBACK_LABELS[classId];
         }
@@ -107,28 +149,4 @@ public class YoloProcessor {
         }
         return String.format(Locale.US, "class_%d", classId);
     }
-
-    private interface RemoteYoloService {
-        @Multipart
-        @POST("detect")
-        Call<RemoteDetectionResponse> detect(@Part MultipartBody.Part file);
-    }
-
-    private static final class RemoteDetectionResponse {
-        List<RemoteDetection> detections;
-        String filename;
-    }
-
-    private static final class RemoteDetection {
-        @SerializedName("box_norm")
-        List<Float> boxNorm;
-
-        @SerializedName("confidence")
-        float confidence;
-
-        @SerializedName("class_id")
-        int classId;
-
-        String label;
-    }
 }
@@ -0,0 +1,119 @@
+package com.example.argosapp.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+// Signature canonicalization and the fresh / stale / expired lifecycle of cached analyses
+public class AnalysisCacheTest {
+
+    private static final long FRESH = 1_000;
+    private static final long MAX_AGE = 5_000;
+
+    @Test
+    public void signature_ignoresDetectionOrderAndLabelCase() {
+        YoloDetection squash = detection("Squash ", 0.91f);
+        YoloDetection breach = detection("breach", 0.47f);
+
+        String forward = AnalysisCache.signatureOf(Arrays.asList(squash, breach), "ignored");
+        String backward = AnalysisCache.signatureOf(Arrays.asList(breach, detection("squash", 0.85f)), "other");
+
+        assertEquals("det:breach@2,squash@4", forward);
+        assertEquals(forward, backward);
+    }
+
+    @Test
+    public void signature_bucketsConfidenceInStepsOfTwoTenths() {
+        assertEquals("det:x@0", signatureOf(0.19f));
+        assertEquals("det:x@1", signatureOf(0.2f));
+        assertEquals("det:x@1", signatureOf(0.39f));
+        assertEquals("det:x@2", signatureOf(0.4f));
+        assertEquals("det:x@4", signatureOf(0.99f));
+        // Full confidence shares the top bucket rather than opening a sixth one
+        assertEquals("det:x@4", signatureOf(1f));
+    }
+
+    @Test
+    public void signature_withoutDetections_fallsBackToNormalizedText() {
+        String signature = AnalysisCache.signatureOf(Collections.emptyList(), "  Found 2\tpotential\n ISSUES ");
+
+        assertEquals("text:found 2 potential issues", signature);
+        assertNotEquals(signature, AnalysisCache.signatureOf(
+                Collections.singletonList(detection("found", 0.5f)), "found 2 potential issues"));
+    }
+
+    @Test
+    public void lookup_isFreshThenStaleThenExpired() {
+        AnalysisCache cache = new AnalysisCache(4, FRESH, MAX_AGE);
+        ULDReport report = report("AKE1");
+        cache.put("sig", report, 0);
+
+        AnalysisCache.Hit fresh = cache.lookup("sig", FRESH);
+        assertSame(report, fresh.getReport());
+        assertFalse(fresh.isStale());
+        assertTrue(cache.lookup("sig", FRESH + 1).isStale());
+        assertTrue(cache.lookup("sig", MAX_AGE).isStale());
+        assertNull(cache.lookup("sig", MAX_AGE + 1));
+        // An expired entry is dropped, not just skipped
+        assertNull(cache.lookup("sig", 0));
+
+        AnalysisCache.Stats stats = cache.stats();
+        assertEquals(3, stats.hits);
+        assertEquals(2, stats.staleHits);
+        assertEquals(2, stats.misses);
+        assertEquals(0, stats.size);
+    }
+
+    @Test
+    public void put_refreshesStoredTime() {
+        AnalysisCache cache = new AnalysisCache(4, FRESH, MAX_AGE);
+        cache.put("sig", report("old"), 0);
+        cache.put("sig", report("new"), 3_000);
+
+        AnalysisCache.Hit hit = cache.lookup("sig", 3_500);
+        assertEquals("new", hit.getReport().getUld_id());
+        assertFalse(hit.isStale());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        AnalysisCache cache = new AnalysisCache(2, FRESH, MAX_AGE);
+        cache.put("a", report("A"), 0);
+        cache.put("b", report("B"), 0);
+        // Touching "a" makes "b" the eldest
+        assertNotNull(cache.lookup("a", 0));
+        cache.put("c", report("C"), 0);
+
+        assertNull(cache.lookup("b", 0));
+        assertNotNull(cache.lookup("a", 0));
+        assertNotNull(cache.lookup("c", 0));
+        assertEquals(2, cache.stats().size);
+    }
+
+    @Test
+    public void beginRevalidation_allowsOneRefreshPerSignature() {
+        AnalysisCache cache = new AnalysisCache(2, FRESH, MAX_AGE);
+
+        assertTrue(cache.beginRevalidation("sig"));
+        assertFalse(cache.beginRevalidation("sig"));
+        cache.put("sig", report("A"), 0);
+        assertTrue(cache.beginRevalidation("sig"));
+        cache.endRevalidation("sig");
+        assertTrue(cache.beginRevalidation("sig"));
+    }
+
+    private static String signatureOf(float confidence) {
+        return AnalysisCache.signatureOf(Collections.singletonList(detection("x", confidence)), "");
+    }
+
+    private static YoloDetection detection(String className, float confidence) {
+        return new YoloDetection(className, confidence, Arrays.asList(0f, 0f, 1f, 1f));
+    }
+
+    private static ULDReport report(String uldId) {
+        return new ULDReport(uldId, "green", null, null);
+    }
+}
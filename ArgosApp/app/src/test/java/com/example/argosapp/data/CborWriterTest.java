@@ -0,0 +1,133 @@
+package com.example.argosapp.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import okio.Buffer;
+import okio.ByteString;
+
+import static org.junit.Assert.*;
+
+// Encoded bytes checked against the examples in RFC 8949 appendix A
+public class CborWriterTest {
+
+    @Test
+    public void integer_usesShortestHead() {
+        assertEncodes("00", new CborWriter().integer(0));
+        assertEncodes("17", new CborWriter().integer(23));
+        assertEncodes("1818", new CborWriter().integer(24));
+        assertEncodes("18ff", new CborWriter().integer(255));
+        assertEncodes("190100", new CborWriter().integer(256));
+        assertEncodes("19ffff", new CborWriter().integer(65535));
+        assertEncodes("1a00010000", new CborWriter().integer(65536));
+        assertEncodes("1a000f4240", new CborWriter().integer(1_000_000));
+        assertEncodes("1b000000e8d4a51000", new CborWriter().integer(1_000_000_000_000L));
+    }
+
+    @Test
+    public void integer_negative() {
+        assertEncodes("20", new CborWriter().integer(-1));
+        assertEncodes("29", new CborWriter().integer(-10));
+        assertEncodes("37", new CborWriter().integer(-24));
+        assertEncodes("3818", new CborWriter().integer(-25));
+        assertEncodes("3863", new CborWriter().integer(-100));
+        assertEncodes("3903e7", new CborWriter().integer(-1000));
+        assertEncodes("3b7fffffffffffffff", new CborWriter().integer(Long.MIN_VALUE));
+    }
+
+    @Test
+    public void float32_writesIeeeBits() {
+        assertEncodes("fa3fc00000", new CborWriter().float32(1.5f));
+        assertEncodes("fa47c35000", new CborWriter().float32(100000.0f));
+        assertEncodes("fa7f7fffff", new CborWriter().float32(Float.MAX_VALUE));
+        assertEncodes("fa80000000", new CborWriter().float32(-0f));
+        assertEncodes("fa7f800000", new CborWriter().float32(Float.POSITIVE_INFINITY));
+        assertEncodes("fa7fc00000", new CborWriter().float32(Float.NaN));
+    }
+
+    @Test
+    public void string_lengthIsUtf8Bytes() {
+        assertEncodes("60", new CborWriter().string(""));
+        assertEncodes("6449455446", new CborWriter().string("IETF"));
+        assertEncodes("62c3bc", new CborWriter().string("ü"));
+        assertEncodes("63e6b0b4", new CborWriter().string("水"));
+    }
+
+    @Test
+    public void string_lengthHeadAtBoundaries() {
+        assertStringHead("77", 23);
+        assertStringHead("7818", 24);
+        assertStringHead("78ff", 255);
+        assertStringHead("790100", 256);
+    }
+
+    @Test
+    public void containers_lengthHeadAtBoundaries() {
+        assertEncodes("97", new CborWriter().beginArray(23));
+        assertEncodes("9818", new CborWriter().beginArray(24));
+        assertEncodes("98ff", new CborWriter().beginArray(255));
+        assertEncodes("990100", new CborWriter().beginArray(256));
+        assertEncodes("b7", new CborWriter().beginMap(23));
+        assertEncodes("b818", new CborWriter().beginMap(24));
+        assertEncodes("b8ff", new CborWriter().beginMap(255));
+        assertEncodes("b90100", new CborWriter().beginMap(256));
+    }
+
+    @Test
+    public void nestedContainers() {
+        // {"a": 1, "b": [2, 3]}
+        assertEncodes("a26161016162820203", new CborWriter()
+                .beginMap(2)
+                .string("a").integer(1)
+                .string("b").beginArray(2).integer(2).integer(3));
+        // [1, [2, 3], [4, 5]]
+        assertEncodes("8301820203820405", new CborWriter()
+                .beginArray(3)
+                .integer(1)
+                .beginArray(2).integer(2).integer(3)
+                .beginArray(2).integer(4).integer(5));
+        // ["a", {"b": "c"}]
+        assertEncodes("826161a161626163", new CborWriter()
+                .beginArray(2)
+                .string("a")
+                .beginMap(1).string("b").string("c"));
+        assertEncodes("f6", new CborWriter().nullValue());
+    }
+
+    @Test
+    public void analysisRequest_cborBody() throws Exception {
+        YOLOAnalysisRequest request = YOLOAnalysisRequest.fromDetections("A", Collections.singletonList(
+                new YoloDetection(1, "squash", 0.5f, Arrays.asList(0f, 0f, 1f, 1f))));
+        Buffer body = new Buffer();
+        request.toCborBody().writeTo(body);
+
+        String expected = "a3"
+                + "66" + hex("uld_id") + "6141"
+                + "6e" + hex("schema_version") + "01"
+                + "6a" + hex("detections") + "81"
+                + "a3"
+                + "68" + hex("class_id") + "01"
+                + "6a" + hex("confidence") + "fa3f000000"
+                + "63" + hex("box") + "84" + "fa00000000" + "fa00000000" + "fa3f800000" + "fa3f800000";
+        assertEquals(expected, body.readByteString().hex());
+    }
+
+    private static void assertStringHead(String head, int length) {
+        char[] chars = new char[length];
+        Arrays.fill(chars, 'a');
+        ByteString encoded = new CborWriter().string(new String(chars)).toByteString();
+
+        assertEquals(head.length() / 2 + length, encoded.size());
+        assertEquals(head, encoded.substring(0, head.length() / 2).hex());
+    }
+
+    private static void assertEncodes(String hex, CborWriter writer) {
+        assertEquals(hex, writer.toByteString().hex());
+    }
+
+    private static String hex(String ascii) {
+        return ByteString.encodeUtf8(ascii).hex();
+    }
+}
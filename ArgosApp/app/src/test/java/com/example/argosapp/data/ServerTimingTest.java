@@ -0,0 +1,50 @@
+package com.example.argosapp.data;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Server-Timing as sent by ArgosDashboard/backend/main.py and cloud_api/main.py, and the parts of
+ * the header syntax other servers or proxies in between may add.
+ */
+public class ServerTimingTest {
+
+    @Test
+    public void parse_readsBackendHeaderInOrder() {
+        ServerTiming timing = ServerTiming.parse(Collections.singletonList("llm;dur=812.4, db;dur=3.1, total;dur=820.0"));
+
+        assertEquals(Arrays.asList("llm", "db", "total"), Arrays.asList(timing.asMap().keySet().toArray()));
+        assertEquals(812.4, timing.getMillis("llm"), 1e-9);
+        assertEquals(820.0, timing.getMillis(ServerTiming.TOTAL), 1e-9);
+        assertEquals(-1d, timing.getMillis("inference"), 0d);
+    }
+
+    @Test
+    public void parse_skipsDescriptionsAndMetricsWithoutDuration() {
+        ServerTiming timing = ServerTiming.parse(Arrays.asList(
+                "cache;desc=\"Cache, read\", edge;dur=\"12.5\";desc=HKG",
+                "miss, bogus;dur=abc, ;dur=4"));
+
+        assertEquals(Collections.singleton("edge"), timing.asMap().keySet());
+        assertEquals(12.5, timing.getMillis("edge"), 1e-9);
+        assertFalse(timing.has("cache"));
+        assertFalse(timing.has("miss"));
+    }
+
+    @Test
+    public void parse_addsUpRepeatedMetrics() {
+        ServerTiming timing = ServerTiming.parse(Arrays.asList("llm;dur=100", "llm;dur=50.5"));
+
+        assertEquals(150.5, timing.getMillis("llm"), 1e-9);
+    }
+
+    @Test
+    public void parse_emptyHeaderHasNoMetrics() {
+        assertTrue(ServerTiming.parse(Collections.emptyList()).isEmpty());
+        assertTrue(ServerTiming.parse(Collections.singletonList("")).isEmpty());
+    }
+}
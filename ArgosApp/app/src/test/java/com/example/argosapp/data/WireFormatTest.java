@@ -0,0 +1,206 @@
+package com.example.argosapp.data;
+
+import com.google.gson.Gson;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pins the JSON exchanged with the FastAPI backend (ArgosDashboard/backend/main.py). Request bodies
+ * must match both the literal the backend's pydantic models accept and what reflective Gson used to
+ * produce, so switching to WireFormat's adapters changes no byte on the wire.
+ */
+public class WireFormatTest {
+
+    private final Gson wire = WireFormat.gson();
+    private final Gson reflective = new Gson();
+
+    @Test
+    public void findingsRequest_matchesBackendAndReflectiveGson() {
+        YOLOAnalysisRequest request = new YOLOAnalysisRequest("AKE12345DL", "squash 91%");
+
+        String json = wire.toJson(request);
+
+        assertEquals("{\"uld_id\":\"AKE12345DL\",\"yolo_findings\":\"squash 91%\",\"schema_version\":1}", json);
+        assertEquals(reflective.toJson(request), json);
+    }
+
+    @Test
+    public void detectionsRequest_matchesBackendAndReflectiveGson() {
+        YOLOAnalysisRequest request = YOLOAnalysisRequest.fromDetections("AKE12345DL", Arrays.asList(
+                new YoloDetection(1, "squash", 0.9f, Arrays.asList(0.1f, 0.25f, 0.5f, 0.75f)),
+                new YoloDetection(0, "normal", 1.0f, Collections.emptyList())
+        ));
+
+        String json = wire.toJson(request);
+
+        assertEquals("{\"uld_id\":\"AKE12345DL\",\"schema_version\":1,\"detections\":["
+                + "{\"class_id\":1,\"confidence\":0.9,\"box\":[0.1,0.25,0.5,0.75]},"
+                + "{\"class_id\":0,\"confidence\":1.0,\"box\":[]}]}", json);
+        assertEquals(reflective.toJson(request), json);
+    }
+
+    @Test
+    public void batchRequest_matchesReflectiveGson() {
+        YOLOAnalysisBatchRequest request = new YOLOAnalysisBatchRequest(Arrays.asList(
+                new YOLOAnalysisRequest("AKE1", "normal 100%"),
+                YOLOAnalysisRequest.fromDetections("AKE2", Collections.singletonList(
+                        new YoloDetection(2, "breach", 0.333f, Arrays.asList(0f, 0f, 1f, 1f))))
+        ));
+
+        assertEquals(reflective.toJson(request), wire.toJson(request));
+    }
+
+    @Test
+    public void report_omitsNullsAndEscapesLikeReflectiveGson() {
+        ULDReport report = new ULDReport("AKE<1>", "red", null, "Don't use & repair");
+
+        String json = wire.toJson(report);
+
+        assertEquals(reflective.toJson(report), json);
+        assertFalse(json.contains("damage_category"));
+    }
+
+    @Test
+    public void detection_roundTripsLikeReflectiveGson() {
+        YoloDetection detection = new YoloDetection(2, "breach", 0.87f, Arrays.asList(0.2f, 0.3f, 0.4f, 0.5f));
+
+        String json = wire.toJson(detection);
+        YoloDetection parsed = wire.fromJson(json, YoloDetection.class);
+
+        assertEquals(reflective.toJson(detection), json);
+        assertEquals(2, parsed.getClassId());
+        assertEquals("breach", parsed.getClassName());
+        assertEquals(0.87f, parsed.getConfidence(), 0f);
+        assertEquals(detection.getBox(), parsed.getBox());
+    }
+
+    @Test
+    public void report_parsesBackendResponseAndSkipsUnusedFields() {
+        String json = "{\"uld_id\":\"AKE12345DL\",\"status\":\"yellow\",\"damage_category\":\"Squash\","
+                + "\"last_seen\":\"2026-10-17T08:00:00Z\",\"location\":\"HK\",\"shipping_location\":null,"
+                + "\"maintenance_suggestion\":\"Inspect the base rail\",\"id\":42}";
+
+        ULDReport report = wire.fromJson(json, ULDReport.class);
+
+        assertEquals("AKE12345DL", report.getUld_id());
+        assertEquals("yellow", report.getStatus());
+        assertEquals("Squash", report.getDamage_category());
+        assertEquals("Inspect the base rail", report.getMaintenance_suggestion());
+    }
+
+    @Test
+    public void streamEvents_parseAllLineTypes() {
+        AnalyzeStreamEvent partial = wire.fromJson(
+                "{\"type\":\"partial\",\"report\":{\"status\":\"red\",\"uld_id\":\"AKE1\"}}", AnalyzeStreamEvent.class);
+        AnalyzeStreamEvent error = wire.fromJson(
+                "{\"type\":\"error\",\"status\":422,\"error\":\"Unsupported schema_version 2\"}", AnalyzeStreamEvent.class);
+
+        assertEquals(AnalyzeStreamEvent.TYPE_PARTIAL, partial.getType());
+        assertEquals("red", partial.getReport().getStatus());
+        assertNull(partial.getReport().getDamage_category());
+        assertEquals(AnalyzeStreamEvent.TYPE_ERROR, error.getType());
+        assertEquals(422, error.getStatus());
+        assertEquals("Unsupported schema_version 2", error.getError());
+        assertNull(error.getReport());
+    }
+
+    @Test
+    public void streamEvent_readsServerTimingOnLastLine() {
+        AnalyzeStreamEvent report = wire.fromJson("{\"type\":\"report\",\"report\":{\"uld_id\":\"AKE1\"},"
+                + "\"server_timing\":\"llm;dur=812.4, db;dur=3.1, total;dur=820.0\"}", AnalyzeStreamEvent.class);
+
+        assertEquals("llm;dur=812.4, db;dur=3.1, total;dur=820.0", report.getServerTiming());
+        assertNull(wire.fromJson("{\"type\":\"partial\"}", AnalyzeStreamEvent.class).getServerTiming());
+    }
+
+    @Test
+    public void detectionsRequest_roundTrips() {
+        String json = "{\"uld_id\":\"AKE12345DL\",\"schema_version\":1,\"detections\":["
+                + "{\"class_id\":1,\"confidence\":0.9,\"box\":[0.1,0.25,0.5,0.75]},"
+                + "{\"class_id\":0,\"confidence\":1.0,\"box\":[]}]}";
+
+        YOLOAnalysisRequest parsed = wire.fromJson(json, YOLOAnalysisRequest.class);
+
+        assertTrue(parsed.hasStructuredDetections());
+        assertEquals(json, wire.toJson(parsed));
+    }
+
+    @Test
+    public void findingsRequest_roundTripsAndDefaultsSchemaVersion() {
+        YOLOAnalysisRequest parsed = wire.fromJson("{\"uld_id\":\"AKE1\",\"yolo_findings\":\"dent\"}",
+                YOLOAnalysisRequest.class);
+
+        assertFalse(parsed.hasStructuredDetections());
+        assertEquals("{\"uld_id\":\"AKE1\",\"yolo_findings\":\"dent\",\"schema_version\":1}", wire.toJson(parsed));
+    }
+
+    @Test
+    public void detectionsRequest_dropsNullEntriesAndBoxes() {
+        YOLOAnalysisRequest parsed = wire.fromJson("{\"uld_id\":\"AKE1\",\"detections\":"
+                + "[null,{\"class_id\":2,\"confidence\":0.5,\"box\":null}]}", YOLOAnalysisRequest.class);
+
+        assertEquals("{\"uld_id\":\"AKE1\",\"schema_version\":1,\"detections\":"
+                + "[{\"class_id\":2,\"confidence\":0.5,\"box\":[]}]}", wire.toJson(parsed));
+        // Still encodable: the CBOR writer relies on every detection having a box
+        assertNotNull(parsed.toCborBody());
+    }
+
+    @Test
+    public void batchRequest_roundTrips() {
+        YOLOAnalysisBatchRequest request = new YOLOAnalysisBatchRequest(Arrays.asList(
+                new YOLOAnalysisRequest("AKE1", "normal 100%"),
+                YOLOAnalysisRequest.fromDetections("AKE2", Collections.singletonList(
+                        new YoloDetection(2, "breach", 0.333f, Arrays.asList(0f, 0f, 1f, 1f))))
+        ));
+        String json = wire.toJson(request);
+
+        assertEquals(json, wire.toJson(wire.fromJson(json, YOLOAnalysisBatchRequest.class)));
+    }
+
+    @Test
+    public void streamEvents_roundTrip() {
+        String report = "{\"type\":\"report\",\"report\":{\"uld_id\":\"AKE1\",\"status\":\"red\"},"
+                + "\"server_timing\":\"llm;dur=1.0, total;dur=2.0\"}";
+        String error = "{\"type\":\"error\",\"status\":422,\"error\":\"Unsupported schema_version 2\"}";
+
+        AnalyzeStreamEvent reparsed = wire.fromJson(wire.toJson(wire.fromJson(report, AnalyzeStreamEvent.class)),
+                AnalyzeStreamEvent.class);
+
+        // Gson escapes '=' as \u003d, so compare what reads back rather than the text
+        assertEquals(AnalyzeStreamEvent.TYPE_REPORT, reparsed.getType());
+        assertEquals("red", reparsed.getReport().getStatus());
+        assertEquals("llm;dur=1.0, total;dur=2.0", reparsed.getServerTiming());
+        assertEquals(error, wire.toJson(wire.fromJson(error, AnalyzeStreamEvent.class)));
+    }
+
+    @Test
+    public void batchResults_roundTrip() {
+        String ok = "{\"index\":0,\"uld_id\":\"AKE1\",\"report\":{\"uld_id\":\"AKE1\",\"status\":\"green\"}}";
+        String failed = "{\"index\":3,\"uld_id\":\"AKE4\",\"error\":\"AI analysis failed\"}";
+
+        assertEquals(ok, wire.toJson(wire.fromJson(ok, BatchAnalysisResult.class)));
+        assertEquals(failed, wire.toJson(wire.fromJson(failed, BatchAnalysisResult.class)));
+    }
+
+    @Test
+    public void batchResults_parseReportsAndErrors() {
+        BatchAnalysisResult ok = wire.fromJson(
+                "{\"index\":0,\"uld_id\":\"AKE1\",\"report\":{\"uld_id\":\"AKE1\",\"status\":\"green\"}}",
+                BatchAnalysisResult.class);
+        BatchAnalysisResult failed = wire.fromJson(
+                "{\"index\":3,\"uld_id\":\"AKE4\",\"error\":\"AI analysis failed\"}", BatchAnalysisResult.class);
+
+        assertEquals(0, ok.getIndex());
+        assertEquals("green", ok.getReport().getStatus());
+        assertNull(ok.getError());
+        assertEquals(3, failed.getIndex());
+        assertEquals("AKE4", failed.getUld_id());
+        assertNull(failed.getReport());
+        assertEquals("AI analysis failed", failed.getError());
+    }
+}
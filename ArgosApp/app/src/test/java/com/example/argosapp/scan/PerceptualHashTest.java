@@ -0,0 +1,152 @@
+package com.example.argosapp.scan;
+
+import com.example.argosapp.data.ULDReport;
+import com.example.argosapp.data.YoloDetection;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+// dHash distances for retakes versus different photos, and the recent-scan cache built on them
+public class PerceptualHashTest {
+
+    // Matches MainViewModel's DETECTION_CACHE_MAX_DISTANCE
+    private static final int MAX_DISTANCE = 6;
+    // One 16x16 block per grid cell, so computeLuma samples every pixel
+    private static final int WIDTH = 9 * 16;
+    private static final int HEIGHT = 8 * 16;
+
+    @Test
+    public void identicalFrames_haveDistanceZero() {
+        int[] luma = blocks(1);
+
+        assertEquals(0, PerceptualHash.distance(
+                PerceptualHash.compute(toArgb(luma), WIDTH, HEIGHT),
+                PerceptualHash.compute(toArgb(luma.clone()), WIDTH, HEIGHT)));
+    }
+
+    @Test
+    public void retake_staysWithinCacheDistance() {
+        int[] luma = blocks(1);
+        int[] retake = luma.clone();
+        Random noise = new Random(7);
+        for (int i = 0; i < retake.length; i++) {
+            // Sensor noise plus a slightly brighter exposure
+            retake[i] = clamp(retake[i] + 12 + noise.nextInt(9) - 4);
+        }
+
+        int distance = PerceptualHash.distance(
+                PerceptualHash.compute(toArgb(luma), WIDTH, HEIGHT),
+                PerceptualHash.compute(toArgb(retake), WIDTH, HEIGHT));
+
+        assertTrue("distance " + distance, distance <= MAX_DISTANCE);
+    }
+
+    @Test
+    public void differentFrames_areFarApart() {
+        int distance = PerceptualHash.distance(
+                PerceptualHash.compute(toArgb(blocks(1)), WIDTH, HEIGHT),
+                PerceptualHash.compute(toArgb(blocks(2)), WIDTH, HEIGHT));
+
+        assertTrue("distance " + distance, distance > 3 * MAX_DISTANCE);
+    }
+
+    @Test
+    public void computeLuma_matchesBitmapHashAndIgnoresRowPadding() {
+        int[] luma = blocks(3);
+        long expected = PerceptualHash.compute(toArgb(luma), WIDTH, HEIGHT);
+
+        assertEquals(expected, PerceptualHash.computeLuma(toPlane(luma, WIDTH, 1), WIDTH, HEIGHT, WIDTH, 1));
+        assertEquals(expected, PerceptualHash.computeLuma(toPlane(luma, WIDTH + 32, 1), WIDTH, HEIGHT, WIDTH + 32, 1));
+        assertEquals(expected, PerceptualHash.computeLuma(toPlane(luma, WIDTH * 2, 2), WIDTH, HEIGHT, WIDTH * 2, 2));
+    }
+
+    @Test
+    public void cache_returnsClosestEntryWithinDistance() {
+        DetectionCache cache = new DetectionCache(4, 10_000, MAX_DISTANCE);
+        ULDReport near = new ULDReport("near", "green", null, null);
+        cache.put(0b111L, detections(), "far", new ULDReport("far", "green", null, null), 0);
+        cache.put(0b1L, detections(), "near", near, 0);
+
+        assertSame(near, cache.find(0L, 0).getReport());
+        assertNull(cache.find(0xFFFFL, 0));
+    }
+
+    @Test
+    public void cache_dropsEntriesOutsideWindow() {
+        DetectionCache cache = new DetectionCache(4, 10_000, MAX_DISTANCE);
+        cache.put(0L, detections(), "", new ULDReport("a", "green", null, null), 0);
+
+        assertNotNull(cache.find(0L, 10_000));
+        assertNull(cache.find(0L, 10_001));
+        assertNull(cache.find(0L, 0));
+    }
+
+    @Test
+    public void cache_evictsLeastRecentlyUsed() {
+        DetectionCache cache = new DetectionCache(2, 10_000, MAX_DISTANCE);
+        long a = 0L;
+        long b = 0xFFFFFFFFL;
+        long c = -1L;
+        cache.put(a, detections(), "a", new ULDReport("a", "green", null, null), 0);
+        cache.put(b, detections(), "b", new ULDReport("b", "green", null, null), 0);
+        // A hit touches "a", so "b" is the one to go
+        assertNotNull(cache.find(a, 0));
+        cache.put(c, detections(), "c", new ULDReport("c", "green", null, null), 0);
+
+        assertNull(cache.find(b, 0));
+        assertEquals("a", cache.find(a, 0).getYoloFindings());
+        assertEquals("c", cache.find(c, 0).getYoloFindings());
+    }
+
+    // A 9x8 grid of random grey levels blown up to WIDTH x HEIGHT
+    private static int[] blocks(long seed) {
+        Random random = new Random(seed);
+        int[] cells = new int[9 * 8];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = 30 + random.nextInt(170);
+        }
+        int[] luma = new int[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                luma[y * WIDTH + x] = cells[(y / 16) * 9 + x / 16];
+            }
+        }
+        return luma;
+    }
+
+    private static int[] toArgb(int[] luma) {
+        int[] argb = new int[luma.length];
+        for (int i = 0; i < luma.length; i++) {
+            int v = luma[i];
+            argb[i] = 0xFF000000 | (v << 16) | (v << 8) | v;
+        }
+        return argb;
+    }
+
+    // Y plane with the given row stride and pixel stride; padding bytes are set to white
+    private static ByteBuffer toPlane(int[] luma, int rowStride, int pixelStride) {
+        byte[] bytes = new byte[rowStride * HEIGHT];
+        Arrays.fill(bytes, (byte) 0xFF);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                bytes[y * rowStride + x * pixelStride] = (byte) luma[y * WIDTH + x];
+            }
+        }
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+
+    private static List<YoloDetection> detections() {
+        return Collections.emptyList();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.argosapp.yolo;
+
+import com.example.argosapp.data.DetectionBatch;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// Thresholding, class-aware NMS and the top-k cap applied to every detector's output
+public class PostProcessorTest {
+
+    @Test
+    public void process_suppressesOverlapsWithinAClassOnly() {
+        DetectionBatch input = new DetectionBatch();
+        input.add(1, "squash", 0.9f, 0f, 0f, 1f, 1f);
+        input.add(1, "squash", 0.8f, 0.05f, 0.05f, 1f, 1f);
+        input.add(2, "breach", 0.7f, 0f, 0f, 1f, 1f);
+
+        DetectionBatch output = new PostProcessor(0.25f, 0.45f, 100).process(input);
+
+        assertEquals(2, output.size());
+        assertEquals(1, output.getClassId(0));
+        assertEquals(0.9f, output.getScore(0), 0f);
+        assertEquals(2, output.getClassId(1));
+    }
+
+    @Test
+    public void process_breaksScoreTiesByOriginalIndex() {
+        DetectionBatch input = new DetectionBatch();
+        input.add(1, "first", 0.6f, 0f, 0f, 0.5f, 0.5f);
+        input.add(3, "apart", 0.6f, 0.6f, 0.6f, 1f, 1f);
+        input.add(1, "second", 0.6f, 0f, 0f, 0.5f, 0.5f);
+
+        DetectionBatch output = new PostProcessor(0.25f, 0.45f, 100).process(input);
+
+        assertEquals(2, output.size());
+        assertEquals("first", output.getLabel(0));
+        assertEquals("apart", output.getLabel(1));
+    }
+
+    @Test
+    public void process_keepsTopKByScore() {
+        DetectionBatch input = new DetectionBatch();
+        for (int i = 0; i < 5; i++) {
+            float x = i * 0.2f;
+            input.add(i, "class" + i, 0.3f + i * 0.1f, x, 0f, x + 0.1f, 0.1f);
+        }
+
+        DetectionBatch output = new PostProcessor(0.25f, 0.45f, 2).process(input);
+
+        assertEquals(2, output.size());
+        assertEquals(4, output.getClassId(0));
+        assertEquals(3, output.getClassId(1));
+    }
+
+    @Test
+    public void process_allBelowThreshold_returnsEmpty() {
+        DetectionBatch input = new DetectionBatch();
+        input.add(0, "normal", 0.1f, 0f, 0f, 1f, 1f);
+        input.add(1, "squash", 0.2499f, 0f, 0f, 1f, 1f);
+        input.add(2, "breach", Float.NaN, 0f, 0f, 1f, 1f);
+
+        assertTrue(new PostProcessor(0.25f, 0.45f, 100).process(input).isEmpty());
+    }
+
+    @Test
+    public void process_scoreAtThreshold_isKept() {
+        DetectionBatch input = new DetectionBatch();
+        input.add(0, "normal", 0.25f, 0f, 0f, 1f, 1f);
+
+        assertEquals(1, new PostProcessor(0.25f, 0.45f, 100).process(input).size());
+    }
+
+    // The two boxes overlap with an IoU of exactly 0.5; only a strictly greater IoU suppresses
+    @Test
+    public void process_iouAtThreshold_keepsBoth() {
+        DetectionBatch input = new DetectionBatch();
+        input.add(1, "squash", 0.9f, 0f, 0f, 1f, 1f);
+        input.add(1, "squash", 0.8f, 0f, 0f, 1f, 0.5f);
+
+        assertEquals(2, new PostProcessor(0.25f, 0.5f, 100).process(input).size());
+        assertEquals(1, new PostProcessor(0.25f, 0.49f, 100).process(input).size());
+    }
+
+    @Test
+    public void process_neverSuppressesDetectionsWithoutBox() {
+        DetectionBatch input = new DetectionBatch();
+        input.add(1, "squash", 0.9f, 0f, 0f, 1f, 1f);
+        input.add(1, "squash", 0.8f);
+
+        assertEquals(2, new PostProcessor(0.25f, 0.45f, 100).process(input).size());
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.argosapp.yolo;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+// The hosted detector's response, read and written by RemoteDetector's adapter
+public class RemoteResponseAdapterTest {
+
+    private final RemoteDetector.ResponseAdapter adapter = new RemoteDetector.ResponseAdapter();
+
+    @Test
+    public void response_roundTrips() throws Exception {
+        String json = "{\"detections\":[{\"box_norm\":[0.1,0.2,0.3,0.4],\"confidence\":0.87,\"class_id\":2,"
+                + "\"label\":\"breach\"},{\"confidence\":0.5,\"class_id\":0}],\"filename\":\"capture.jpg\"}";
+
+        RemoteDetector.RemoteDetectionResponse response = adapter.fromJson(json);
+
+        assertEquals(2, response.detections.size());
+        assertEquals(2, response.detections.get(0).classId);
+        assertArrayEquals(new float[]{0.1f, 0.2f, 0.3f, 0.4f}, response.detections.get(0).boxNorm, 0f);
+        assertNull(response.detections.get(1).boxNorm);
+        assertEquals(json, adapter.toJson(response));
+    }
+
+    @Test
+    public void response_skipsUnknownFieldsAndNullDetections() throws Exception {
+        RemoteDetector.RemoteDetectionResponse response = adapter.fromJson(
+                "{\"detections\":[null,{\"class_id\":1,\"confidence\":0.4,\"extra\":true}],\"took_ms\":12}");
+
+        assertEquals(1, response.detections.size());
+        assertEquals("{\"detections\":[{\"confidence\":0.4,\"class_id\":1}]}", adapter.toJson(response));
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.argosapp.benchmark;
+
+import androidx.annotation.NonNull;
+import androidx.benchmark.macro.MacrobenchmarkScope;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.Direction;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+// UI journeys shared by the benchmarks and the baseline profile generator
+final class ArgosFlows {
+
+    static final String PACKAGE_NAME = "com.example.argosapp";
+    // Logs in as "bench.user", which the app stores history under as "bench_user"
+    static final String USER = "bench.user";
+    static final String USER_KEY = "bench_user";
+    static final int SEEDED_HISTORY_SIZE = 5_000;
+
+    private static final long TIMEOUT_MS = 10_000;
+    // The analyze call goes to the dashboard backend, which has to be reachable from the device
+    private static final long ANALYZE_TIMEOUT_MS = 30_000;
+    private static final int HISTORY_FLINGS = 5;
+
+    private ArgosFlows() {
+    }
+
+    // Tops the benchmark user's history up to count rows through the benchmark-only receiver
+    static void seedHistory(@NonNull MacrobenchmarkScope scope, int count) {
+        try {
+            // -f 32: FLAG_INCLUDE_STOPPED_PACKAGES, the app is usually not running yet
+            scope.getDevice().executeShellCommand("am broadcast -f 32 -n " + PACKAGE_NAME
+                    + "/.history.SeedHistoryReceiver --es user " + USER_KEY + " --ei count " + count);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static void login(@NonNull UiDevice device) {
+        waitFor(device, "edit_employee_id", TIMEOUT_MS).setText(USER);
+        waitFor(device, "edit_password", TIMEOUT_MS).setText("benchmark");
+        waitFor(device, "button_login", TIMEOUT_MS).click();
+        waitFor(device, "button_capture", TIMEOUT_MS);
+    }
+
+    static void openHistory(@NonNull UiDevice device) {
+        waitFor(device, "nav_history", TIMEOUT_MS).click();
+        // Wait for the first page, not just the empty list
+        waitFor(device, "recycler_history", TIMEOUT_MS);
+        device.wait(Until.hasObject(By.res(PACKAGE_NAME, "recycler_history").hasChild(By.depth(1))), TIMEOUT_MS);
+    }
+
+    static void flingHistory(@NonNull UiDevice device) {
+        UiObject2 list = waitFor(device, "recycler_history", TIMEOUT_MS);
+        // Keep the gesture clear of the system navigation area
+        list.setGestureMargin(device.getDisplayWidth() / 5);
+        for (int i = 0; i < HISTORY_FLINGS; i++) {
+            list.fling(Direction.DOWN);
+        }
+        device.waitForIdle();
+    }
+
+    // Simulated green scan: analyze round trip, then navigation to the result screen
+    static void scanToResult(@NonNull UiDevice device) {
+        waitFor(device, "button_simulate_green", TIMEOUT_MS).click();
+        waitFor(device, "text_uld_id", ANALYZE_TIMEOUT_MS);
+    }
+
+    static void backToScan(@NonNull UiDevice device) {
+        device.pressBack();
+        waitFor(device, "button_capture", TIMEOUT_MS);
+    }
+
+    @NonNull
+    private static UiObject2 waitFor(@NonNull UiDevice device, @NonNull String resourceId, long timeoutMs) {
+        UiObject2 object = device.wait(Until.findObject(By.res(PACKAGE_NAME, resourceId)), timeoutMs);
+        if (object == null) {
+            throw new AssertionError("View " + resourceId + " did not appear within " + timeoutMs + " ms");
+        }
+        return object;
+    }
+}
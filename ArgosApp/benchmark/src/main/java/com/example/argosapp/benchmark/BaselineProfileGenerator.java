@@ -0,0 +1,51 @@
+package com.example.argosapp.benchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * Records the code startup, login and history scrolling touch. The scan-to-result journey is left
+ * out because it needs the backend, and profile generation should work on any device. Run through
+ * `./gradlew :app:generateBaselineProfile`; the plugin copies the result into the app's release
+ * sources, where profileinstaller picks it up on install.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    private static final int MAX_ITERATIONS = 15;
+    private static final int STABLE_ITERATIONS = 3;
+    // Enough rows for several pages; the scroll benchmark uses the full 5k
+    private static final int SEEDED_HISTORY_SIZE = 500;
+
+    @Rule
+    public final BaselineProfileRule rule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        rule.collect(
+                ArgosFlows.PACKAGE_NAME,
+                MAX_ITERATIONS,
+                STABLE_ITERATIONS,
+                null,
+                true,
+                false,
+                className -> true,
+                scope -> {
+                    ArgosFlows.seedHistory(scope, SEEDED_HISTORY_SIZE);
+                    scope.killProcess();
+                    scope.startActivityAndWait();
+                    ArgosFlows.login(scope.getDevice());
+                    ArgosFlows.openHistory(scope.getDevice());
+                    ArgosFlows.flingHistory(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.argosapp.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+// Frame timing while flinging through a 5k-item history, paging from SQLite as it goes
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class HistoryScrollBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public final MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void flingSeededHistory() {
+        rule.measureRepeated(
+                ArgosFlows.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(BaselineProfileMode.Require, 0),
+                null,
+                ITERATIONS,
+                scope -> {
+                    // Seeding wakes the app process, so restart it for a fresh history screen
+                    ArgosFlows.seedHistory(scope, ArgosFlows.SEEDED_HISTORY_SIZE);
+                    scope.killProcess();
+                    scope.startActivityAndWait();
+                    ArgosFlows.login(scope.getDevice());
+                    ArgosFlows.openHistory(scope.getDevice());
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    ArgosFlows.flingHistory(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+}
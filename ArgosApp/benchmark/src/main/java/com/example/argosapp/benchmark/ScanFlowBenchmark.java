@@ -0,0 +1,68 @@
+package com.example.argosapp.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.FrameTimingMetric;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Frame timing of the two navigations an inspector repeats all shift: login to the scan screen, and
+ * a (simulated) scan to its result. The second needs the dashboard backend reachable from the device.
+ */
+@LargeTest
+@RunWith(AndroidJUnit4.class)
+public class ScanFlowBenchmark {
+
+    private static final int ITERATIONS = 5;
+
+    @Rule
+    public final MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    @Test
+    public void loginToScan() {
+        rule.measureRepeated(
+                ArgosFlows.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(BaselineProfileMode.Require, 0),
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    ArgosFlows.login(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+
+    @Test
+    public void scanToResult() {
+        rule.measureRepeated(
+                ArgosFlows.PACKAGE_NAME,
+                Collections.singletonList(new FrameTimingMetric()),
+                new CompilationMode.Partial(BaselineProfileMode.Require, 0),
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> {
+                    scope.startActivityAndWait();
+                    ArgosFlows.login(scope.getDevice());
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    ArgosFlows.scanToResult(scope.getDevice());
+                    return Unit.INSTANCE;
+                });
+    }
+}
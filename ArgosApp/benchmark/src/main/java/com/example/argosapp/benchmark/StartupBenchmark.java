@@ -0,0 +1,71 @@
+package com.example.argosapp.benchmark;
+
+import androidx.benchmark.macro.BaselineProfileMode;
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.filters.LargeTest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * Time to first frame of the login screen through MainActivity, cold and warm, with and without the
+ * baseline profile. The gap between the two compilation modes is what the profile is worth.
+ */
+@LargeTest
+@RunWith(Parameterized.class)
+public class StartupBenchmark {
+
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public final MacrobenchmarkRule rule = new MacrobenchmarkRule();
+
+    private final StartupMode startupMode;
+    private final CompilationMode compilationMode;
+
+    public StartupBenchmark(StartupMode startupMode, CompilationMode compilationMode) {
+        this.startupMode = startupMode;
+        this.compilationMode = compilationMode;
+    }
+
+    @Parameterized.Parameters(name = "{0},{1}")
+    public static Collection<Object[]> parameters() {
+        CompilationMode none = new CompilationMode.None();
+        CompilationMode baselineProfile = new CompilationMode.Partial(BaselineProfileMode.Require, 0);
+        return Arrays.asList(
+                new Object[]{StartupMode.COLD, none},
+                new Object[]{StartupMode.COLD, baselineProfile},
+                new Object[]{StartupMode.WARM, none},
+                new Object[]{StartupMode.WARM, baselineProfile}
+        );
+    }
+
+    @Test
+    public void startup() {
+        rule.measureRepeated(
+                ArgosFlows.PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                startupMode,
+                ITERATIONS,
+                scope -> {
+                    scope.pressHome();
+                    return Unit.INSTANCE;
+                },
+                scope -> {
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
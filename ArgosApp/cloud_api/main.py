@@ -1,13 +1,34 @@
-from fastapi import FastAPI, UploadFile, File
+from fastapi import FastAPI, Request, UploadFile, File
 from fastapi.responses import JSONResponse
 from ultralytics import YOLO
 from PIL import Image
 import io
+import re
+import secrets
+import time
 
 app = FastAPI(title="Argos YOLO API", version="1.0")
 model = YOLO("yolov8s.pt")
 
 LABEL_MAP = {0: "normal", 1: "breach", 2: "squeeze", 3: "leakage"}
+REQUEST_ID_PATTERN = re.compile(r"^[A-Za-z0-9._-]{1,64}$")
+
+
+# Echo the app's X-Request-ID and report where the time went, so the app can tell
+# network from inference; handlers add their own entries to request.state.timings
+@app.middleware("http")
+async def server_timing(request: Request, call_next):
+    start = time.perf_counter()
+    request.state.timings = []
+    response = await call_next(request)
+    total = (time.perf_counter() - start) * 1000
+    entries = request.state.timings + [("total", total)]
+    request_id = request.headers.get("x-request-id", "")
+    if not REQUEST_ID_PATTERN.match(request_id):
+        request_id = secrets.token_hex(8)
+    response.headers["X-Request-ID"] = request_id
+    response.headers["Server-Timing"] = ", ".join(f"{name};dur={dur:.1f}" for name, dur in entries)
+    return response
 
 
 @app.get("/")
@@ -16,10 +37,14 @@ async def health_check():
 
 
 @app.post("/predict")
-async def predict(file: UploadFile = File(...)):
+async def predict(request: Request, file: UploadFile = File(...)):
+    decode_start = time.perf_counter()
     image_bytes = await file.read()
     image = Image.open(io.BytesIO(image_bytes)).convert("RGB")
+    inference_start = time.perf_counter()
     results = model(image, imgsz=640, conf=0.25)[0]
+    request.state.timings.append(("decode", (inference_start - decode_start) * 1000))
+    request.state.timings.append(("inference", (time.perf_counter() - inference_start) * 1000))
 
     detections = []
     for box in results.boxes:
@@ -2,7 +2,9 @@
 
 import uvicorn
 from fastapi import FastAPI, Depends, HTTPException, Response
+from fastapi.encoders import jsonable_encoder
 from fastapi.middleware.cors import CORSMiddleware
+from fastapi.responses import StreamingResponse
 from sqlmodel import SQLModel, Field, create_engine, Session, select
 from typing import Optional
 from enum import Enum
@@ -10,12 +12,22 @@ import datetime
 import os
 import google.generativeai as genai
 import json
+import asyncio
+import zlib
 import hashlib
+import re
 import secrets
 import random
+import time
+from contextlib import contextmanager
+from contextvars import ContextVar
 from pathlib import Path
 from pydantic import BaseModel
 from dotenv import load_dotenv
+try:
+    import cbor2
+except ImportError:
+    cbor2 = None
 from sqlalchemy import Column, String, text
 
 # --- (載入 .env) ---
@@ -46,11 +58,27 @@ class ULDReport(SQLModel):
 class ULD(ULDReport, table=True):
     id: Optional[int] = Field(default=None, primary_key=True)
 
+# App 端 YOLO 模型的類別表 (class_id 即索引)
+YOLO_CLASS_NAMES = ["normal", "squash", "breach"]
+# App 目前送出的 detections 格式版本
+DETECTION_SCHEMA_VERSION = 1
+
+class Detection(BaseModel):
+    class_id: int
+    confidence: float
+    box: list[float] = []  # 正規化 [x1, y1, x2, y2]
+
 class YOLOAnalysisRequest(BaseModel):
     uld_id: str
-    yolo_findings: str 
+    # 舊版 App 與模擬掃描只送文字；新版改送結構化 detections
+    yolo_findings: Optional[str] = None
+    schema_version: int = 1
+    detections: Optional[list[Detection]] = None
     # (不含 Uploader)
 
+class YOLOAnalysisBatchRequest(BaseModel):
+    items: list[YOLOAnalysisRequest]
+
 class LoginRequest(BaseModel):
     username: str
     password: str
@@ -227,6 +255,184 @@ app.add_middleware(
     allow_headers=["*"],
 )
 
+
+# --- gzip 請求主體 (App 會壓縮較大的 analyze JSON) ---
+MAX_DECOMPRESSED_BODY = 10 * 1024 * 1024
+
+class GzipRequestMiddleware:
+    """解壓 Content-Encoding: gzip 的請求，下游端點照常讀取 JSON"""
+
+    def __init__(self, app):
+        self.app = app
+
+    async def __call__(self, scope, receive, send):
+        if scope["type"] != "http":
+            await self.app(scope, receive, send)
+            return
+        headers = [(k, v) for k, v in scope["headers"] if k != b"content-length"]
+        encoding = dict(scope["headers"]).get(b"content-encoding", b"").lower()
+        if encoding != b"gzip":
+            await self.app(scope, receive, send)
+            return
+
+        compressed = bytearray()
+        more_body = True
+        while more_body:
+            message = await receive()
+            compressed.extend(message.get("body", b""))
+            more_body = message.get("more_body", False)
+
+        # 限制解壓後大小，避免 gzip bomb
+        decompressor = zlib.decompressobj(wbits=16 + zlib.MAX_WBITS)
+        try:
+            body = decompressor.decompress(bytes(compressed), MAX_DECOMPRESSED_BODY)
+            too_large = bool(decompressor.unconsumed_tail)
+        except zlib.error:
+            body, too_large = None, False
+        if body is None or too_large:
+            status = 413 if too_large else 400
+            await send({"type": "http.response.start", "status": status,
+                        "headers": [(b"content-type", b"text/plain")]})
+            await send({"type": "http.response.body", "body": b"Invalid gzip request body"})
+            return
+
+        headers = [(k, v) for k, v in headers if k != b"content-encoding"]
+        headers.append((b"content-length", str(len(body)).encode()))
+        delivered = False
+
+        async def receive_decompressed():
+            nonlocal delivered
+            if not delivered:
+                delivered = True
+                return {"type": "http.request", "body": body, "more_body": False}
+            return await receive()
+
+        await self.app(dict(scope, headers=headers), receive_decompressed, send)
+
+
+# --- CBOR 請求主體 (App 以 application/cbor 送出較小的 analyze 請求) ---
+class CborRequestMiddleware:
+    """把 application/cbor 請求轉成 JSON；未安裝 cbor2 時回 415，App 會改送 JSON"""
+
+    def __init__(self, app):
+        self.app = app
+
+    async def __call__(self, scope, receive, send):
+        if scope["type"] != "http":
+            await self.app(scope, receive, send)
+            return
+        content_type = dict(scope["headers"]).get(b"content-type", b"").split(b";")[0].strip().lower()
+        if content_type != b"application/cbor":
+            await self.app(scope, receive, send)
+            return
+
+        async def reject(status: int, message: bytes):
+            await send({"type": "http.response.start", "status": status,
+                        "headers": [(b"content-type", b"text/plain")]})
+            await send({"type": "http.response.body", "body": message})
+
+        if cbor2 is None:
+            await reject(415, b"CBOR is not supported, send application/json")
+            return
+
+        encoded = bytearray()
+        more_body = True
+        while more_body:
+            message = await receive()
+            encoded.extend(message.get("body", b""))
+            more_body = message.get("more_body", False)
+        try:
+            body = json.dumps(cbor2.loads(bytes(encoded))).encode()
+        except Exception:
+            await reject(400, b"Invalid CBOR request body")
+            return
+
+        headers = [(k, v) for k, v in scope["headers"] if k not in (b"content-type", b"content-length")]
+        headers.append((b"content-type", b"application/json"))
+        headers.append((b"content-length", str(len(body)).encode()))
+        delivered = False
+
+        async def receive_json():
+            nonlocal delivered
+            if not delivered:
+                delivered = True
+                return {"type": "http.request", "body": body, "more_body": False}
+            return await receive()
+
+        await self.app(dict(scope, headers=headers), receive_json, send)
+
+
+
+# --- 請求追蹤與 Server-Timing (App 依 X-Request-ID 對應每個請求在伺服器端的耗時) ---
+REQUEST_ID_PATTERN = re.compile(rb"^[A-Za-z0-9._-]{1,64}$")
+
+
+class RequestTimings:
+    """單一請求內記錄的耗時 (毫秒)，以 Server-Timing 格式輸出，total 為收到請求至今"""
+
+    def __init__(self):
+        self.start = time.perf_counter()
+        self.entries: list[tuple[str, float]] = []
+
+    def header_value(self) -> str:
+        total = (time.perf_counter() - self.start) * 1000
+        return ", ".join(f"{name};dur={dur:.1f}" for name, dur in self.entries + [("total", total)])
+
+
+# 同一請求的 async 端點、threadpool 中的同步端點與串流 generator 都看得到同一個物件
+current_timings: ContextVar[Optional[RequestTimings]] = ContextVar("current_timings", default=None)
+
+
+@contextmanager
+def server_timing(name: str):
+    """記錄區塊耗時到目前請求的 Server-Timing (不在請求中時不做事)"""
+    start = time.perf_counter()
+    try:
+        yield
+    finally:
+        timings = current_timings.get()
+        if timings is not None:
+            timings.entries.append((name, (time.perf_counter() - start) * 1000))
+
+
+class ServerTimingMiddleware:
+    """
+    回應加上 X-Request-ID (沿用 App 送來的，否則自行產生) 與 Server-Timing 標頭。
+    串流回應的標頭在第一行之前就送出，只含當時已知的耗時；完整耗時另外放在最後一行的 server_timing
+    """
+
+    def __init__(self, app):
+        self.app = app
+
+    async def __call__(self, scope, receive, send):
+        if scope["type"] != "http":
+            await self.app(scope, receive, send)
+            return
+        request_id = dict(scope["headers"]).get(b"x-request-id", b"")
+        if not REQUEST_ID_PATTERN.match(request_id):
+            request_id = secrets.token_hex(8).encode()
+        timings = RequestTimings()
+        token = current_timings.set(timings)
+
+        async def send_with_timing(message):
+            if message["type"] == "http.response.start":
+                headers = list(message.get("headers", []))
+                headers.append((b"x-request-id", request_id))
+                headers.append((b"server-timing", timings.header_value().encode()))
+                message = dict(message, headers=headers)
+            await send(message)
+
+        try:
+            await self.app(scope, receive, send_with_timing)
+        finally:
+            current_timings.reset(token)
+
+
+# 後加入的 middleware 在外層：先記錄時間，再解 gzip，再轉 CBOR
+app.add_middleware(CborRequestMiddleware)
+app.add_middleware(GzipRequestMiddleware)
+app.add_middleware(ServerTimingMiddleware)
+
 # --- LLM 知識庫 (保持不變) ---
 ULD_INSPECTION_RULES = """
 ...
@@ -273,9 +479,58 @@ def build_prompt(uld_id: str, yolo_findings: str) -> str: # (不含 Uploader)
       "uld_id": "{uld_id}",
       "status": "green|yellow|red",
       "damage_category": "string (e.g., 'Panel crack > 10cm' or 'No damage found')",
-      "shipping_location": "string (e.g., 'HKG ➜ LAX' or 'Ready at SFO Warehouse')"
+      "shipping_location": "string (e.g., 'HKG ➜ LAX' or 'Ready at SFO Warehouse')",
+      "maintenance_suggestion": "string (one short sentence for the inspector)"
     }}
+    Keep the keys in exactly this order.
+    """
+# --- END 新增 ---
+
+
+# --- 結構化 detections：規則判定與 Prompt 文字 ---
+# 規則判定所需的最低信心值
+RULE_NORMAL_CONFIDENCE = 0.5
+RULE_BREACH_CONFIDENCE = 0.8
+
+
+def class_name_of(detection: Detection) -> str:
+    if 0 <= detection.class_id < len(YOLO_CLASS_NAMES):
+        return YOLO_CLASS_NAMES[detection.class_id]
+    return f"class_{detection.class_id}"
+
+
+def describe_detections(detections: list[Detection]) -> str:
+    """把結構化 detections 轉回 Prompt 用的文字 (與 App 舊版 yolo_findings 格式相同)"""
+    if not detections:
+        return "no damage"
+    parts = [f"{class_name_of(d)} (confidence: {d.confidence:.2f})" for d in detections]
+    return f"Found {len(detections)} potential issues: " + "; ".join(parts) + "; "
+
+
+def check_schema_version(request: YOLOAnalysisRequest) -> None:
+    if request.detections is not None and request.schema_version != DETECTION_SCHEMA_VERSION:
+        raise HTTPException(status_code=422,
+                            detail=f"Unsupported detections schema_version {request.schema_version}")
+
+
+def apply_rules(request: YOLOAnalysisRequest) -> Optional[ULDReport]:
+    """
+    明顯的情況直接判定，不呼叫 LLM：
+    - 沒有偵測到損壞 (只有可信的 normal) -> 綠燈
+    - 高信心的 breach -> 紅燈
+    其餘 (或只有文字 yolo_findings) 交給 LLM
     """
+    if request.detections is None:
+        return None
+    damage = [d for d in request.detections
+              if class_name_of(d) != "normal" or d.confidence < RULE_NORMAL_CONFIDENCE]
+    if not damage:
+        return ULDReport(uld_id=request.uld_id, status=TrafficLight.GREEN,
+                         damage_category="No damage found")
+    if any(class_name_of(d) == "breach" and d.confidence >= RULE_BREACH_CONFIDENCE for d in damage):
+        return ULDReport(uld_id=request.uld_id, status=TrafficLight.RED,
+                         damage_category="Breach")
+    return None
 # --- END 新增 ---
 
 
@@ -310,6 +565,102 @@ def save_report_to_db(report: ULDReport, session: Session) -> ULD:
 # --- END 重構 ---
 
 # --- 新增：Cloud AI 端點 ---
+def prepare_llm_prompt(request: YOLOAnalysisRequest) -> str:
+    """規則無法判定時才會呼叫：確認 LLM 可用並建構 Prompt (不含 Uploader)"""
+    if not llm:
+        raise HTTPException(status_code=500, detail="Gemini AI Model is not configured. Check .env file.")
+    findings = request.yolo_findings
+    if request.detections is not None:
+        findings = describe_detections(request.detections)
+    return build_prompt(
+        request.uld_id, 
+        findings or "no damage"
+    )
+
+
+def parse_llm_report(text: str) -> tuple[ULDReport, Optional[str]]:
+    """解析 LLM 回應 (移除 markdown)，回傳 ULDReport 與維修建議"""
+    cleaned_response = text.strip().replace("```json", "").replace("```", "").strip()
+    ai_report_data = json.loads(cleaned_response)
+    report = ULDReport(
+        uld_id=ai_report_data.get("uld_id"),
+        status=ai_report_data.get("status"),
+        damage_category=ai_report_data.get("damage_category"),
+        shipping_location=ai_report_data.get("shipping_location"),
+    )
+    return report, ai_report_data.get("maintenance_suggestion")
+
+
+async def analyze_with_llm(request: YOLOAnalysisRequest) -> ULDReport:
+    """
+    呼叫 LLM 分析單一 ULD 的 YOLO 發現，回傳尚未儲存的 ULDReport
+    (明顯的情況由 apply_rules 直接判定，不呼叫 LLM)
+    """
+    check_schema_version(request)
+    ruled = apply_rules(request)
+    if ruled is not None:
+        return ruled
+
+    # 1. 建構 Prompt
+    prompt = prepare_llm_prompt(request)
+
+    # 2. 呼叫 LLM API
+    with server_timing("llm"):
+        response = await llm.generate_content_async(prompt)
+
+    # 3. 解析 LLM 回應，建立 ULDReport 物件
+    report, _ = parse_llm_report(response.text)
+    return report
+
+
+# 從尚未完成的 LLM 回應中擷取已完整輸出的欄位
+PARTIAL_STATUS_PATTERN = re.compile(r'"status"\s*:\s*"(green|yellow|red)"', re.IGNORECASE)
+PARTIAL_DAMAGE_PATTERN = re.compile(r'"damage_category"\s*:\s*"((?:[^"\\]|\\.)*)"')
+
+
+def extract_partial_fields(text: str) -> dict:
+    fields = {}
+    status_match = PARTIAL_STATUS_PATTERN.search(text)
+    if status_match:
+        fields["status"] = status_match.group(1).lower()
+    damage_match = PARTIAL_DAMAGE_PATTERN.search(text)
+    if damage_match:
+        fields["damage_category"] = json.loads(f'"{damage_match.group(1)}"')
+    return fields
+
+
+async def stream_llm_report(request: YOLOAnalysisRequest):
+    """
+    串流版的 analyze_with_llm (async generator)：
+    先產出 ("partial", {...}) 燈號與損壞類別，最後產出 ("report", ULDReport, 維修建議)
+    """
+    check_schema_version(request)
+    ruled = apply_rules(request)
+    if ruled is not None:
+        yield "report", ruled, None
+        return
+
+    prompt = prepare_llm_prompt(request)
+    # llm 的耗時算到最後一個 chunk，包含等待 App 讀取 partial 行的時間
+    llm_start = time.perf_counter()
+    response = await llm.generate_content_async(prompt, stream=True)
+    text_so_far = ""
+    sent_fields = {}
+    async for chunk in response:
+        text_so_far += chunk.text
+        fields = extract_partial_fields(text_so_far)
+        # 燈號出現後，每多一個欄位就送一次
+        if "status" in fields and fields != sent_fields:
+            sent_fields = fields
+            yield "partial", dict(fields, uld_id=request.uld_id)
+    timings = current_timings.get()
+    if timings is not None:
+        timings.entries.append(("llm", (time.perf_counter() - llm_start) * 1000))
+
+    report, suggestion = parse_llm_report(text_so_far)
+    yield "report", report, suggestion
+
+
 @app.post("/api/ai/analyze", response_model=ULD)
 async def analyze_uld_damage(
     request: YOLOAnalysisRequest, 
@@ -319,38 +670,104 @@ async def analyze_uld_damage(
     [Cloud AI Endpoint]
     接收來自 App/YOLO 的原始發現，使用 LLM 進行分析...
     """
-    if not llm:
-        raise HTTPException(status_code=500, detail="Gemini AI Model is not configured. Check .env file.")
-        
-    # 1. 建構 Prompt (不含 Uploader)
-    prompt = build_prompt(
-        request.uld_id, 
-        request.yolo_findings
-    )
-    
     try:
-        # 2. 呼叫 LLM API
-        response = await llm.generate_content_async(prompt)
-        
-        # 3. 解析 LLM 回應 (移除 markdown)
-        cleaned_response = response.text.strip().replace("```json", "").replace("```", "").strip()
-        
-        ai_report_data = json.loads(cleaned_response)
-        
-        # 4. 建立 ULDReport 物件 (不含 Uploader)
-        report = ULDReport(
-            uld_id=ai_report_data.get("uld_id"),
-            status=ai_report_data.get("status"),
-            damage_category=ai_report_data.get("damage_category"),
-            shipping_location=ai_report_data.get("shipping_location"),
-        )
+        report = await analyze_with_llm(request)
 
         # 5. (重要!) 呼叫我們拆分出來的 DB 儲存邏輯
-        return save_report_to_db(report=report, session=session)
+        with server_timing("db"):
+            return save_report_to_db(report=report, session=session)
 
+    except HTTPException:
+        raise
     except Exception as e:
         print(f"LLM or JSON parsing error: {e}") 
         raise HTTPException(status_code=500, detail=f"AI analysis failed: {str(e)}")
+
+
+@app.post("/api/ai/analyze/stream")
+async def analyze_uld_damage_stream(request: YOLOAnalysisRequest):
+    """
+    [Cloud AI Streaming Endpoint]
+    與 /api/ai/analyze 相同，但以 NDJSON 串流回傳，讓 App 先顯示燈號：
+    {"type": "partial", "report": {"uld_id", "status", "damage_category"}} (0 或多行)
+    {"type": "report", "report": {...含 maintenance_suggestion}} 或 {"type": "error", "status": 500, "error": "..."}
+    最後一行另含 "server_timing"，格式同 Server-Timing 標頭 (標頭送出時 LLM 還沒開始)
+    """
+    # 串流開始後就無法再改 HTTP 狀態碼，先檢查版本
+    check_schema_version(request)
+
+    def ndjson(line: dict) -> str:
+        return json.dumps(line, ensure_ascii=False) + "\n"
+
+    def final_line(line: dict) -> str:
+        timings = current_timings.get()
+        if timings is not None:
+            line["server_timing"] = timings.header_value()
+        return ndjson(line)
+
+    async def stream_events():
+        try:
+            async for event in stream_llm_report(request):
+                if event[0] == "partial":
+                    yield ndjson({"type": "partial", "report": event[1]})
+                    continue
+                _, report, suggestion = event
+                with server_timing("db"), Session(engine) as session:
+                    saved = jsonable_encoder(save_report_to_db(report=report, session=session))
+                saved["maintenance_suggestion"] = suggestion
+                yield final_line({"type": "report", "report": saved})
+        except HTTPException as e:
+            yield final_line({"type": "error", "status": e.status_code, "error": e.detail})
+        except Exception as e:
+            print(f"LLM or JSON parsing error: {e}")
+            yield final_line({"type": "error", "status": 500, "error": f"AI analysis failed: {str(e)}"})
+
+    return StreamingResponse(stream_events(), media_type="application/x-ndjson")
+
+
+# 同時進行的 Gemini 呼叫上限，避免一次批次觸發 API 速率限制
+BATCH_LLM_CONCURRENCY = 8
+
+
+@app.post("/api/ai/analyze/batch")
+async def analyze_uld_damage_batch(request: YOLOAnalysisBatchRequest):
+    """
+    [Cloud AI Batch Endpoint]
+    一次接收多個 ULD 的 YOLO 發現，每個 ULD 各自呼叫一次 LLM。
+    以 NDJSON 串流回傳，每完成一個就輸出一行：
+    {"index": i, "uld_id": "...", "report": {...}} 或 {"index": i, "uld_id": "...", "error": "..."}
+    規則可直接判定的項目不受 LLM 是否設定影響
+    """
+    semaphore = asyncio.Semaphore(BATCH_LLM_CONCURRENCY)
+
+    async def run_item(index: int, item: YOLOAnalysisRequest):
+        async with semaphore:
+            try:
+                return index, item, await analyze_with_llm(item), None
+            except HTTPException as e:
+                return index, item, None, e.detail
+            except Exception as e:
+                print(f"LLM or JSON parsing error for {item.uld_id}: {e}")
+                return index, item, None, f"AI analysis failed: {str(e)}"
+
+    async def stream_results():
+        tasks = [asyncio.create_task(run_item(i, item)) for i, item in enumerate(request.items)]
+        # 串流期間自行開啟 Session，依完成順序逐筆寫入資料庫
+        with Session(engine) as session:
+            for finished in asyncio.as_completed(tasks):
+                index, item, report, error = await finished
+                line = {"index": index, "uld_id": item.uld_id}
+                if report is not None:
+                    try:
+                        line["report"] = jsonable_encoder(save_report_to_db(report=report, session=session))
+                    except Exception as e:
+                        session.rollback()
+                        line["error"] = f"Saving report failed: {str(e)}"
+                else:
+                    line["error"] = error
+                yield json.dumps(line, ensure_ascii=False) + "\n"
+
+    return StreamingResponse(stream_results(), media_type="application/x-ndjson")
 # --- END 新增 ---
 
 